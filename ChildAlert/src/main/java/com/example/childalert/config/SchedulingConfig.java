@@ -0,0 +1,10 @@
+package com.example.childalert.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Turns on @Scheduled jobs, like ChangeEventService checking the outbox and purging old events
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
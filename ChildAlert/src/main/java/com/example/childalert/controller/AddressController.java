@@ -1,14 +1,20 @@
 package com.example.childalert.controller;
 
 import com.example.childalert.model.Address;
+import com.example.childalert.model.AddressView;
+import com.example.childalert.model.Person;
 import com.example.childalert.repository.AddressRepository;
+import com.example.childalert.repository.PersonRepository;
+import com.example.childalert.service.ChangeEventService;
 import com.example.childalert.service.PersonService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -21,6 +27,10 @@ public class AddressController {
     private PersonService personService;
     @Autowired
     private AddressRepository addressRepository;
+    @Autowired
+    private PersonRepository personRepository;
+    @Autowired
+    private ChangeEventService changeEventService;
     private final Logger logger = LoggerFactory.getLogger(AddressController.class);
 
     // Initialize the service so we can use it
@@ -52,12 +62,14 @@ public class AddressController {
      *
      * @param address the information of the address that's to be saved
      *
-     * @return a response entity with the address and created status
+     * @return a response entity with the address and created status, or conflict if the address is already there
      */
     @PostMapping
+    @Transactional
     public ResponseEntity<Address> addAddress(@RequestBody @Valid Address address) {
         logger.info("Received request to add a new Address: {}", address);
         Address savedaddress = addressRepository.save(address);
+        changeEventService.record("address", "create", address.getId(), AddressView.of(address));
         return new ResponseEntity<>(savedaddress, HttpStatus.CREATED);
     }
 
@@ -67,15 +79,22 @@ public class AddressController {
      * @param id used to get the address to be updated
      * @param addressDetails used for the new information
      *
-     * @return response entity with ok or not found
+     * @return response entity with ok, not found, or conflict if another address already has the new value
      */
     @PutMapping("/{id}")
+    @Transactional
     public ResponseEntity<Address> updateAddress(@PathVariable Long id, @RequestBody @Valid Address addressDetails) {
         logger.info("Received request to update Address: {}", id);
         return addressRepository.findById(id)
                 .map(address -> {
+                    boolean renamed = !address.getAddress().equals(addressDetails.getAddress());
                     address.setAddress(addressDetails.getAddress());
                     Address updatedAddress = addressRepository.save(address);
+                    // Everyone living there shows up with the new address in the next export. Subscribers to /events get the one address event and apply the new name to its people themselves
+                    if (renamed) {
+                        personRepository.touchByAddressId(id, Person.now());
+                    }
+                    changeEventService.record("address", "update", id, AddressView.of(address));
                     return ResponseEntity.ok(updatedAddress);
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -89,13 +108,32 @@ public class AddressController {
      * @return a response entity with either no content or not found depending on the circumstances
      */
     @DeleteMapping("/{id}")
+    @Transactional
     public ResponseEntity<Object> deleteAddress(@PathVariable Long id) {
         logger.info("Received request to delete Address: {}", id);
         return addressRepository.findById(id)
                 .map(address -> {
+                    // The people living there go with it, so each of them gets a delete event of their own first
+                    if (address.getPeople() != null) {
+                        address.getPeople().forEach(person -> changeEventService.record("person", "delete", person.getId(), null));
+                    }
                     addressRepository.delete(address);
+                    changeEventService.record("address", "delete", id, null);
                     return ResponseEntity.noContent().build();
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
-}
\ No newline at end of file
+
+    /**
+     * Addresses are unique in the db, so this is how a duplicate shows up. Since the writes are transactional it can come from the insert at commit rather than the save call, so it's handled here for both
+     *
+     * @param e the exception from the unique constraint
+     *
+     * @return a response entity with conflict status
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Address> addressConflict(DataIntegrityViolationException e) {
+        logger.info("Address already exists: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+}
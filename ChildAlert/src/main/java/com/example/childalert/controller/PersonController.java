@@ -1,15 +1,18 @@
 package com.example.childalert.controller;
 
 import com.example.childalert.model.Address;
+import com.example.childalert.model.ExportRow;
 import com.example.childalert.model.Person;
 import com.example.childalert.repository.AddressRepository;
 import com.example.childalert.repository.PersonRepository;
+import com.example.childalert.service.ChangeEventService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -23,6 +26,9 @@ public class PersonController {
 
     @Autowired
     private AddressRepository addressRepository;
+
+    @Autowired
+    private ChangeEventService changeEventService;
     private final Logger logger = LoggerFactory.getLogger(PersonController.class);
 
     /**
@@ -45,12 +51,14 @@ public class PersonController {
      * @return a response entity with the person and created status, can also throw an exception
      */
     @PostMapping
+    @Transactional
     public ResponseEntity<Person> addPerson(@Valid @RequestBody Person person) {
         logger.info("Received request to add a new Person: {}", person);
         Address address = addressRepository.findById(person.getAddressId()).orElseThrow(() -> new RuntimeException("Address not found"));
         person.setAddress(address);
         address.getPeople().add(person);
         Person savedPerson = personRepository.save(person);
+        changeEventService.record("person", "create", person.getId(), ExportRow.of(person, address));
         return new ResponseEntity<>(savedPerson, HttpStatus.CREATED);
     }
 
@@ -63,6 +71,7 @@ public class PersonController {
      * @return response entity with ok or not found, or throws an error
      */
     @PutMapping("/{id}")
+    @Transactional
     public ResponseEntity<Person> updatePerson(@PathVariable Long id, @Valid @RequestBody Person personDetails) {
         logger.info("Received request to update Person: {}", id);
         return personRepository.findById(id)
@@ -79,7 +88,11 @@ public class PersonController {
                     // Remove from old address, add to new
                     existingAddress.getPeople().remove(person);
                     existingAddress.getPeople().add(person);
+                    person.touch();
                     Person updatedPerson = personRepository.save(person);
+                    // Flushed so the updatedAt stamped on the update is the one in the event
+                    personRepository.flush();
+                    changeEventService.record("person", "update", id, ExportRow.of(person, address));
                     return ResponseEntity.ok(updatedPerson);
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -93,6 +106,7 @@ public class PersonController {
      * @return a response entity with either no content or not found depending on circumstances
      */
     @DeleteMapping("/{id}")
+    @Transactional
     public ResponseEntity<Object> deletePerson(@PathVariable Long id) {
         logger.info("Received request to delete Person: {}", id);
         return personRepository.findById(id)
@@ -100,6 +114,7 @@ public class PersonController {
                     Address address = person.getAddress();
                     address.getPeople().remove(person);
                     personRepository.delete(person);
+                    changeEventService.record("person", "delete", id, null);
                     return ResponseEntity.noContent().build();
                 })
                 .orElse(ResponseEntity.notFound().build());
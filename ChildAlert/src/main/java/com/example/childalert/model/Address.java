@@ -11,6 +11,7 @@ import java.util.List;
 @Setter
 @Getter
 @Entity
+// Addresses are unique and indexed since that's what people are looked up by, see the migrations in resources/db/migration
 @Table(name="AddressTable")
 public class Address {
 
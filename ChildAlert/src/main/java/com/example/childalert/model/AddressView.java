@@ -0,0 +1,9 @@
+package com.example.childalert.model;
+
+// An address on its own, which is what an address change event carries. Serializing the entity would drag everyone living there along with it
+public record AddressView(long id, String address) {
+
+    public static AddressView of(Address address) {
+        return new AddressView(address.getId(), address.getAddress());
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.childalert.model;
+
+// Read-only row for a child at an address, only the columns the child alert needs are selected so no Person or Address entities get loaded.
+public record ChildView(String firstName, String lastName, String phone, int age) {
+}
@@ -0,0 +1,17 @@
+package com.example.childalert.model;
+
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+// A person as GET /export writes them, with their address written out. Field order here is the json field order, and updatedAt is already a string so it's always formatted the same way.
+// Person change events send this same row, which is how an exported copy stays current from GET /events
+public record ExportRow(long id, String firstName, String lastName, String phoneNumber, int age, Long addressId, String address, String updatedAt) {
+
+    public static final DateTimeFormatter UPDATED_AT = DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss.SSSSSS'Z'").withZone(ZoneOffset.UTC);
+
+    // Takes the address the person is attached to, which the controller has already loaded
+    public static ExportRow of(Person person, Address address) {
+        return new ExportRow(person.getId(), person.getFirstName(), person.getLastName(), person.getPhoneNumber(), person.getAge(),
+                address.getId(), address.getAddress(), UPDATED_AT.format(person.getUpdatedAt()));
+    }
+}
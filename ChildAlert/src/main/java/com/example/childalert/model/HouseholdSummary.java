@@ -0,0 +1,5 @@
+package com.example.childalert.model;
+
+// How many people live at an address and how many of them are children, counted by the db.
+public record HouseholdSummary(long members, long children) {
+}
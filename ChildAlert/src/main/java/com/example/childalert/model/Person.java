@@ -1,15 +1,22 @@
 package com.example.childalert.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 @Setter
 @Getter
 @Entity
+// There's an index on (address_id, age) so the children at an address can be found without reading the adults, see the migrations in resources/db/migration
 @Table(name="PersonTable")
 public class Person {
 
@@ -38,6 +45,13 @@ public class Person {
     @Transient
     private long addressId;
 
+    // When the row last changed, GET /export?since= goes by it. Stamped right before the insert or update instead of when the object is made, so a person read from a request a while before it's saved isn't written out already in the past.
+    // Changing only a list doesn't update the row by itself, touch() makes the person count as changed for that. The bulk updates and imports that skip the entity set it themselves.
+    // Kept to microseconds since that's all the column holds, and never part of the json
+    @JsonIgnore
+    @JdbcTypeCode(SqlTypes.TIMESTAMP)
+    private Instant updatedAt;
+
     // Constructors
     public Person(long id, String firstName, String lastName, String phoneNumber, int age, Address address) {
         this.id = id;
@@ -68,4 +82,18 @@ public class Person {
 
     }
 
+    public static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void stampUpdatedAt() {
+        updatedAt = now();
+    }
+
+    public void touch() {
+        updatedAt = now();
+    }
+
 }
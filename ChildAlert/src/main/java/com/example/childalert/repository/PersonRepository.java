@@ -1,11 +1,35 @@
 package com.example.childalert.repository;
 
-import com.example.childalert.model.Address;
+import com.example.childalert.model.ChildView;
+import com.example.childalert.model.HouseholdSummary;
 import com.example.childalert.model.Person;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
 
 public interface PersonRepository extends JpaRepository<Person, Long> {
-    List<Person> findByAddressAddress(String address);
+    // Written out as an inner join, the derived version left joins the address so the database has to start from every person instead of from the address index
+    @Query("select p from Person p join p.address a where a.address = :address")
+    List<Person> findByAddressAddress(@Param("address") String address);
+
+    // Only the people under 18 at an address, the age filter runs in the db so adults are never read
+    @Query("select new com.example.childalert.model.ChildView(p.firstName, p.lastName, p.phoneNumber, p.age) " +
+            "from Person p join p.address a where a.address = :address and p.age < 18")
+    List<ChildView> findChildrenByAddress(@Param("address") String address);
+
+    // Counts everyone at an address and the children among them without loading anyone
+    @Query("select new com.example.childalert.model.HouseholdSummary(count(p), coalesce(sum(case when p.age < 18 then 1L else 0L end), 0L)) " +
+            "from Person p join p.address a where a.address = :address")
+    HouseholdSummary summarizeHousehold(@Param("address") String address);
+
+    // The export writes out each person's address, so renaming an address changes everyone living there. Its own transaction since the address controller doesn't have one
+    @Transactional
+    @Modifying
+    @Query("update Person p set p.updatedAt = :now where p.address.id = :addressId")
+    int touchByAddressId(@Param("addressId") long addressId, @Param("now") Instant now);
 }
@@ -0,0 +1,121 @@
+package com.example.childalert.service;
+
+import com.example.childalert.model.ChangeEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Ring of the newest change events, in seq order with no gaps, so subscribers that are keeping up are sent events without reading the db.
+// It's a ReentrantLock instead of synchronized because subscribers wait on it from virtual threads, and a virtual thread waiting on a monitor holds on to its carrier thread
+@Component
+public class ChangeEventBuffer {
+
+    private final ChangeEvent[] ring;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    // Seq of the newest event, -1 until the buffer has been loaded from the outbox
+    private long lastSeq = -1;
+    private int size;
+
+    @Autowired
+    public ChangeEventBuffer(@Value("${childalert.events.buffer-size:4096}") int capacity) {
+        this.ring = new ChangeEvent[capacity];
+    }
+
+    public int capacity() {
+        return ring.length;
+    }
+
+    public long lastSeq() {
+        lock.lock();
+        try {
+            return lastSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Starts over from the outbox. recent are the newest events there in seq order, and lastSeq is the newest seq handed out (there's nothing after it, but recent can stop short of it if those were purged)
+    public void reset(long lastSeq, List<ChangeEvent> recent) {
+        lock.lock();
+        try {
+            size = 0;
+            this.lastSeq = recent.isEmpty() ? lastSeq : recent.get(0).seq() - 1;
+            recent.forEach(this::put);
+            this.lastSeq = Math.max(this.lastSeq, lastSeq);
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Adds events that just committed. Ones already here are skipped, and false means there's a gap before them (another instance wrote some, or they committed in between) so the buffer has to be caught up from the outbox
+    public boolean append(List<ChangeEvent> events) {
+        lock.lock();
+        try {
+            if (lastSeq < 0) {
+                return false;
+            }
+            long before = lastSeq;
+            for (ChangeEvent event : events) {
+                if (event.seq() <= lastSeq) {
+                    continue;
+                }
+                if (event.seq() != lastSeq + 1) {
+                    return false;
+                }
+                put(event);
+            }
+            if (lastSeq != before) {
+                appended.signalAll();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Up to limit events after seq, empty if the buffer doesn't go back that far (or hasn't been loaded) and they have to be read from the outbox
+    public Optional<List<ChangeEvent>> after(long seq, int limit) {
+        lock.lock();
+        try {
+            if (lastSeq < 0 || seq < lastSeq - size) {
+                return Optional.empty();
+            }
+            List<ChangeEvent> events = new ArrayList<>();
+            for (long next = seq + 1; next <= lastSeq && events.size() < limit; next++) {
+                events.add(ring[(int) (next % ring.length)]);
+            }
+            return Optional.of(events);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Waits until there's an event after seq or the timeout runs out, true if there is one
+    public boolean awaitAfter(long seq, Duration timeout) throws InterruptedException {
+        lock.lock();
+        try {
+            long nanos = timeout.toNanos();
+            while (lastSeq <= seq && nanos > 0) {
+                nanos = appended.awaitNanos(nanos);
+            }
+            return lastSeq > seq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(ChangeEvent event) {
+        ring[(int) (event.seq() % ring.length)] = event;
+        size = Math.min(size + 1, ring.length);
+        lastSeq = event.seq();
+    }
+}
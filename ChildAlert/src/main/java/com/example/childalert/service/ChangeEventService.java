@@ -0,0 +1,224 @@
+package com.example.childalert.service;
+
+import com.example.childalert.model.ChangeEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Use this service to record a change event for every write to the service's tables, and to read them back for GET /events.
+// Events go into change_event_table (the outbox) in the same transaction as the write, and into the in memory buffer once that transaction has committed. Subscribers read from the buffer and only go to the outbox when they're further behind than it goes back
+@Service
+public class ChangeEventService implements ChangeEventServiceInterface {
+
+    // A transaction keeps at most this many events in memory. Past that they're written to change_event_pending_table to wait for the commit, so a big batch import doesn't hold them all
+    static final int WRITE_BATCH = 500;
+    private static final String COLUMNS = "entity, operation, entity_id, payload, created_at";
+    private static final String SELECT = "select seq, " + COLUMNS + " from change_event_table ";
+    private static final RowMapper<ChangeEvent> ROW = (resultSet, row) -> new ChangeEvent(resultSet.getLong("seq"), resultSet.getString("entity"), resultSet.getString("operation"),
+            resultSet.getLong("entity_id"), resultSet.getString("payload"), resultSet.getTimestamp("created_at").toInstant());
+
+    private JdbcTemplate jdbcTemplate;
+    private EntityManager entityManager;
+    private ChangeEventBuffer changeEventBuffer;
+    private ObjectMapper objectMapper;
+    private Duration retention;
+    private final Logger logger = LoggerFactory.getLogger(ChangeEventService.class);
+
+    // Can have the constructor be autowired so it autowires everything in the constructor
+    @Autowired
+    public ChangeEventService(JdbcTemplate jdbcTemplate, EntityManager entityManager, ChangeEventBuffer changeEventBuffer, ObjectMapper objectMapper, @Value("${childalert.events.retention:P7D}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.changeEventBuffer = changeEventBuffer;
+        this.objectMapper = objectMapper;
+        this.retention = retention;
+    }
+
+    // Adds an event to the transaction that's running (or one of its own if there isn't one). It's given its seq just before the transaction commits, and nobody sees it unless the commit goes through
+    @Override
+    @Transactional
+    public void record(String entity, String operation, long entityId, Object payload) {
+        TransactionEvents events = (TransactionEvents) TransactionSynchronizationManager.getResource(this);
+        if (events == null) {
+            events = new TransactionEvents();
+            TransactionSynchronizationManager.bindResource(this, events);
+            TransactionSynchronizationManager.registerSynchronization(events);
+        }
+        events.add(new ChangeEvent(0, entity, operation, entityId, json(payload), Instant.now().truncatedTo(ChronoUnit.MICROS)));
+    }
+
+    @Override
+    public List<ChangeEvent> eventsAfter(long seq, int limit) {
+        if (changeEventBuffer.lastSeq() < 0) {
+            refresh();
+        }
+        return changeEventBuffer.after(seq, limit).orElseGet(() -> read(seq, limit));
+    }
+
+    // Waits for new events if there aren't any after seq yet. Empty if nothing came before the timeout
+    @Override
+    public List<ChangeEvent> awaitEventsAfter(long seq, int limit, Duration timeout) throws InterruptedException {
+        List<ChangeEvent> events = eventsAfter(seq, limit);
+        if (events.isEmpty() && changeEventBuffer.awaitAfter(seq, timeout)) {
+            events = eventsAfter(seq, limit);
+        }
+        return events;
+    }
+
+    @Override
+    public long lastSeq() {
+        if (changeEventBuffer.lastSeq() < 0) {
+            refresh();
+        }
+        return changeEventBuffer.lastSeq();
+    }
+
+    // The oldest seq still in the outbox. A subscriber resuming from before it has missed events that have been purged
+    @Override
+    public long firstRetainedSeq() {
+        Long first = jdbcTemplate.queryForObject("select min(seq) from change_event_table", Long.class);
+        return first == null ? lastSeq() + 1 : first;
+    }
+
+    // Catches the buffer up with the outbox. Runs every poll interval to pick up events written by other instances of the app, and whenever the buffer finds a gap.
+    // If it's further behind than the buffer holds, it's loaded again with the newest events
+    @Override
+    @Scheduled(fixedDelayString = "${childalert.events.poll-interval:PT1S}")
+    public void refresh() {
+        long lastSeq = changeEventBuffer.lastSeq();
+        if (lastSeq >= 0) {
+            List<ChangeEvent> events = read(lastSeq, changeEventBuffer.capacity());
+            if (events.size() < changeEventBuffer.capacity() && changeEventBuffer.append(events)) {
+                return;
+            }
+        }
+        long last = jdbcTemplate.queryForObject("select last_seq from change_sequence_table where id = 1", Long.class);
+        changeEventBuffer.reset(last, read(Math.max(0, last - changeEventBuffer.capacity()), changeEventBuffer.capacity()));
+    }
+
+    // Deletes the events older than childalert.events.retention. It goes by seq so what's left never has a gap in it
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "PT1H", initialDelayString = "PT1H")
+    public int purge() {
+        Long last = jdbcTemplate.queryForObject("select max(seq) from change_event_table where created_at < ?", Long.class, Timestamp.from(Instant.now().minus(retention)));
+        if (last == null) {
+            return 0;
+        }
+        int purged = jdbcTemplate.update("delete from change_event_table where seq <= ?", last);
+        logger.info("Purged {} change events up to seq {}", purged, last);
+        return purged;
+    }
+
+    private List<ChangeEvent> read(long seq, int limit) {
+        return jdbcTemplate.query(SELECT + "where seq > ? order by seq limit ?", ROW, seq, limit);
+    }
+
+    // Waiting events get an id in the order they were recorded, which is the order they're numbered in
+    private void writePending(String batchId, List<ChangeEvent> events) {
+        jdbcTemplate.batchUpdate("insert into change_event_pending_table (batch_id, " + COLUMNS + ") values (?, ?, ?, ?, ?, ?)", events, events.size(), (statement, event) -> {
+            statement.setString(1, batchId);
+            statement.setString(2, event.entity());
+            statement.setString(3, event.operation());
+            statement.setLong(4, event.entityId());
+            statement.setString(5, event.payload());
+            statement.setTimestamp(6, Timestamp.from(event.createdAt()));
+        });
+    }
+
+    // Takes the next seqs by bumping change_sequence_table and moves the transaction's events into the outbox with them. That row stays locked until the transaction ends, so the next writer waits for this one to commit and seqs always commit in order.
+    // That's what lets a subscriber resume from the last seq it saw without missing anything. It's only done right before the commit, after everything else the transaction writes has gone to the db, so the row isn't held while the work is done.
+    // The waiting events take the first seqs and the ones still in memory come after, those are returned with their seqs
+    private List<ChangeEvent> publish(String batchId, int pending, List<ChangeEvent> events) {
+        if (entityManager.isJoinedToTransaction()) {
+            entityManager.flush();
+        }
+        int count = pending + events.size();
+        jdbcTemplate.update("update change_sequence_table set last_seq = last_seq + ? where id = 1", count);
+        long first = jdbcTemplate.queryForObject("select last_seq from change_sequence_table where id = 1", Long.class) - count + 1;
+        if (pending > 0) {
+            jdbcTemplate.update("insert into change_event_table (seq, " + COLUMNS + ") select ? + row_number() over (order by id) - 1, " + COLUMNS
+                    + " from change_event_pending_table where batch_id = ?", first, batchId);
+            jdbcTemplate.update("delete from change_event_pending_table where batch_id = ?", batchId);
+        }
+        List<ChangeEvent> numbered = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            numbered.add(events.get(i).withSeq(first + pending + i));
+        }
+        jdbcTemplate.batchUpdate("insert into change_event_table (seq, " + COLUMNS + ") values (?, ?, ?, ?, ?, ?)", numbered, numbered.size(), (statement, event) -> {
+            statement.setLong(1, event.seq());
+            statement.setString(2, event.entity());
+            statement.setString(3, event.operation());
+            statement.setLong(4, event.entityId());
+            statement.setString(5, event.payload());
+            statement.setTimestamp(6, Timestamp.from(event.createdAt()));
+        });
+        return numbered;
+    }
+
+    private String json(Object payload) {
+        if (payload == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Change event payload can't be written as json", e);
+        }
+    }
+
+    // The events recorded in one transaction. Bound to it as a resource so every record() in the transaction adds to the same list
+    private final class TransactionEvents implements TransactionSynchronization {
+        private final List<ChangeEvent> unwritten = new ArrayList<>();
+        // Set once the transaction has more events than it keeps in memory, for its rows in change_event_pending_table
+        private String batchId;
+        private int pending;
+        private List<ChangeEvent> published = List.of();
+
+        void add(ChangeEvent event) {
+            unwritten.add(event);
+            if (unwritten.size() == WRITE_BATCH) {
+                if (batchId == null) {
+                    batchId = UUID.randomUUID().toString();
+                }
+                writePending(batchId, unwritten);
+                pending += unwritten.size();
+                unwritten.clear();
+            }
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            published = publish(batchId, pending, unwritten);
+            unwritten.clear();
+        }
+
+        // Events that waited in the db are read back from the outbox by refresh() instead of being kept until now
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(ChangeEventService.this);
+            if (status == STATUS_COMMITTED && (pending > 0 || !changeEventBuffer.append(published))) {
+                refresh();
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.childalert.service;
+
+import com.example.childalert.model.ExportFormat;
+import com.example.childalert.model.ExportRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+// Use this service to write people out for GET /export, the same way FireStation's export does: one pass over a JDBC cursor in id order (childalert.export.fetch-size rows per round trip), each row written as it's read.
+// Nothing in the output depends on when it ran, so exporting the same people twice gives the same bytes
+@Service
+public class PersonExportService implements PersonExportServiceInterface {
+
+    static final String CSV_HEADER = "id,firstName,lastName,phoneNumber,age,addressId,address,updatedAt";
+    private static final String SELECT = "select p.id, p.first_name, p.last_name, p.phone_number, p.age, p.address_id, a.address, p.updated_at "
+            + "from person_table p left join address_table a on a.id = p.address_id ";
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    private ObjectWriter rowWriter;
+    private Duration overlap;
+
+    // Can have the constructor be autowired so it autowires everything in the constructor
+    @Autowired
+    public PersonExportService(DataSource dataSource, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                               @Value("${childalert.export.fetch-size:1000}") int fetchSize, @Value("${childalert.export.overlap:PT1M}") Duration overlap) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.rowWriter = objectMapper.writerFor(ExportRow.class).without(SerializationFeature.INDENT_OUTPUT);
+        this.overlap = overlap;
+    }
+
+    // Goes back the overlap before since so writes that were still committing during the last export aren't missed, those people are sent twice
+    private Timestamp start(Instant since) {
+        return Timestamp.from(since.minus(overlap));
+    }
+
+    // Exports go up to the last whole second, because If-Modified-Since only has whole seconds and the next export starts from this time
+    @Override
+    public Instant exportUntil() {
+        return Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    @Override
+    public boolean changedBetween(Instant since, Instant until) {
+        return !jdbcTemplate.queryForList("select id from person_table where updated_at >= ? and updated_at < ? limit 1", Long.class,
+                start(since), Timestamp.from(until)).isEmpty();
+    }
+
+    // Everyone changed in [since - overlap, until), or everyone changed before until if since is null. Returns how many people were written
+    @Override
+    public long export(ExportFormat format, Instant since, Instant until, OutputStream out) throws IOException {
+        String sql = SELECT + (since == null ? "where p.updated_at < ?" : "where p.updated_at >= ? and p.updated_at < ?") + " order by p.id";
+        Object[] parameters = since == null ? new Object[]{Timestamp.from(until)} : new Object[]{start(since), Timestamp.from(until)};
+        long[] count = {0};
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                if (format == ExportFormat.CSV) {
+                    write(out, CSV_HEADER + "\n");
+                }
+                jdbcTemplate.query(sql, resultSet -> {
+                    ExportRow row = row(resultSet);
+                    write(out, format == ExportFormat.CSV ? csvLine(row) : json(row));
+                    count[0]++;
+                }, parameters);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return count[0];
+    }
+
+    private static ExportRow row(ResultSet resultSet) throws SQLException {
+        long addressId = resultSet.getLong("address_id");
+        Long address = resultSet.wasNull() ? null : addressId;
+        return new ExportRow(resultSet.getLong("id"), resultSet.getString("first_name"), resultSet.getString("last_name"), resultSet.getString("phone_number"),
+                resultSet.getInt("age"), address, resultSet.getString("address"), ExportRow.UPDATED_AT.format(resultSet.getTimestamp("updated_at").toInstant()));
+    }
+
+    private String json(ExportRow row) {
+        try {
+            return rowWriter.writeValueAsString(row) + "\n";
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String csvLine(ExportRow row) {
+        return row.id() + "," + csv(row.firstName()) + "," + csv(row.lastName()) + "," + csv(row.phoneNumber()) + "," + row.age() + ","
+                + (row.addressId() == null ? "" : row.addressId()) + "," + csv(row.address()) + "," + row.updatedAt() + "\n";
+    }
+
+    // Addresses often have commas in them, those get quoted
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static void write(OutputStream out, String text) {
+        try {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
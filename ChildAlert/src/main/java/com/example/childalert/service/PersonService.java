@@ -1,7 +1,7 @@
 package com.example.childalert.service;
 
-import com.example.childalert.model.Address;
-import com.example.childalert.model.Person;
+import com.example.childalert.model.ChildView;
+import com.example.childalert.model.HouseholdSummary;
 import com.example.childalert.repository.PersonRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -20,31 +20,22 @@ public class PersonService implements PersonServiceInterface {
     // Use a Map so the keys of the key value pair are unique
     @Override
     public Map<String, Object> getPeopleByAddress(String address) {
-        List<Person> people = personRepository.findByAddressAddress(address);
+        // The db counts the household, so nothing is loaded if nobody lives there
+        HouseholdSummary household = personRepository.summarizeHousehold(address);
 
-        // If the Map is empty, return an empty Map.
-        if (people.isEmpty()) {
+        // If nobody lives at the address, return an empty Map.
+        if (household.members() == 0) {
             return Collections.emptyMap();
         }
 
-        // List of people
-        List<Map<String, String>> personInfo = new ArrayList<>();
-
-        for (Person person : people) {
-            // Get the people only if they are under 18
-            Map<String, String> personData = new HashMap<>();
-            if (person.getAge() < 18) {
-                personData.put("firstName", person.getFirstName());
-                personData.put("lastName", person.getLastName());
-                personData.put("phone", person.getPhoneNumber());
-                personData.put("age", String.valueOf(person.getAge()));
-            }
-            personInfo.add(personData);
-        }
+        // Only the children are read, adults never leave the db
+        List<ChildView> children = household.children() == 0 ? List.of() : personRepository.findChildrenByAddress(address);
 
         // Add everything to a response so it can easily be returned
         Map<String, Object> response = new HashMap<>();
-        response.put("people", personInfo);
+        response.put("people", children);
+        response.put("householdMembers", household.members());
+        response.put("childCount", household.children());
         return response;
     }
 }
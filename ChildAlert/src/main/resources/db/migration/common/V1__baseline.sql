@@ -0,0 +1,6 @@
+-- The schema as Hibernate made it with ddl-auto=update. Databases that already have these tables are baselined at 1.1 and skip straight to V2
+create table address_table (id bigint not null, address varchar(255) not null, primary key (id));
+create table person_table (age integer not null, address_id bigint, id bigint not null auto_increment, first_name varchar(255) not null, last_name varchar(255) not null, phone_number varchar(255) not null, primary key (id));
+create index idx_address_address on address_table (address);
+create index idx_person_address_age on person_table (address_id, age);
+alter table person_table add constraint FK526apn5rpymyxevsplas9k40m foreign key (address_id) references address_table (id);
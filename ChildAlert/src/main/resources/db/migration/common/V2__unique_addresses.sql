@@ -0,0 +1,7 @@
+-- GET /childAlert treats everyone at an address as one household, so the same address twice would split it in two.
+-- An older database can already have the same address more than once, so everyone is moved to the lowest id of their address and the other copies are removed first
+update person_table set address_id = (select min(same.id) from address_table a join address_table same on same.address = a.address where a.id = person_table.address_id)
+where address_id in (select a.id from address_table a join address_table same on same.address = a.address and same.id < a.id);
+-- MySQL can't delete from a table it reads in the subquery, the derived table gets around that
+delete from address_table where id not in (select id from (select min(id) id from address_table group by address) kept);
+alter table address_table add constraint uk_address_address unique (address);
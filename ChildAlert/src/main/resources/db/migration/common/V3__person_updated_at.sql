@@ -0,0 +1,3 @@
+-- The last time each person row changed, for incremental exports (GET /export?since=). Everyone already in the table starts at the time this runs
+alter table person_table add column updated_at datetime(6) not null default current_timestamp(6);
+create index idx_person_updated_at on person_table (updated_at);
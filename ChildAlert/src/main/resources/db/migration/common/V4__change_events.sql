@@ -0,0 +1,6 @@
+-- The outbox GET /events reads from. Person and address writes insert their events in the same transaction as the write itself, so subscribers only ever hear about changes that committed.
+-- Seqs are handed out from the single row in change_sequence_table, and since taking them locks that row until commit they commit in order with no gaps
+create table change_event_table (seq bigint not null, entity varchar(32) not null, operation varchar(16) not null, entity_id bigint not null, payload text, created_at datetime(6) not null, primary key (seq));
+create index idx_change_event_created_at on change_event_table (created_at);
+create table change_sequence_table (id integer not null, last_seq bigint not null, primary key (id));
+insert into change_sequence_table (id, last_seq) values (1, 0);
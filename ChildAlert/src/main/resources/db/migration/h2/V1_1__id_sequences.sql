@@ -0,0 +1 @@
+create sequence address_table_seq start with 1 increment by 50;
@@ -0,0 +1,2 @@
+-- The unique constraint from V2 has its own index, which replaces the plain one
+drop index if exists idx_address_address;
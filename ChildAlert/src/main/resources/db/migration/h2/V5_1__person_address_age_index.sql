@@ -0,0 +1,2 @@
+-- V1 makes this index, but a database baselined at 1.1 skipped V1 and an older one made with ddl-auto may not have it
+create index if not exists idx_person_address_age on person_table (address_id, age);
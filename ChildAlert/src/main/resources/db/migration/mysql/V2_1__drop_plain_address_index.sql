@@ -0,0 +1,7 @@
+-- The unique constraint from V2 has its own index, which replaces the plain one. Databases made before the plain index was added don't have it,
+-- and MySQL has no drop index if exists, so the statement is only built when the index is there
+set @drop_index = (select if(count(*) > 0, 'drop index idx_address_address on address_table', 'do 0') from information_schema.statistics
+                   where table_schema = database() and table_name = 'address_table' and index_name = 'idx_address_address');
+prepare drop_index from @drop_index;
+execute drop_index;
+deallocate prepare drop_index;
@@ -0,0 +1,7 @@
+-- V1 makes this index, but a database baselined at 1.1 skipped V1 and an older one made with ddl-auto may not have it.
+-- MySQL has no create index if not exists, so the statement is only built when the index is missing
+set @create_index = (select if(count(*) = 0, 'create index idx_person_address_age on person_table (address_id, age)', 'do 0') from information_schema.statistics
+                     where table_schema = database() and table_name = 'person_table' and index_name = 'idx_person_address_age');
+prepare create_index from @create_index;
+execute create_index;
+deallocate prepare create_index;
@@ -4,12 +4,16 @@ import com.example.childalert.controller.PersonController;
 import com.example.childalert.model.Address;
 import com.example.childalert.model.Person;
 import com.example.childalert.repository.AddressRepository;
+import com.example.childalert.repository.PersonRepository;
+import com.example.childalert.service.ChangeEventService;
+import com.example.childalert.service.PersonExportService;
 import com.example.childalert.service.PersonService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -38,6 +42,15 @@ public class AddressControllerTest {
     @MockBean
     private PersonController personController;
 
+    @MockBean
+    private PersonRepository personRepository;
+
+    @MockBean
+    private PersonExportService personExportService;
+
+    @MockBean
+    private ChangeEventService changeEventService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -53,6 +66,17 @@ public class AddressControllerTest {
                 .andExpect(status().isCreated());
     }
 
+    @Test
+    public void addAddress_AlreadyExists() throws Exception {
+        Address address = new Address(1, "123 Main St");
+        when(addressRepository.save(any(Address.class))).thenThrow(new DataIntegrityViolationException("uk_address_address"));
+
+        mockMvc.perform(post("/childAlert")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(address)))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     public void getPeopleByAddress() throws Exception {
         Person person1 = new Person("John", "Doe", "555-5555", 30, 1);
@@ -87,6 +111,8 @@ public class AddressControllerTest {
                 .andExpect(jsonPath("$.address").value("456 New St"));
 
         verify(addressRepository).save(existingAddress);
+        // Renamed, so the people living there have to go out again in the next export
+        verify(personRepository).touchByAddressId(eq(0L), any());
     }
 
     @Test
@@ -5,6 +5,8 @@ import com.example.childalert.model.Address;
 import com.example.childalert.model.Person;
 import com.example.childalert.repository.AddressRepository;
 import com.example.childalert.repository.PersonRepository;
+import com.example.childalert.service.ChangeEventService;
+import com.example.childalert.service.PersonExportService;
 import com.example.childalert.service.PersonService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -41,6 +43,12 @@ public class PersonControllerTest {
     @MockBean
     private PersonRepository personRepository;
 
+    @MockBean
+    private PersonExportService personExportService;
+
+    @MockBean
+    private ChangeEventService changeEventService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -0,0 +1,89 @@
+package com.example.childalert.load;
+
+import com.example.loadtest.LoadTest;
+import com.example.loadtest.Scenario;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the whole app on the in memory db and sends it real HTTP load. The load part only runs when asked, for example:
+// mvn test -Dtest=LoadScenarioTest -Dload.people=100000 -Dload.clients=200 -Dload.duration=30
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("h2")
+class LoadScenarioTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Logger logger = LoggerFactory.getLogger(LoadScenarioTest.class);
+
+    private List<Map<String, Object>> checksum() {
+        return jdbcTemplate.queryForList("select count(*), sum(age), sum(length(first_name)), sum(address_id) from person_table");
+    }
+
+    @Test
+    void syntheticDataIsTheSameEveryTime() {
+        SyntheticData data = new SyntheticData(jdbcTemplate, 42);
+        data.clear();
+        data.generate(2000);
+        List<Map<String, Object>> first = checksum();
+        data.clear();
+        data.generate(2000);
+
+        assertEquals(first, checksum());
+        assertEquals(2000, jdbcTemplate.queryForObject("select count(*) from person_table", Integer.class));
+        assertEquals(500, jdbcTemplate.queryForObject("select count(*) from address_table", Integer.class));
+        data.clear();
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "load.people", matches = "\\d+")
+    void loadScenarios() throws InterruptedException {
+        int people = Integer.getInteger("load.people");
+        int clients = Integer.getInteger("load.clients", 100);
+        Duration duration = Duration.ofSeconds(Long.getLong("load.duration", 30));
+        int addresses = SyntheticData.addresses(people);
+
+        SyntheticData data = new SyntheticData(jdbcTemplate, 42);
+        data.clear();
+        data.generate(people);
+
+        String base = "http://localhost:" + port;
+        logger.info("{} people, {} addresses, {} clients, {} seconds per scenario", people, addresses, clients, duration.toSeconds());
+        logger.info(LoadTest.header());
+        // People are spread over the addresses at random, so now and then one has nobody living there and answers 404
+        run("child alert", clients, duration,
+                Scenario.get(random -> childAlert(base, SyntheticData.address(1 + random.nextInt(addresses)))).expecting(200, 404));
+        // Addresses nobody lives at, this is the not found path so a 404 is the right answer
+        run("child alert (unknown)", clients, duration,
+                Scenario.get(random -> childAlert(base, SyntheticData.address(addresses + 1 + random.nextInt(addresses)))).expecting(404));
+        data.clear();
+    }
+
+    private static URI childAlert(String base, String address) {
+        return URI.create(base + "/childAlert?address=" + URLEncoder.encode(address, StandardCharsets.UTF_8));
+    }
+
+    // One line of the results table for each scenario
+    private void run(String scenario, int clients, Duration duration, Scenario requests) throws InterruptedException {
+        logger.info(LoadTest.run(requests, clients, duration).row(scenario));
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.childalert.load;
+
+import com.example.loadtest.SyntheticPeople;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Fills the db with made up addresses and people straight through JDBC. The same seed and size always gives the same rows, and there's an address for every 4 people so households look about right at any size.
+public class SyntheticData {
+
+    private static final int CHUNK = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long seed;
+
+    public SyntheticData(JdbcTemplate jdbcTemplate, long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.seed = seed;
+    }
+
+    public static int addresses(int people) {
+        return Math.max(1, people / 4);
+    }
+
+    // Address ids run from 1 to addresses(people), so callers can make any of them up without asking the db
+    public static String address(int id) {
+        return id + " " + SyntheticPeople.street(id);
+    }
+
+    public void generate(int people) {
+        Random random = new Random(seed);
+        int addresses = addresses(people);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= addresses; i++) {
+            rows.add(new Object[]{i, address(i)});
+            if (rows.size() == CHUNK || i == addresses) {
+                jdbcTemplate.batchUpdate("insert into address_table (id, address) values (?, ?)", rows);
+                rows.clear();
+            }
+        }
+
+        for (int i = 1; i <= people; i++) {
+            rows.add(new Object[]{i, SyntheticPeople.firstName(random), SyntheticPeople.lastName(random),
+                    SyntheticPeople.phoneNumber(random), SyntheticPeople.age(random), 1 + random.nextInt(addresses)});
+            if (rows.size() == CHUNK || i == people) {
+                jdbcTemplate.batchUpdate("insert into person_table (id, first_name, last_name, phone_number, age, address_id) values (?, ?, ?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+
+        // Move the ids past the generated rows so people and addresses added through the app don't clash with them
+        jdbcTemplate.execute("alter sequence address_table_seq restart with " + (addresses + 51));
+        jdbcTemplate.execute("alter table person_table alter column id restart with " + (people + 1));
+    }
+
+    public void clear() {
+        jdbcTemplate.execute("delete from person_table");
+        jdbcTemplate.execute("delete from address_table");
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.childalert.repository;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// The same lookups against a database that was already there when Flyway came in, so baseline-on-migrate marked it as 1.1 and V1 never ran on it.
+// The index has to come from a later migration for these to use it
+@Import(BaselinedQueryPlanTest.BaselinedSchema.class)
+class BaselinedQueryPlanTest extends QueryPlanTest {
+
+    @TestConfiguration
+    static class BaselinedSchema {
+
+        // Stands in for a schema an older version made with ddl-auto: the tables as of 1.1, without idx_person_address_age and without Flyway's history table.
+        // Then the real migration runs and baselines it like it would in production
+        @Bean
+        FlywayMigrationStrategy migrateFromBaseline() {
+            return flyway -> {
+                Flyway.configure().configuration(flyway.getConfiguration()).target("1.1").load().migrate();
+                JdbcTemplate jdbcTemplate = new JdbcTemplate(flyway.getConfiguration().getDataSource());
+                jdbcTemplate.execute("drop index idx_person_address_age");
+                jdbcTemplate.execute("drop table \"" + flyway.getConfiguration().getTable() + "\"");
+                flyway.migrate();
+            };
+        }
+    }
+}
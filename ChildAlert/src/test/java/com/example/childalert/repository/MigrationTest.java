@@ -0,0 +1,57 @@
+package com.example.childalert.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the migrations on a database like one an older version made with ddl-auto, stopping at the baseline to put in the rows and indexes it could have
+class MigrationTest {
+
+    private static DataSource dataSource(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    private static Flyway flyway(DataSource dataSource, String target) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .target(target)
+                .load();
+    }
+
+    @Test
+    void duplicateAddressesAreMergedBeforeTheyAreMadeUnique() {
+        DataSource dataSource = dataSource("migration_duplicates");
+        flyway(dataSource, "1.1").migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.batchUpdate("insert into address_table (id, address) values (?, ?)", List.of(
+                new Object[]{1, "1 Main St"}, new Object[]{2, "1 Main St"}, new Object[]{3, "2 Elm St"}, new Object[]{4, "1 Main St"}));
+        jdbcTemplate.batchUpdate("insert into person_table (id, first_name, last_name, phone_number, age, address_id) values (?, ?, ?, ?, ?, ?)", List.of(
+                new Object[]{1, "Mario", "Bros", "555-5555", 30, 2}, new Object[]{2, "Luigi", "Bros", "555-5555", 8, 4},
+                new Object[]{3, "Peach", "Toadstool", "555-5555", 25, 3}, new Object[]{4, "Toad", "Toad", "555-5555", 10, null}));
+
+        flyway(dataSource, "latest").migrate();
+
+        assertEquals(List.of(1L, 3L), jdbcTemplate.queryForList("select id from address_table order by id", Long.class));
+        assertEquals(List.of(1L, 1L, 3L), jdbcTemplate.queryForList("select address_id from person_table where address_id is not null order by id", Long.class));
+        assertNull(jdbcTemplate.queryForObject("select address_id from person_table where id = 4", Long.class));
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update("insert into address_table (id, address) values (5, '1 Main St')"));
+    }
+
+    // Databases made before the plain address index was added don't have it to drop
+    @Test
+    void migratesWithoutThePlainAddressIndex() {
+        DataSource dataSource = dataSource("migration_no_index");
+        flyway(dataSource, "1.1").migrate();
+        new JdbcTemplate(dataSource).execute("drop index idx_address_address");
+
+        assertTrue(flyway(dataSource, "latest").migrate().success);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.childalert.service;
+
+import com.example.childalert.model.Address;
+import com.example.childalert.model.ExportFormat;
+import com.example.childalert.model.Person;
+import com.example.childalert.repository.PersonRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Exports people with their addresses from an in memory db. Change times are set by hand so the output is known exactly
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "childalert.export.fetch-size=1"})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(PersonExportService.class)
+class PersonExportServiceTest {
+
+    private static final Instant UNTIL = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PersonExportService personExportService;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    private long parent;
+    private long child;
+    private long addressId;
+
+    private long person(String firstName, int age, Address address, String updatedAt) {
+        Person person = new Person(firstName, "Doe", "555-5555", age, address);
+        entityManager.persist(person);
+        entityManager.flush();
+        jdbcTemplate.update("update person_table set updated_at = ? where id = ?", Timestamp.from(Instant.parse(updatedAt)), person.getId());
+        return person.getId();
+    }
+
+    @BeforeEach
+    void setUp() {
+        Address address = new Address("12 Main St, Apt 3", null);
+        entityManager.persist(address);
+        addressId = address.getId();
+        parent = person("Jane", 40, address, "2024-03-01T08:30:00Z");
+        child = person("Tim", 9, address, "2024-03-02T08:30:00.5Z");
+    }
+
+    private String export(ExportFormat format, Instant since) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        personExportService.export(format, since, UNTIL, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void exportsCsvWithTheAddressQuoted() throws Exception {
+        assertEquals("id,firstName,lastName,phoneNumber,age,addressId,address,updatedAt\n"
+                + parent + ",Jane,Doe,555-5555,40," + addressId + ",\"12 Main St, Apt 3\",2024-03-01T08:30:00.000000Z\n"
+                + child + ",Tim,Doe,555-5555,9," + addressId + ",\"12 Main St, Apt 3\",2024-03-02T08:30:00.500000Z\n", export(ExportFormat.CSV, null));
+    }
+
+    @Test
+    void exportsNdjsonChangedSince() throws Exception {
+        assertEquals("{\"id\":" + child + ",\"firstName\":\"Tim\",\"lastName\":\"Doe\",\"phoneNumber\":\"555-5555\",\"age\":9,\"addressId\":" + addressId
+                + ",\"address\":\"12 Main St, Apt 3\",\"updatedAt\":\"2024-03-02T08:30:00.500000Z\"}\n", export(ExportFormat.NDJSON, Instant.parse("2024-03-02T00:00:00Z")));
+        assertEquals(export(ExportFormat.NDJSON, null), export(ExportFormat.NDJSON, null));
+    }
+
+    // since is moved back by the overlap (a minute by default), so a change stamped just before it that committed late isn't missed
+    @Test
+    void changedBetween() {
+        assertTrue(personExportService.changedBetween(Instant.parse("2024-03-02T08:31:00Z"), UNTIL));
+        assertFalse(personExportService.changedBetween(Instant.parse("2024-03-02T08:31:01Z"), UNTIL));
+        // until isn't included
+        assertFalse(personExportService.changedBetween(Instant.parse("2024-01-01T00:00:00Z"), Instant.parse("2024-03-01T08:30:00Z")));
+    }
+
+    // Renaming an address marks everyone there as changed
+    @Test
+    void touchByAddressId() {
+        Instant now = Person.now();
+        assertEquals(2, personRepository.touchByAddressId(addressId, now));
+        assertTrue(personExportService.changedBetween(now, now.plusSeconds(1)));
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.childalert.service;
+
+import com.example.childalert.model.Address;
+import com.example.childalert.model.ChildView;
+import com.example.childalert.model.Person;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the child alert queries against an in memory db, only children should come back and the household is counted by the db
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(PersonService.class)
+class PersonServiceTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PersonService personService;
+
+    private void household(String street, int... ages) {
+        Address address = new Address(street, null);
+        entityManager.persist(address);
+        for (int age : ages) {
+            entityManager.persist(new Person("Person", "Doe", "555-" + age, age, address));
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    void getPeopleByAddress_onlyChildren() {
+        household("123 Main St", 40, 38, 12, 5);
+        household("456 Elm St", 10);
+
+        Map<String, Object> response = personService.getPeopleByAddress("123 Main St");
+
+        assertEquals(Set.of(new ChildView("Person", "Doe", "555-12", 12), new ChildView("Person", "Doe", "555-5", 5)),
+                Set.copyOf((List<?>) response.get("people")));
+        assertEquals(4L, response.get("householdMembers"));
+        assertEquals(2L, response.get("childCount"));
+    }
+
+    @Test
+    void getPeopleByAddress_onlyAdults() {
+        household("789 Oak St", 40, 38);
+
+        Map<String, Object> response = personService.getPeopleByAddress("789 Oak St");
+
+        assertEquals(List.of(), response.get("people"));
+        assertEquals(2L, response.get("householdMembers"));
+        assertEquals(0L, response.get("childCount"));
+    }
+
+    @Test
+    void getPeopleByAddress_nobodyThere() {
+        assertTrue(personService.getPeopleByAddress("1 Nowhere Rd").isEmpty());
+    }
+}
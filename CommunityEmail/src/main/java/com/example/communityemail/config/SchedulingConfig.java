@@ -0,0 +1,10 @@
+package com.example.communityemail.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Turns on @Scheduled jobs, like rebuilding the person snapshot in PersonSnapshotService and polling and purging change events in ChangeEventService
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,96 @@
+package com.example.communityemail.controller;
+
+import com.example.communityemail.model.ChangeEvent;
+import com.example.communityemail.service.ChangeEventService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Every write to the service's tables as server-sent events, so caches and other systems can keep their own copy up to date instead of polling
+@RestController
+public class ChangeEventController {
+    // Events sent per read while a subscriber is catching up
+    private static final int BATCH = 500;
+    // Sent as a comment when nothing has changed for this long, it keeps proxies from closing the connection and finds clients that have gone
+    private static final Duration HEARTBEAT = Duration.ofSeconds(15);
+
+    @Autowired
+    private ChangeEventService changeEventService;
+    @Value("${communityemail.events.timeout:PT30M}")
+    private Duration timeout;
+    // Every subscriber waits for events on its own virtual thread, so nothing that writes people ever waits on a slow subscriber
+    private final ExecutorService subscribers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Logger logger = LoggerFactory.getLogger(ChangeEventController.class);
+
+    /**
+     * Streams change events as they commit, each with its seq as the event id. A browser EventSource reconnects with Last-Event-ID by itself and carries on from the event after it. Without either only new events are sent.
+     * If some of the events after the seq have already been purged a reset event is sent first, the subscriber has to copy everything again from GET /export and then carries on from the reset event's id
+     *
+     * @param after send the events after this seq. Takes the place of Last-Event-ID
+     * @param lastEventId the seq of the last event the subscriber got before it was disconnected
+     *
+     * @return the event stream, closed after communityemail.events.timeout
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(@RequestParam(value = "after", required = false) Long after, @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        Long from = after != null ? after : lastEventId;
+        logger.info("Received request to stream change events after {}", from);
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        AtomicBoolean open = new AtomicBoolean(true);
+        emitter.onCompletion(() -> open.set(false));
+        emitter.onTimeout(() -> open.set(false));
+        emitter.onError(e -> open.set(false));
+        long seq = from != null ? from : changeEventService.lastSeq();
+        subscribers.execute(() -> stream(emitter, open, seq, from != null));
+        return emitter;
+    }
+
+    private void stream(SseEmitter emitter, AtomicBoolean open, long seq, boolean resuming) {
+        try {
+            long first = changeEventService.firstRetainedSeq();
+            if (resuming && seq < first - 1) {
+                seq = first - 1;
+                emitter.send(SseEmitter.event().id(Long.toString(seq)).name("reset").data(seq));
+            }
+            while (open.get()) {
+                List<ChangeEvent> events = changeEventService.awaitEventsAfter(seq, BATCH, HEARTBEAT);
+                if (events.isEmpty()) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+                for (ChangeEvent event : events) {
+                    emitter.send(SseEmitter.event().id(Long.toString(event.seq())).data(event, MediaType.APPLICATION_JSON));
+                    seq = event.seq();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the stream timed out, either way it's done
+            logger.debug("Change event stream ended after seq {}: {}", seq, e.getMessage());
+        } catch (RuntimeException e) {
+            logger.warn("Change event stream failed after seq {}", seq, e);
+            emitter.completeWithError(e);
+        }
+    }
+
+    @PreDestroy
+    public void closeSubscribers() {
+        subscribers.shutdownNow();
+    }
+}
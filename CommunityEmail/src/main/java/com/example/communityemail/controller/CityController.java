@@ -1,13 +1,20 @@
 package com.example.communityemail.controller;
 
 import com.example.communityemail.model.City;
+import com.example.communityemail.model.CityView;
+import com.example.communityemail.model.Person;
 import com.example.communityemail.repository.CityRepository;
+import com.example.communityemail.repository.PersonRepository;
+import com.example.communityemail.service.ChangeEventService;
+import com.example.communityemail.service.PersonSnapshotService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -18,6 +25,12 @@ import java.util.List;
 public class CityController {
     @Autowired
     private CityRepository cityRepository;
+    @Autowired
+    private PersonRepository personRepository;
+    @Autowired
+    private PersonSnapshotService personSnapshotService;
+    @Autowired
+    private ChangeEventService changeEventService;
 
     private final Logger logger = LoggerFactory.getLogger(CityController.class);
 
@@ -42,12 +55,15 @@ public class CityController {
      *
      * @param city the city to be saved
      *
-     * @return a response entity with the saved city and a created status
+     * @return a response entity with the saved city and a created status, or conflict if a city with that name is already there
      */
     @PostMapping
+    @Transactional
     public ResponseEntity<City> addCity(@Valid @RequestBody City city) {
         logger.info("Received request to add a new City: {}", city);
         City savedCity = cityRepository.save(city);
+        changeEventService.record("city", "create", city.getId(), CityView.of(city));
+        personSnapshotService.cityChanged(city.getId());
         return new ResponseEntity<>(savedCity, HttpStatus.CREATED);
     }
 
@@ -57,17 +73,25 @@ public class CityController {
      * @param id the id of the city to be updated
      * @param cityDetails the new details of the city
      *
-     * @return a response entity with okay or not found depending on the circumstances
+     * @return a response entity with okay, not found or conflict (another city already has the new name) depending on the circumstances
      */
     @PutMapping("/{id}")
+    @Transactional
     public ResponseEntity<City> updateCity(@PathVariable Long id, @Valid @RequestBody City cityDetails) {
         logger.info("Received request to update a City: {}", id);
         return cityRepository.findById(id)
                 .map(city -> {
+                    boolean renamed = !city.getName().equals(cityDetails.getName());
                     city.setPopulation(cityDetails.getPopulation());
                     city.setName(cityDetails.getName());
                     city.setAreaCode(cityDetails.getAreaCode());
                     City updatedCity = cityRepository.save(city);
+                    // The city's people are exported with its name, so they go out again. On /events the city update is enough, subscribers rename it for its people
+                    if (renamed) {
+                        personRepository.touchByCityId(id, Person.now());
+                        personSnapshotService.cityChanged(id);
+                    }
+                    changeEventService.record("city", "update", id, CityView.of(city));
                     return ResponseEntity.ok(updatedCity);
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -81,14 +105,33 @@ public class CityController {
      * @return a response entity with either no content or not found depending on the circumstances
      */
     @DeleteMapping("/{id}")
+    @Transactional
     public ResponseEntity<Object> deleteCity(@PathVariable Long id) {
         logger.info("Received request to delete a City: {}", id);
         return cityRepository.findById(id)
                 .map(city -> {
+                    // Its people are deleted with it (cascade), and subscribers hear about each of them before the city
+                    if (city.getPeople() != null) {
+                        city.getPeople().forEach(person -> changeEventService.record("person", "delete", person.getId(), null));
+                    }
                     cityRepository.delete(city);
+                    personSnapshotService.cityChanged(city.getId());
+                    changeEventService.record("city", "delete", id, null);
                     return ResponseEntity.noContent().build();
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
-}
 
+    /**
+     * City names are unique in the db, so a duplicate shows up as this. With the writes in a transaction it may not be thrown until the commit, after the method body, so it's turned into conflict here
+     *
+     * @param e the unique constraint violation
+     *
+     * @return a response entity with conflict status
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<City> cityConflict(DataIntegrityViolationException e) {
+        logger.info("City already exists: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+}
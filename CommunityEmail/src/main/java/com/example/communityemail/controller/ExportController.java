@@ -0,0 +1,99 @@
+package com.example.communityemail.controller;
+
+import com.example.communityemail.model.ExportFormat;
+import com.example.communityemail.service.PersonExportService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+// Full and incremental copies of the person table for the GIS and analytics jobs, so they don't have to page through the person endpoints
+@RestController
+public class ExportController {
+    private static final int BUFFER = 64 * 1024;
+
+    @Autowired
+    private PersonExportService personExportService;
+    private final Logger logger = LoggerFactory.getLogger(ExportController.class);
+
+    /**
+     * Streams every person in id order as newline delimited json or csv, gzipped if the client accepts gzip. With since or If-Modified-Since only the people changed from then on are sent.
+     * Last-Modified says what time the export goes up to, so sending it back as the next If-Modified-Since gets everything changed after this export. The next export also goes back communityemail.export.overlap before it
+     * so nothing still being committed is missed, which means people changed just before it can come again and should be matched up by id
+     *
+     * @param format ndjson (the default) or csv
+     * @param since only send people changed at or after this time, like 2024-05-01T00:00:00Z. Takes the place of If-Modified-Since
+     * @param request the request, for its If-Modified-Since and Accept-Encoding headers
+     * @param response the response the people are written to
+     *
+     * @throws IOException if the client goes away while streaming
+     */
+    @GetMapping("/export")
+    public void exportPeople(@RequestParam(value = "format", defaultValue = "ndjson") String format, @RequestParam(value = "since", required = false) Instant since,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        logger.info("Received request to export people as {} since {}", format, since);
+        Optional<ExportFormat> exportFormat = ExportFormat.of(format);
+        if (exportFormat.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        if (since == null) {
+            since = ifModifiedSince(request);
+        }
+        Instant until = personExportService.exportUntil();
+        response.setDateHeader("Last-Modified", until.toEpochMilli());
+        if (since != null && !personExportService.changedBetween(since, until)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = System.nanoTime();
+        response.setContentType(exportFormat.get().contentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Vary", "Accept-Encoding");
+        boolean gzip = acceptsGzip(request.getHeader("Accept-Encoding"));
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
+        long count;
+        try (OutputStream out = gzip ? new GZIPOutputStream(response.getOutputStream(), BUFFER) : new BufferedOutputStream(response.getOutputStream(), BUFFER)) {
+            count = personExportService.export(exportFormat.get(), since, until, out);
+        }
+        logger.info("Exported {} people{} in {} ms", count, gzip ? " gzipped" : "", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // A date that can't be read is ignored, like a cache would
+    private static Instant ifModifiedSince(HttpServletRequest request) {
+        try {
+            long millis = request.getDateHeader("If-Modified-Since");
+            return millis < 0 ? null : Instant.ofEpochMilli(millis);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // gzip listed in Accept-Encoding, and not turned off with q=0
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
@@ -1,17 +1,32 @@
 package com.example.communityemail.controller;
 
 import com.example.communityemail.model.City;
+import com.example.communityemail.model.ExportRow;
 import com.example.communityemail.model.Person;
+import com.example.communityemail.model.PersonPage;
 import com.example.communityemail.repository.CityRepository;
 import com.example.communityemail.repository.PersonRepository;
+import com.example.communityemail.service.ChangeEventService;
+import com.example.communityemail.service.PersonSnapshotService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 // This is the same as the fire station where this mapping is for all methods unless otherwise specified
 @RestController
@@ -22,8 +37,20 @@ public class PersonController {
 
     @Autowired
     private CityRepository cityRepository;
+
+    @Autowired
+    private PersonSnapshotService personSnapshotService;
+
+    @Autowired
+    private ChangeEventService changeEventService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
     private final Logger logger = LoggerFactory.getLogger(PersonController.class);
 
+    // Biggest page that can be asked for at once
+    private static final int MAX_PAGE_SIZE = 1000;
+
     /**
      * Get all people by the name of the city
      *
@@ -42,6 +69,84 @@ public class PersonController {
         }
     }
 
+    /**
+     * Get one page of people in a city, used instead of the method above when a limit is given. Pages are keyed on the person id, so the cost of a page stays the same no matter how far in it is
+     *
+     * @param city the name of the city within the city object
+     * @param limit how many people to return, between 1 and 1000
+     * @param after the nextCursor from the previous page, or nothing for the first page
+     *
+     * @return a response entity with the page and the cursor for the next one, not found if the city has nobody, or bad request if the limit or cursor isn't valid
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<PersonPage> getPeopleByCityPage(@RequestParam String city, @RequestParam int limit, @RequestParam(required = false) String after) {
+        logger.info("Received request to get a page of People: {} limit {} after {}", city, limit, after);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        Long afterId = after == null ? Long.valueOf(0L) : decodeCursor(after);
+        if (afterId == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Ask for one more than the limit, if it comes back there is another page after this one
+        List<Person> people = personRepository.findByCityNameAndIdGreaterThanOrderByIdAsc(city, afterId, Limit.of(limit + 1));
+        if (people.isEmpty() && after == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String nextCursor = null;
+        if (people.size() > limit) {
+            people = people.subList(0, limit);
+            nextCursor = encodeCursor(people.get(limit - 1).getId());
+        }
+        return ResponseEntity.ok(new PersonPage(people, nextCursor));
+    }
+
+    /**
+     * Gets just the emails of everyone in a city, each email once, as a json array of strings. The emails are written as they come off the database cursor instead of loading whole people first
+     *
+     * @param city the name of the city within the city object
+     * @param response the response the emails are written to
+     *
+     * @throws IOException if the client goes away while streaming
+     */
+    @GetMapping("/emails")
+    @Transactional(readOnly = true)
+    public void getEmailsByCity(@RequestParam String city, HttpServletResponse response) throws IOException {
+        logger.info("Received request to get emails by city: {}", city);
+        try (Stream<String> emails = personRepository.streamDistinctEmailsByCityName(city)) {
+            Iterator<String> iterator = emails.iterator();
+            // Same as getting people by city, nobody in the city is not found
+            if (!iterator.hasNext()) {
+                response.setStatus(HttpStatus.NOT_FOUND.value());
+                return;
+            }
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+                generator.writeStartArray();
+                while (iterator.hasNext()) {
+                    generator.writeString(iterator.next());
+                }
+                generator.writeEndArray();
+            }
+        }
+    }
+
+    // The cursor is just the last id, base64 encoded so clients treat it as opaque and don't build their own
+    private static String encodeCursor(long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Long.toString(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Returns null if the cursor wasn't made by encodeCursor
+    private static Long decodeCursor(String cursor) {
+        try {
+            long id = Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            return id < 0 ? null : id;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     /**
      * Posts a person, making sure to check if the specified city exists or not
      *
@@ -50,12 +155,15 @@ public class PersonController {
      * @return a response entity with the saved person and created status
      */
     @PostMapping
+    @Transactional
     public ResponseEntity<Person> addPerson(@RequestBody Person person) {
         logger.info("Received request to add a new Person: {}", person);
         City city = cityRepository.findById(person.getCityId()).orElseThrow(() -> new RuntimeException("City not found"));
         person.setCity(city);
         city.getPeople().add(person);
         Person savedPerson = personRepository.save(person);
+        personSnapshotService.peopleChanged(List.of(savedPerson.getId()));
+        changeEventService.record("person", "create", savedPerson.getId(), ExportRow.of(savedPerson, city));
         return new ResponseEntity<>(savedPerson, HttpStatus.CREATED);
     }
 
@@ -68,6 +176,7 @@ public class PersonController {
      * @return a response entity with either ok status or not found depending on circumstances
      */
     @PutMapping("/{id}")
+    @Transactional
     public ResponseEntity<Person> updatePerson(@PathVariable Long id, @RequestBody Person personDetails) {
         logger.info("Received request to update a Person: {}", id);
         return personRepository.findById(id)
@@ -86,7 +195,12 @@ public class PersonController {
                     // Remove from old city, add new
                     existingCity.getPeople().remove(person);
                     existingCity.getPeople().add(person);
+                    person.touch();
                     Person updatedPerson = personRepository.save(person);
+                    // Flushed so the updatedAt stamped on the update is the one in the event
+                    personRepository.flush();
+                    personSnapshotService.peopleChanged(List.of(id));
+                    changeEventService.record("person", "update", id, ExportRow.of(person, city));
                     return ResponseEntity.ok(updatedPerson);
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -100,6 +214,7 @@ public class PersonController {
      * @return a response entity with either no content or not found status depending on circumstances
      */
     @DeleteMapping("/{id}")
+    @Transactional
     public ResponseEntity<Object> deletePerson(@PathVariable Long id) {
         logger.info("Received request to delete a Person: {}", id);
         return personRepository.findById(id)
@@ -107,6 +222,8 @@ public class PersonController {
                     City city = person.getCity();
                     city.getPeople().remove(person);
                     personRepository.delete(person);
+                    personSnapshotService.peopleChanged(List.of(id));
+                    changeEventService.record("person", "delete", id, null);
                     return ResponseEntity.noContent().build();
                 })
                 .orElse(ResponseEntity.notFound().build());
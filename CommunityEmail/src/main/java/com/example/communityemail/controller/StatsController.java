@@ -0,0 +1,69 @@
+package com.example.communityemail.controller;
+
+import com.example.communityemail.model.AgeHistogram;
+import com.example.communityemail.model.CityCount;
+import com.example.communityemail.service.PersonSnapshotService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+// City stats for the dashboards, worked out from the in memory person snapshot. Needs communityemail.snapshot.enabled=true
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+    @Autowired
+    private PersonSnapshotService personSnapshotService;
+    private final Logger logger = LoggerFactory.getLogger(StatsController.class);
+
+    /**
+     * Gets whether the snapshot is on and ready, how many people it has and when it was last built
+     *
+     * @return an OK response entity with the snapshot stats
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getSnapshotStats() {
+        logger.info("Received a request to get the person snapshot stats");
+        return ResponseEntity.ok(personSnapshotService.getStats());
+    }
+
+    /**
+     * Gets how many people live in each city
+     *
+     * @return an OK response entity with every city and its number of people, most first, or service unavailable if the snapshot is off or hasn't been built yet
+     */
+    @GetMapping("/cities")
+    public ResponseEntity<List<CityCount>> getPeoplePerCity() {
+        logger.info("Received a request to get people per city");
+        return personSnapshotService.getPeoplePerCity()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
+    /**
+     * Gets the age histogram of a city
+     *
+     * @param city the name of the city
+     * @param bucketWidth how many years each bucket covers
+     *
+     * @return an OK response entity with the histogram, bad request if the bucket width isn't between 1 and 120, or not found if there's no such city or the snapshot isn't ready
+     */
+    @GetMapping("/ages")
+    public ResponseEntity<AgeHistogram> getAgeHistogram(@RequestParam String city, @RequestParam(value = "bucketWidth", defaultValue = "10") int bucketWidth) {
+        logger.info("Received a request to get the age histogram of {}", city);
+        if (bucketWidth < 1 || bucketWidth > 120) {
+            return ResponseEntity.badRequest().build();
+        }
+        return personSnapshotService.getAgeHistogram(city, bucketWidth)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
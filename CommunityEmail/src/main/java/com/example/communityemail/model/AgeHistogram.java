@@ -0,0 +1,5 @@
+package com.example.communityemail.model;
+
+// Ages of everyone in a city. counts[i] is how many people are between i * bucketWidth and (i + 1) * bucketWidth - 1, the last bucket also has everyone older.
+public record AgeHistogram(String city, int bucketWidth, long[] counts) {
+}
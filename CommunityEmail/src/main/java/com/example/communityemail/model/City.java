@@ -6,6 +6,8 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
@@ -13,6 +15,9 @@ import java.util.List;
 @Getter
 @Entity
 @Table(name="CityTable")
+// Cached in Hibernate's second level cache, every person write looks its city up and the list of cities barely changes. Region size is set in hibernate-cache.conf
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "cities")
 public class City {
 
     // Setters and getters
@@ -0,0 +1,5 @@
+package com.example.communityemail.model;
+
+// How many people live in a city
+public record CityCount(String city, long people) {
+}
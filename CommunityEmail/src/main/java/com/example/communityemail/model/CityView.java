@@ -0,0 +1,9 @@
+package com.example.communityemail.model;
+
+// The city columns without its people, used as the payload of city change events
+public record CityView(long id, String name, int population, String areaCode) {
+
+    public static CityView of(City city) {
+        return new CityView(city.getId(), city.getName(), city.getPopulation(), city.getAreaCode());
+    }
+}
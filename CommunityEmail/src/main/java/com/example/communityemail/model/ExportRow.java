@@ -0,0 +1,17 @@
+package com.example.communityemail.model;
+
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+// What GET /export writes for each person, fields in this order. The city is there by id and by name, and updatedAt is formatted up front so every row has the same number of digits.
+// Person change events carry it too, so events can be applied straight on top of an export
+public record ExportRow(long id, String firstName, String lastName, String address, String phoneNumber, String email, int age, Long cityId, String city, String updatedAt) {
+
+    public static final DateTimeFormatter UPDATED_AT = DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss.SSSSSS'Z'").withZone(ZoneOffset.UTC);
+
+    // The city comes from the controller, which had to look it up anyway
+    public static ExportRow of(Person person, City city) {
+        return new ExportRow(person.getId(), person.getFirstName(), person.getLastName(), person.getAddress(), person.getPhoneNumber(), person.getEmail(), person.getAge(),
+                city.getId(), city.getName(), UPDATED_AT.format(person.getUpdatedAt()));
+    }
+}
@@ -1,15 +1,22 @@
 package com.example.communityemail.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 @Setter
 @Getter
 @Entity
+// There's an index on (city_id, id) so looking people up by city and paging through them by id doesn't need a sort or a full scan, see the migrations in resources/db/migration
 @Table(name="PersonTable")
 public class Person {
 
@@ -42,6 +49,13 @@ public class Person {
     @Transient
     private long cityId;
 
+    // When the row last changed, GET /export?since= goes by it. Stamped right before the insert or update instead of when the object is made, so a person read from a request a while before it's saved isn't written out already in the past.
+    // Changing only a list doesn't update the row by itself, touch() makes the person count as changed for that. The bulk updates and imports that skip the entity set it themselves.
+    // Kept to microseconds since that's all the column holds, and never part of the json
+    @JsonIgnore
+    @JdbcTypeCode(SqlTypes.TIMESTAMP)
+    private Instant updatedAt;
+
     // Constructors
     public Person(long id, String firstName, String lastName, String address, String phoneNumber, String email, int age, City city) {
         this.id = id;
@@ -78,5 +92,20 @@ public class Person {
 
     }
 
+    // The column only keeps microseconds
+    public static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void stampUpdatedAt() {
+        updatedAt = now();
+    }
+
+    public void touch() {
+        updatedAt = now();
+    }
+
 }
 
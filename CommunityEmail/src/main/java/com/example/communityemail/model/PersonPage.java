@@ -0,0 +1,7 @@
+package com.example.communityemail.model;
+
+import java.util.List;
+
+// One page of people in a city. nextCursor is passed back as "after" to get the next page, and is null on the last page.
+public record PersonPage(List<Person> people, String nextCursor) {
+}
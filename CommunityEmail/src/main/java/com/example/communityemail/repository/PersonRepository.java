@@ -1,10 +1,50 @@
 package com.example.communityemail.repository;
 
 import com.example.communityemail.model.Person;
+import com.example.communityemail.model.SnapshotRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface PersonRepository extends JpaRepository<Person, Long> {
-    List<Person> findByCityName(String name);
+    // Written out as an inner join, the derived version left joins the city so the database has to start from every person instead of from the city name index.
+    // Cached in the query cache, any change to a person or city throws the cached lists away
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("select p from Person p join p.city c where c.name = :name")
+    List<Person> findByCityName(@Param("name") String name);
+
+    // Keyset paging, gets the next people in a city after the last id seen. This walks the (city_id, id) index, so a deep page costs the same as the first one unlike OFFSET.
+    // It's an inner join for the same reason as findByCityName, with the derived left join the database walks every id after the cursor instead
+    @Query("select p from Person p join p.city c where c.name = :name and p.id > :id order by p.id asc")
+    List<Person> findByCityNameAndIdGreaterThanOrderByIdAsc(@Param("name") String name, @Param("id") long id, Limit limit);
+
+    // Only the emails of a city, each one once. Streamed off a cursor so a big city doesn't have to fit in memory, has to be used inside a transaction and closed after
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select distinct p.email from Person p join p.city c where c.name = :name")
+    Stream<String> streamDistinctEmailsByCityName(@Param("name") String name);
+
+    // For the stats snapshot, the columns it needs in primary key order so it's built already sorted
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.example.communityemail.model.SnapshotRow(p.id, p.age, p.city.id) from Person p order by p.id")
+    Stream<SnapshotRow> streamSnapshotRows();
+
+    @Query("select new com.example.communityemail.model.SnapshotRow(p.id, p.age, p.city.id) from Person p where p.id in :ids")
+    List<SnapshotRow> findSnapshotRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Exported people have their city's name in them, so a renamed city means all its people changed. CityController has no transaction, so this brings one
+    @Transactional
+    @Modifying
+    @Query("update Person p set p.updatedAt = :now where p.city.id = :cityId")
+    int touchByCityId(@Param("cityId") long cityId, @Param("now") Instant now);
 }
@@ -0,0 +1,16 @@
+package com.example.communityemail.service;
+
+import com.example.communityemail.model.ChangeEvent;
+
+import java.time.Duration;
+import java.util.List;
+
+public interface ChangeEventServiceInterface {
+    void record(String entity, String operation, long entityId, Object payload);
+    List<ChangeEvent> eventsAfter(long seq, int limit);
+    List<ChangeEvent> awaitEventsAfter(long seq, int limit, Duration timeout) throws InterruptedException;
+    long lastSeq();
+    long firstRetainedSeq();
+    void refresh();
+    int purge();
+}
@@ -0,0 +1,124 @@
+package com.example.communityemail.service;
+
+import java.util.*;
+
+// Column store of the people table for the stats endpoints: a person is a row number into parallel primitive arrays of id, age and city, about 14 bytes a person. Cities are dictionary encoded, each city id is stored once and the rows hold its code.
+// Rows are kept sorted by id so a changed person is found with a binary search, deleted rows are only marked until the next rebuild. Not thread safe, PersonSnapshotService locks around it
+public final class PersonColumns {
+
+    // Ages are stored as shorts, a deleted row gets this age
+    private static final short DELETED = -1;
+    // City code for someone without a city
+    private static final int NO_CITY = -1;
+    // Oldest age that gets its own bucket, everyone older goes in the last one
+    static final int MAX_AGE = 120;
+
+    private long[] ids;
+    private short[] ages;
+    private int[] cities;
+    private int size;
+    private int deleted;
+
+    private final Map<Long, Integer> cityCodes = new HashMap<>();
+    private final List<Long> cityIds = new ArrayList<>();
+
+    public PersonColumns(int capacity) {
+        int initial = Math.max(capacity, 16);
+        ids = new long[initial];
+        ages = new short[initial];
+        cities = new int[initial];
+    }
+
+    // Number of people in the snapshot, not counting deleted rows
+    public int size() {
+        return size - deleted;
+    }
+
+    // Adds the person or replaces what's stored for them. Ids come from an auto increment column and the snapshot is built in id order, so this is nearly always an append
+    public void upsert(long id, int age, Long cityId) {
+        int row = size > 0 && ids[size - 1] < id ? -(size + 1) : Arrays.binarySearch(ids, 0, size, id);
+        if (row < 0) {
+            row = -(row + 1);
+            if (size == ids.length) {
+                grow();
+            }
+            if (row < size) {
+                System.arraycopy(ids, row, ids, row + 1, size - row);
+                System.arraycopy(ages, row, ages, row + 1, size - row);
+                System.arraycopy(cities, row, cities, row + 1, size - row);
+            }
+            size++;
+            ids[row] = id;
+        } else if (ages[row] == DELETED) {
+            deleted--;
+        }
+        ages[row] = (short) Math.min(Math.max(age, 0), Short.MAX_VALUE);
+        cities[row] = cityId == null ? NO_CITY : cityCodes.computeIfAbsent(cityId, key -> {
+            cityIds.add(key);
+            return cityIds.size() - 1;
+        });
+    }
+
+    public void remove(long id) {
+        int row = Arrays.binarySearch(ids, 0, size, id);
+        if (row >= 0 && ages[row] != DELETED) {
+            ages[row] = DELETED;
+            deleted++;
+        }
+    }
+
+    // Ids of everyone the snapshot has in this city
+    public List<Long> idsInCity(long cityId) {
+        Integer code = cityCodes.get(cityId);
+        List<Long> result = new ArrayList<>();
+        if (code == null) {
+            return result;
+        }
+        for (int row = 0; row < size; row++) {
+            if (cities[row] == code && ages[row] != DELETED) {
+                result.add(ids[row]);
+            }
+        }
+        return result;
+    }
+
+    // Number of people for each city id
+    public Map<Long, Long> peoplePerCity() {
+        long[] counts = new long[cityIds.size()];
+        for (int row = 0; row < size; row++) {
+            if (ages[row] != DELETED && cities[row] != NO_CITY) {
+                counts[cities[row]]++;
+            }
+        }
+        Map<Long, Long> result = new HashMap<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                result.put(cityIds.get(code), counts[code]);
+            }
+        }
+        return result;
+    }
+
+    // Age histogram of one city, all zeros if nobody lives there
+    public long[] ageHistogram(long cityId, int bucketWidth) {
+        int buckets = MAX_AGE / bucketWidth + 1;
+        long[] counts = new long[buckets];
+        Integer code = cityCodes.get(cityId);
+        if (code == null) {
+            return counts;
+        }
+        for (int row = 0; row < size; row++) {
+            if (cities[row] == code && ages[row] != DELETED) {
+                counts[Math.min(ages[row] / bucketWidth, buckets - 1)]++;
+            }
+        }
+        return counts;
+    }
+
+    private void grow() {
+        int capacity = ids.length + (ids.length >> 1);
+        ids = Arrays.copyOf(ids, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        cities = Arrays.copyOf(cities, capacity);
+    }
+}
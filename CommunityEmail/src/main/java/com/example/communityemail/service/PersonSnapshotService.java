@@ -0,0 +1,267 @@
+package com.example.communityemail.service;
+
+import com.example.communityemail.model.AgeHistogram;
+import com.example.communityemail.model.City;
+import com.example.communityemail.model.CityCount;
+import com.example.communityemail.model.SnapshotRow;
+import com.example.communityemail.repository.CityRepository;
+import com.example.communityemail.repository.PersonRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Keeps the id, age and city of every person in memory (see PersonColumns) so people per city and the age histograms are worked out without going to the db.
+// Off unless communityemail.snapshot.enabled is true. It's rebuilt every communityemail.snapshot.rebuild-interval, person and city writes tell it what changed in between
+@Service
+public class PersonSnapshotService implements PersonSnapshotServiceInterface {
+
+    private static final int ID_CHUNK = 1000;
+
+    private PersonRepository personRepository;
+    private CityRepository cityRepository;
+    private TransactionTemplate readOnlyTransaction;
+    private boolean enabled;
+    private final Logger logger = LoggerFactory.getLogger(PersonSnapshotService.class);
+
+    // Reads share the lock, changes and swapping in a rebuilt copy don't
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private PersonColumns columns;
+    // City names both ways, read with the people and kept up to date by cityChanged, so the stats never have to ask the db for the cities
+    private Map<Long, String> cityNames;
+    private Map<String, Long> cityIds;
+    private Instant builtAt;
+    private long buildMillis;
+
+    // Changed people are read again on this thread once their transaction has committed
+    private ExecutorService refresher;
+    // Anyone changed while a rebuild is reading the table, read again after the rebuilt copy is swapped in in case the rebuild saw them before the change
+    private Set<Long> changedDuringRebuild;
+    private Set<Long> citiesChangedDuringRebuild;
+
+    // Can have the constructor be autowired so it autowires everything in the constructor
+    @Autowired
+    public PersonSnapshotService(PersonRepository personRepository, CityRepository cityRepository, PlatformTransactionManager transactionManager, @Value("${communityemail.snapshot.enabled:false}") boolean enabled) {
+        this.personRepository = personRepository;
+        this.cityRepository = cityRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        if (enabled) {
+            refresher = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("person-snapshot").daemon().factory());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    // Most people first, empty until the snapshot has been built
+    @Override
+    public Optional<List<CityCount>> getPeoplePerCity() {
+        List<CityCount> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (columns == null) {
+                return Optional.empty();
+            }
+            Map<Long, Long> counts = columns.peoplePerCity();
+            cityNames.forEach((cityId, name) -> result.add(new CityCount(name, counts.getOrDefault(cityId, 0L))));
+        } finally {
+            lock.readLock().unlock();
+        }
+        result.sort(Comparator.comparingLong(CityCount::people).reversed().thenComparing(CityCount::city));
+        return Optional.of(result);
+    }
+
+    // Empty if the snapshot isn't built, or if there's no city with that name
+    @Override
+    public Optional<AgeHistogram> getAgeHistogram(String city, int bucketWidth) {
+        lock.readLock().lock();
+        try {
+            if (columns == null || !cityIds.containsKey(city)) {
+                return Optional.empty();
+            }
+            return Optional.of(new AgeHistogram(city, bucketWidth, columns.ageHistogram(cityIds.get(city), bucketWidth)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("enabled", enabled);
+        lock.readLock().lock();
+        try {
+            response.put("ready", columns != null);
+            if (columns != null) {
+                response.put("people", columns.size());
+                response.put("builtAt", builtAt.toString());
+                response.put("buildMillis", buildMillis);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return response;
+    }
+
+    // People that were added, changed or deleted. They're read again after the commit, anyone not found is taken out
+    @Override
+    public void peopleChanged(Collection<Long> personIds) {
+        if (enabled && !personIds.isEmpty()) {
+            List<Long> ids = List.copyOf(personIds);
+            afterCommit(() -> refreshPeople(ids));
+        }
+    }
+
+    // A city that was added, renamed or deleted. Its name is read again after the commit, and since deleting a city deletes its people with it, everyone the snapshot has in a deleted city is read again too
+    @Override
+    public void cityChanged(long cityId) {
+        if (enabled) {
+            afterCommit(() -> refreshCity(cityId));
+        }
+    }
+
+    // Reads the whole person table into a new copy and swaps it in, at startup and then on every rebuild interval. This is also what drops deleted rows for good
+    @Override
+    @Scheduled(fixedDelayString = "${communityemail.snapshot.rebuild-interval:PT1H}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        int capacity;
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashSet<>();
+            citiesChangedDuringRebuild = new HashSet<>();
+            capacity = columns == null ? 1024 : columns.size() + 1024;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<Long, String> rebuiltCityNames = new HashMap<>();
+        PersonColumns rebuilt = readOnlyTransaction.execute(status -> {
+            for (City city : cityRepository.findAll()) {
+                rebuiltCityNames.put(city.getId(), city.getName());
+            }
+            PersonColumns fresh = new PersonColumns(capacity);
+            try (Stream<SnapshotRow> rows = personRepository.streamSnapshotRows()) {
+                rows.forEach(row -> fresh.upsert(row.id(), row.age(), row.cityId()));
+            }
+            return fresh;
+        });
+
+        Set<Long> changed;
+        Set<Long> citiesChanged;
+        lock.writeLock().lock();
+        try {
+            columns = rebuilt;
+            cityNames = rebuiltCityNames;
+            cityIds = new HashMap<>();
+            rebuiltCityNames.forEach((cityId, name) -> cityIds.put(name, cityId));
+            builtAt = Instant.now();
+            buildMillis = (System.nanoTime() - start) / 1_000_000;
+            changed = changedDuringRebuild;
+            citiesChanged = citiesChangedDuringRebuild;
+            changedDuringRebuild = null;
+            citiesChangedDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!changed.isEmpty()) {
+            refresher.submit(() -> refreshPeople(changed));
+        }
+        citiesChanged.forEach(cityId -> refresher.submit(() -> refreshCity(cityId)));
+        logger.info("Built the person snapshot with {} people in {} ms", rebuilt.size(), buildMillis);
+    }
+
+    // Waits for every change queued so far to be applied, for tests
+    void awaitRefreshes() throws Exception {
+        Future<?> done = refresher.submit(() -> { });
+        done.get();
+    }
+
+    private void afterCommit(Runnable refresh) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresher.submit(refresh);
+                }
+            });
+        } else {
+            refresher.submit(refresh);
+        }
+    }
+
+    private void refreshPeople(Collection<Long> personIds) {
+        List<Long> ids = new ArrayList<>(personIds);
+        for (int start = 0; start < ids.size(); start += ID_CHUNK) {
+            List<Long> chunk = ids.subList(start, Math.min(start + ID_CHUNK, ids.size()));
+            List<SnapshotRow> rows = readOnlyTransaction.execute(status -> personRepository.findSnapshotRowsByIdIn(chunk));
+            lock.writeLock().lock();
+            try {
+                // Recorded even before the first build is in, so the build that's running reads these people again once it's done
+                if (changedDuringRebuild != null) {
+                    changedDuringRebuild.addAll(chunk);
+                }
+                if (columns == null) {
+                    continue;
+                }
+                Set<Long> missing = new HashSet<>(chunk);
+                for (SnapshotRow row : rows) {
+                    columns.upsert(row.id(), row.age(), row.cityId());
+                    missing.remove(row.id());
+                }
+                missing.forEach(columns::remove);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void refreshCity(long cityId) {
+        Optional<String> name = readOnlyTransaction.execute(status -> cityRepository.findById(cityId).map(City::getName));
+        List<Long> gone;
+        lock.writeLock().lock();
+        try {
+            if (citiesChangedDuringRebuild != null) {
+                citiesChangedDuringRebuild.add(cityId);
+            }
+            if (columns == null) {
+                return;
+            }
+            String oldName = name.isPresent() ? cityNames.put(cityId, name.get()) : cityNames.remove(cityId);
+            if (oldName != null) {
+                cityIds.remove(oldName, cityId);
+            }
+            name.ifPresent(newName -> cityIds.put(newName, cityId));
+            gone = name.isPresent() ? List.of() : columns.idsInCity(cityId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!gone.isEmpty()) {
+            refreshPeople(gone);
+        }
+    }
+}
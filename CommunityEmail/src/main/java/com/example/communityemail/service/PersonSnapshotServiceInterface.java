@@ -0,0 +1,18 @@
+package com.example.communityemail.service;
+
+import com.example.communityemail.model.AgeHistogram;
+import com.example.communityemail.model.CityCount;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface PersonSnapshotServiceInterface {
+    Optional<List<CityCount>> getPeoplePerCity();
+    Optional<AgeHistogram> getAgeHistogram(String city, int bucketWidth);
+    Map<String, Object> getStats();
+    void peopleChanged(Collection<Long> personIds);
+    void cityChanged(long cityId);
+    void rebuild();
+}
@@ -0,0 +1,5 @@
+-- The schema as Hibernate made it with ddl-auto=update. Databases that already have these tables are baselined at 1.1 and skip straight to V2
+create table city_table (population integer not null, id bigint not null, area_code varchar(255) not null, name varchar(255) not null, primary key (id));
+create table person_table (age integer not null, city_id bigint, id bigint not null auto_increment, address varchar(255) not null, email varchar(255) not null, first_name varchar(255) not null, last_name varchar(255) not null, phone_number varchar(255) not null, primary key (id));
+create index idx_person_city_id on person_table (city_id, id);
+alter table person_table add constraint FKgwx6m62k35ssfpsva88k7hss7 foreign key (city_id) references city_table (id);
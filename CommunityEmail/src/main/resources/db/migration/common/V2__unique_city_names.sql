@@ -0,0 +1,7 @@
+-- Every lookup here is by city name and expects one city, the unique constraint also gives those lookups their index.
+-- An older database can already have the same name more than once, so everyone is moved to the lowest id of their city and the other copies are removed first
+update person_table set city_id = (select min(same.id) from city_table c join city_table same on same.name = c.name where c.id = person_table.city_id)
+where city_id in (select c.id from city_table c join city_table same on same.name = c.name and same.id < c.id);
+-- MySQL can't delete from a table it reads in the subquery, the derived table gets around that
+delete from city_table where id not in (select id from (select min(id) id from city_table group by name) kept);
+alter table city_table add constraint uk_city_name unique (name);
@@ -0,0 +1,3 @@
+-- updated_at is when a person row last changed, GET /export?since= only sends the rows changed after a time. Existing rows get the time the migration ran
+alter table person_table add column updated_at datetime(6) not null default current_timestamp(6);
+create index idx_person_updated_at on person_table (updated_at);
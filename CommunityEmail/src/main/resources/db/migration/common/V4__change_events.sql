@@ -0,0 +1,6 @@
+-- Outbox behind GET /events. Every person and city write inserts its events here in its own transaction, so an event exists exactly when the write it describes committed.
+-- change_sequence_table holds the last seq given out. Bumping it locks the row until the writer commits, which is what keeps seqs committing in order without holes
+create table change_event_table (seq bigint not null, entity varchar(32) not null, operation varchar(16) not null, entity_id bigint not null, payload text, created_at datetime(6) not null, primary key (seq));
+create index idx_change_event_created_at on change_event_table (created_at);
+create table change_sequence_table (id integer not null, last_seq bigint not null, primary key (id));
+insert into change_sequence_table (id, last_seq) values (1, 0);
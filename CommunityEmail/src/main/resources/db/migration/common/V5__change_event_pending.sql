@@ -0,0 +1,4 @@
+-- Where a transaction's change events wait once it has recorded more than it keeps in memory. Right before it commits they're numbered into change_event_table and deleted from here, in the same transaction, so no row here outlives the transaction that wrote it.
+-- batch_id keeps each transaction to its own rows, and id is the order they were recorded in
+create table change_event_pending_table (id bigint not null auto_increment, batch_id varchar(36) not null, entity varchar(32) not null, operation varchar(16) not null, entity_id bigint not null, payload text, created_at datetime(6) not null, primary key (id));
+create index idx_change_event_pending_batch on change_event_pending_table (batch_id, id);
@@ -0,0 +1,3 @@
+-- MySQL has no sequences, so Hibernate keeps the next city id in a one row table instead
+create table city_table_seq (next_val bigint) engine=InnoDB;
+insert into city_table_seq values (1);
@@ -2,13 +2,19 @@ package com.example.communityemail;
 
 import com.example.communityemail.controller.PersonController;
 import com.example.communityemail.model.City;
+import com.example.communityemail.model.CityCount;
 import com.example.communityemail.repository.CityRepository;
+import com.example.communityemail.repository.PersonRepository;
+import com.example.communityemail.service.ChangeEventService;
+import com.example.communityemail.service.PersonExportService;
+import com.example.communityemail.service.PersonSnapshotService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -30,9 +36,21 @@ public class CityControllerTest {
     @MockBean
     private CityRepository cityRepository;
 
+    @MockBean
+    private PersonSnapshotService personSnapshotService;
+
+    @MockBean
+    private ChangeEventService changeEventService;
+
     @MockBean
     private PersonController personController;
 
+    @MockBean
+    private PersonRepository personRepository;
+
+    @MockBean
+    private PersonExportService personExportService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -47,6 +65,17 @@ public class CityControllerTest {
                 .andExpect(status().is2xxSuccessful());
     }
 
+    @Test
+    void addCity_AlreadyExists() throws Exception {
+        City city = new City(1, 4, "City", "B#A-123");
+        Mockito.when(cityRepository.save(any(City.class))).thenThrow(new DataIntegrityViolationException("uk_city_name"));
+
+        mockMvc.perform(post("/city")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(city)))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     void getAllCities() throws Exception {
         List<City> cities = List.of(
@@ -89,4 +118,38 @@ public class CityControllerTest {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNoContent());
     }
+
+    @Test
+    void deleteCity_refreshesSnapshot() throws Exception {
+        Mockito.when(cityRepository.findById(1L)).thenReturn(Optional.of(new City(1L, 1000, "New York", "333-3333")));
+
+        mockMvc.perform(delete("/city/1"))
+                .andExpect(status().isNoContent());
+        verify(personSnapshotService).cityChanged(1L);
+    }
+
+    @Test
+    void getPeoplePerCity() throws Exception {
+        Mockito.when(personSnapshotService.getPeoplePerCity()).thenReturn(Optional.of(List.of(new CityCount("New York", 2), new CityCount("Boston", 0))));
+
+        mockMvc.perform(get("/stats/cities"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].city").value("New York"))
+                .andExpect(jsonPath("$[0].people").value(2))
+                .andExpect(jsonPath("$[1].people").value(0));
+    }
+
+    @Test
+    void getPeoplePerCity_snapshotNotReady() throws Exception {
+        Mockito.when(personSnapshotService.getPeoplePerCity()).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/stats/cities"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void getAgeHistogram_badBucketWidth() throws Exception {
+        mockMvc.perform(get("/stats/ages").param("city", "New York").param("bucketWidth", "0"))
+                .andExpect(status().isBadRequest());
+    }
 }
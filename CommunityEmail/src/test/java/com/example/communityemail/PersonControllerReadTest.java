@@ -0,0 +1,126 @@
+package com.example.communityemail;
+
+import com.example.communityemail.controller.PersonController;
+import com.example.communityemail.model.Person;
+import com.example.communityemail.repository.CityRepository;
+import com.example.communityemail.service.ChangeEventService;
+import com.example.communityemail.service.PersonSnapshotService;
+import com.example.communityemail.repository.PersonRepository;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+// Uses the real controller (not a mock) so the paging, cursor and email handling actually run
+@WebMvcTest(PersonController.class)
+public class PersonControllerReadTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CityRepository cityRepository;
+
+    @MockBean
+    private PersonSnapshotService personSnapshotService;
+
+    @MockBean
+    private ChangeEventService changeEventService;
+
+    @MockBean
+    private PersonRepository personRepository;
+
+    private static Person person(long id) {
+        Person person = new Person("John", "Doe", "1234 Main St", "123-456-7890", "john" + id + "@test.com", 30, 1);
+        person.setId(id);
+        return person;
+    }
+
+    @Test
+    void firstPageHasNextCursor() throws Exception {
+        when(personRepository.findByCityNameAndIdGreaterThanOrderByIdAsc("Springfield", 0L, Limit.of(3)))
+                .thenReturn(List.of(person(1), person(2), person(3)));
+
+        mockMvc.perform(get("/communityEmail")
+                        .param("city", "Springfield")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.people.length()").value(2))
+                .andExpect(jsonPath("$.people[1].id").value(2))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty());
+    }
+
+    @Test
+    void cursorContinuesAfterLastId() throws Exception {
+        when(personRepository.findByCityNameAndIdGreaterThanOrderByIdAsc("Springfield", 0L, Limit.of(3)))
+                .thenReturn(List.of(person(1), person(2), person(3)));
+        when(personRepository.findByCityNameAndIdGreaterThanOrderByIdAsc("Springfield", 2L, Limit.of(3)))
+                .thenReturn(List.of(person(3)));
+
+        String body = mockMvc.perform(get("/communityEmail")
+                        .param("city", "Springfield")
+                        .param("limit", "2"))
+                .andReturn().getResponse().getContentAsString();
+        String cursor = JsonPath.read(body, "$.nextCursor");
+
+        mockMvc.perform(get("/communityEmail")
+                        .param("city", "Springfield")
+                        .param("limit", "2")
+                        .param("after", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.people.length()").value(1))
+                .andExpect(jsonPath("$.people[0].id").value(3))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void badCursorOrLimit() throws Exception {
+        mockMvc.perform(get("/communityEmail")
+                        .param("city", "Springfield")
+                        .param("limit", "2")
+                        .param("after", "not a cursor"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/communityEmail")
+                        .param("city", "Springfield")
+                        .param("limit", "0"))
+                .andExpect(status().isBadRequest());
+
+        verify(personRepository, never()).findByCityNameAndIdGreaterThanOrderByIdAsc(anyString(), anyLong(), any());
+    }
+
+    @Test
+    void emailsByCity() throws Exception {
+        when(personRepository.streamDistinctEmailsByCityName("Springfield"))
+                .thenReturn(Stream.of("john@test.com", "jane@test.com"));
+
+        mockMvc.perform(get("/communityEmail/emails")
+                        .param("city", "Springfield"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[\"john@test.com\",\"jane@test.com\"]"));
+
+        verify(personRepository, never()).findByCityName(anyString());
+    }
+
+    @Test
+    void emailsByCityNotFound() throws Exception {
+        when(personRepository.streamDistinctEmailsByCityName("Nowhere")).thenReturn(Stream.empty());
+
+        mockMvc.perform(get("/communityEmail/emails")
+                        .param("city", "Nowhere"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -4,6 +4,9 @@ import com.example.communityemail.controller.PersonController;
 import com.example.communityemail.model.City;
 import com.example.communityemail.model.Person;
 import com.example.communityemail.repository.CityRepository;
+import com.example.communityemail.service.ChangeEventService;
+import com.example.communityemail.service.PersonExportService;
+import com.example.communityemail.service.PersonSnapshotService;
 import com.example.communityemail.repository.PersonRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -33,9 +36,18 @@ public class PersonControllerTest {
     @MockBean
     private CityRepository cityRepository;
 
+    @MockBean
+    private PersonSnapshotService personSnapshotService;
+
+    @MockBean
+    private ChangeEventService changeEventService;
+
     @MockBean
     private PersonController personController;
 
+    @MockBean
+    private PersonExportService personExportService;
+
     @MockBean
     private PersonRepository personRepository;
 
@@ -0,0 +1,87 @@
+package com.example.communityemail.config;
+
+import com.example.communityemail.model.City;
+import com.example.communityemail.model.Person;
+import com.example.communityemail.repository.CityRepository;
+import com.example.communityemail.repository.PersonRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Counts statements to check warm city lookups and people by city come from the second level and query caches, and that a person write sends the query back to the db.
+// Each repository call runs in its own session and transaction like a request would, a session can't read back what it put in the cache itself
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@Import(SecondLevelCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        SessionFactory sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        jdbcTemplate.update("insert into city_table (id, name, population, area_code) values (1, 'Springfield', 2, '555')");
+        jdbcTemplate.update("insert into person_table (first_name, last_name, address, phone_number, email, age, city_id) values ('John', 'Doe', '1 Main St', '555-0000', 'john@email.com', 30, 1)");
+        jdbcTemplate.update("insert into person_table (first_name, last_name, address, phone_number, email, age, city_id) values ('Jane', 'Doe', '1 Main St', '555-0001', 'jane@email.com', 8, 1)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from person_table");
+        jdbcTemplate.update("delete from city_table");
+    }
+
+    private long statementsFor(Runnable lookup) {
+        statistics.clear();
+        lookup.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void warmCityLookupsDontHitTheDb() {
+        assertEquals(1, statementsFor(() -> cityRepository.findById(1L)));
+        assertEquals(0, statementsFor(() -> assertEquals("Springfield", cityRepository.findById(1L).orElseThrow().getName())));
+    }
+
+    @Test
+    void warmPeopleByCityComeFromTheQueryCache() {
+        assertTrue(statementsFor(() -> personRepository.findByCityName("Springfield")) > 0);
+        assertEquals(0, statementsFor(() -> assertEquals(2, personRepository.findByCityName("Springfield").size())));
+    }
+
+    @Test
+    void addingAPersonSendsTheCachedQueryBackToTheDb() {
+        personRepository.findByCityName("Springfield");
+        City city = cityRepository.findById(1L).orElseThrow();
+        personRepository.save(new Person("Jimmy", "Doe", "1 Main St", "555-0002", "jimmy@email.com", 12, city));
+
+        assertTrue(statementsFor(() -> assertEquals(3, personRepository.findByCityName("Springfield").size())) > 0);
+    }
+}
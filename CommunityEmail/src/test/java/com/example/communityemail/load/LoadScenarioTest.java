@@ -0,0 +1,131 @@
+package com.example.communityemail.load;
+
+import com.example.communityemail.service.PersonSnapshotService;
+import com.example.loadtest.LoadTest;
+import com.example.loadtest.Scenario;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the whole app on the in memory db and sends it real HTTP load. The load part only runs when asked, for example:
+// mvn test -Dtest=LoadScenarioTest -Dload.people=100000 -Dload.clients=200 -Dload.duration=30
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "communityemail.snapshot.enabled=true")
+@ActiveProfiles("h2")
+class LoadScenarioTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PersonSnapshotService personSnapshotService;
+
+    private final Logger logger = LoggerFactory.getLogger(LoadScenarioTest.class);
+
+    private List<Map<String, Object>> checksum() {
+        return jdbcTemplate.queryForList("select count(*), sum(age), sum(length(email)), sum(city_id) from person_table");
+    }
+
+    @Test
+    void syntheticDataIsTheSameEveryTime() {
+        SyntheticData data = new SyntheticData(jdbcTemplate, 42);
+        data.clear();
+        data.generate(20_000);
+        List<Map<String, Object>> first = checksum();
+        data.clear();
+        data.generate(20_000);
+
+        assertEquals(first, checksum());
+        assertEquals(20_000, jdbcTemplate.queryForObject("select count(*) from person_table", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from city_table", Integer.class));
+        data.clear();
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "load.people", matches = "\\d+")
+    void loadScenarios() throws InterruptedException {
+        int people = Integer.getInteger("load.people");
+        int clients = Integer.getInteger("load.clients", 100);
+        Duration duration = Duration.ofSeconds(Long.getLong("load.duration", 30));
+        int cities = SyntheticData.cities(people);
+
+        SyntheticData data = new SyntheticData(jdbcTemplate, 42);
+        data.clear();
+        data.generate(people);
+        // The data went straight into the db, so the snapshot has to be built again to see it
+        personSnapshotService.rebuild();
+
+        String base = "http://localhost:" + port + "/communityEmail";
+        logger.info("{} people, {} cities, {} clients, {} seconds per scenario", people, cities, clients, duration.toSeconds());
+        logger.info(LoadTest.header());
+        run("first page of 100", clients, duration,
+                Scenario.get(random -> URI.create(base + "?limit=100&city=" + SyntheticData.city(1 + random.nextInt(cities)))));
+        // Whole cities are around 10000 rows each, so fewer clients keeps these from only measuring the queue
+        int cityClients = Math.min(clients, 10);
+        run("emails for a city", cityClients, duration,
+                Scenario.get(random -> URI.create(base + "/emails?city=" + SyntheticData.city(1 + random.nextInt(cities)))));
+        run("people for a city", cityClients, duration,
+                Scenario.get(random -> URI.create(base + "?city=" + SyntheticData.city(1 + random.nextInt(cities)))));
+        String stats = "http://localhost:" + port + "/stats";
+        run("people per city (snapshot)", cityClients, duration,
+                Scenario.get(random -> URI.create(stats + "/cities")));
+        run("age histogram (snapshot)", cityClients, duration,
+                Scenario.get(random -> URI.create(stats + "/ages?city=" + SyntheticData.city(1 + random.nextInt(cities)))));
+        data.clear();
+    }
+
+    // One city's emails and people with and without gzip, for the payload size and latency compression gives. Everyone lives in that one city, so load.people is the size of the city. Only runs when asked, for example:
+    // mvn test -Dtest=LoadScenarioTest#gzipScenarios -Dload.people=500000 -Dload.clients=1 -Dload.duration=60
+    @Test
+    @EnabledIfSystemProperty(named = "load.people", matches = "\\d+")
+    void gzipScenarios() throws InterruptedException {
+        int people = Integer.getInteger("load.people");
+        // Every request reads the whole city, so keep this low or the clients mostly measure each other
+        int clients = Integer.getInteger("load.clients", 1);
+        Duration duration = Duration.ofSeconds(Long.getLong("load.duration", 60));
+
+        SyntheticData data = new SyntheticData(jdbcTemplate, 42);
+        data.clear();
+        data.generate(people, 1);
+
+        String base = "http://localhost:" + port + "/communityEmail";
+        logger.info("{} people in one city, {} clients, {} seconds per scenario", people, clients, duration.toSeconds());
+        logger.info(LoadTest.header());
+        StringBuilder summary = new StringBuilder();
+        for (String path : List.of("/emails?city=", "?city=")) {
+            Scenario city = Scenario.get(random -> URI.create(base + path + SyntheticData.city(1)));
+            LoadTest.LoadResult identity = LoadTest.run(city.header("Accept-Encoding", "identity"), clients, duration);
+            LoadTest.LoadResult gzip = LoadTest.run(city.header("Accept-Encoding", "gzip"), clients, duration);
+            logger.info(identity.row(path + " (identity)"));
+            logger.info(gzip.row(path + " (gzip)"));
+            summary.append(String.format("%s %.0f bytes and p50 %.2f ms plain, %.0f bytes and p50 %.2f ms gzipped; ", path,
+                    identity.bytesPerRequest(), identity.latencies().percentileMillis(50), gzip.bytesPerRequest(), gzip.latencies().percentileMillis(50)));
+
+            assertEquals(0, identity.latencies().getErrors() + gzip.latencies().getErrors(), summary.toString());
+            // Emails and people repeat a handful of names and streets, so they should shrink to well under a quarter
+            assertTrue(gzip.bytesPerRequest() < identity.bytesPerRequest() / 4, summary.toString());
+        }
+        logger.info(summary.toString());
+        data.clear();
+    }
+
+    // One line of the results table for each scenario
+    private void run(String scenario, int clients, Duration duration, Scenario requests) throws InterruptedException {
+        logger.info(LoadTest.run(requests, clients, duration).row(scenario));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.communityemail.load;
+
+import com.example.loadtest.SyntheticPeople;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Fills the db with made up cities and people straight through JDBC. The same seed and size always gives the same rows, and there's a city for every 10000 people so each city is big enough for paging and streaming to matter.
+public class SyntheticData {
+
+    private static final int CHUNK = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long seed;
+
+    public SyntheticData(JdbcTemplate jdbcTemplate, long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.seed = seed;
+    }
+
+    public static int cities(int people) {
+        return Math.max(1, people / 10_000);
+    }
+
+    // City ids run from 1 to cities(people), so callers can make any of the names up without asking the db
+    public static String city(int id) {
+        return "City" + id;
+    }
+
+    public void generate(int people) {
+        generate(people, cities(people));
+    }
+
+    // Everyone spread over the given number of cities instead, for example all of them in one city to see how a really big city does
+    public void generate(int people, int cities) {
+        Random random = new Random(seed);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= cities; i++) {
+            rows.add(new Object[]{i, city(i), people / cities, String.format("%03d", 100 + i % 900)});
+        }
+        jdbcTemplate.batchUpdate("insert into city_table (id, name, population, area_code) values (?, ?, ?, ?)", rows);
+
+        rows.clear();
+        for (int i = 1; i <= people; i++) {
+            String firstName = SyntheticPeople.firstName(random);
+            String lastName = SyntheticPeople.lastName(random);
+            // Households share an email now and then, so the distinct email list is a bit shorter than the people list like it would be for real
+            String email = (firstName + "." + lastName + random.nextInt(people) + "@email.com").toLowerCase();
+            rows.add(new Object[]{i, firstName, lastName, SyntheticPeople.address(random),
+                    SyntheticPeople.phoneNumber(random), email, 1 + random.nextInt(90), 1 + random.nextInt(cities)});
+            if (rows.size() == CHUNK || i == people) {
+                jdbcTemplate.batchUpdate("insert into person_table (id, first_name, last_name, address, phone_number, email, age, city_id) values (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+
+        // Move the ids past the generated rows so people and cities added through the app don't clash with them
+        jdbcTemplate.execute("alter sequence city_table_seq restart with " + (cities + 51));
+        jdbcTemplate.execute("alter table person_table alter column id restart with " + (people + 1));
+    }
+
+    public void clear() {
+        jdbcTemplate.execute("delete from person_table");
+        jdbcTemplate.execute("delete from city_table");
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.communityemail.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the migrations on a database like one an older version made with ddl-auto, stopping at the baseline to put in the rows it could have
+class MigrationTest {
+
+    private static DataSource dataSource(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    private static Flyway flyway(DataSource dataSource, String target) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .target(target)
+                .load();
+    }
+
+    @Test
+    void duplicateCitiesAreMergedBeforeTheyAreMadeUnique() {
+        DataSource dataSource = dataSource("migration_duplicates");
+        flyway(dataSource, "1.1").migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.batchUpdate("insert into city_table (id, name, population, area_code) values (?, ?, ?, ?)", List.of(
+                new Object[]{1, "Springfield", 1000, "555"}, new Object[]{2, "Shelbyville", 500, "556"}, new Object[]{3, "Springfield", 1000, "555"}));
+        jdbcTemplate.batchUpdate("insert into person_table (id, first_name, last_name, address, phone_number, email, age, city_id) values (?, ?, ?, ?, ?, ?, ?, ?)", List.of(
+                new Object[]{1, "Homer", "Simpson", "742 Evergreen Terrace", "555-5555", "homer@email.com", 39, 3},
+                new Object[]{2, "Marge", "Simpson", "742 Evergreen Terrace", "555-5555", "marge@email.com", 36, 1},
+                new Object[]{3, "Bart", "Simpson", "742 Evergreen Terrace", "555-5555", "bart@email.com", 10, 2}));
+
+        flyway(dataSource, "latest").migrate();
+
+        assertEquals(List.of(1L, 2L), jdbcTemplate.queryForList("select id from city_table order by id", Long.class));
+        assertEquals(List.of(1L, 1L, 2L), jdbcTemplate.queryForList("select city_id from person_table order by id", Long.class));
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update("insert into city_table (id, name, population, area_code) values (4, 'Springfield', 1, '555')"));
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.communityemail.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs each lookup against the migrated schema, then asks H2 to EXPLAIN the exact SQL Hibernate sent, so dropping or changing an index the lookups need fails here instead of turning into a full table scan in production
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.communityemail.repository.QueryPlanTest$SqlCapture"})
+class QueryPlanTest {
+
+    // Remembers the SQL Hibernate sends so the test can EXPLAIN it
+    public static class SqlCapture implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // With empty tables a scan costs nothing so H2 would pick one, a few people per city makes the plan look like the real one
+    @BeforeEach
+    void setUp() {
+        for (int i = 1; i <= 20; i++) {
+            jdbcTemplate.update("insert into city_table (id, name, population, area_code) values (?, ?, ?, ?)", i, "City" + i, 10, "555");
+            for (int j = 0; j < 10; j++) {
+                jdbcTemplate.update("insert into person_table (id, first_name, last_name, address, phone_number, email, age, city_id) values (?, ?, ?, ?, ?, ?, ?, ?)",
+                        i * 100 + j, "First" + j, "Last" + i, "1 Main St", "555-0000", "person" + (i * 100 + j) + "@email.com", 30, i);
+            }
+        }
+        SqlCapture.statements.clear();
+    }
+
+    // EXPLAIN output of the first statement the lookup ran, with the same parameters bound
+    private String planFor(Runnable lookup, Object... parameters) {
+        lookup.run();
+        String sql = SqlCapture.statements.get(0);
+        return jdbcTemplate.query("explain " + sql, statement -> {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+        }, resultSet -> {
+            resultSet.next();
+            return resultSet.getString(1);
+        });
+    }
+
+    private static void assertUsesIndex(String plan, String index) {
+        assertFalse(plan.contains("tableScan"), plan);
+        assertTrue(plan.toLowerCase().contains(index), plan);
+    }
+
+    @Test
+    void peopleByCityUseTheCityNameIndex() {
+        assertUsesIndex(planFor(() -> personRepository.findByCityName("City3"), "City3"), "uk_city_name");
+    }
+
+    @Test
+    void pagesUseTheCityNameAndCityIdIndexes() {
+        String plan = planFor(() -> personRepository.findByCityNameAndIdGreaterThanOrderByIdAsc("City3", 305, Limit.of(3)), "City3", 305, 3);
+        assertUsesIndex(plan, "uk_city_name");
+        assertUsesIndex(plan, "idx_person_city_id");
+    }
+
+    @Test
+    void emailsUseTheCityNameIndex() {
+        String plan = planFor(() -> {
+            try (Stream<String> emails = personRepository.streamDistinctEmailsByCityName("City3")) {
+                emails.count();
+            }
+        }, "City3");
+        assertUsesIndex(plan, "uk_city_name");
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.communityemail.service;
+
+import com.example.communityemail.model.ChangeEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Events only exist once their transaction commits, so these run without the test transaction. The buffer only holds 3, anything older is read back from the outbox
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "communityemail.events.buffer-size=3"})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({ChangeEventService.class, ChangeEventBuffer.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChangeEventServiceTest {
+
+    @Autowired
+    private ChangeEventService changeEventService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // The seqs carry on from test to test, so everything is checked relative to the last one before the test
+    private long start;
+
+    @BeforeEach
+    void setUp() {
+        start = changeEventService.lastSeq();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from change_event_table");
+    }
+
+    private static List<Long> seqs(List<ChangeEvent> events) {
+        return events.stream().map(ChangeEvent::seq).toList();
+    }
+
+    private List<Long> expected(int count) {
+        return LongStream.rangeClosed(start + 1, start + count).boxed().toList();
+    }
+
+    @Test
+    void eventsAreNumberedInTheOrderTheyCommit() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            changeEventService.record("thing", "create", 3, Map.of("name", "first"));
+            changeEventService.record("person", "delete", 42, null);
+            // Nothing until the commit
+            assertEquals(List.of(), changeEventService.eventsAfter(start, 10));
+        });
+        changeEventService.record("thing", "delete", 3, null);
+
+        List<ChangeEvent> events = changeEventService.eventsAfter(start, 10);
+        assertEquals(expected(3), seqs(events));
+        assertEquals("{\"name\":\"first\"}", events.get(0).payload());
+        assertEquals("person", events.get(1).entity());
+        assertEquals(42, events.get(1).entityId());
+        assertNull(events.get(1).payload());
+        assertEquals(3, jdbcTemplate.queryForObject("select count(*) from change_event_table", Integer.class));
+    }
+
+    // A rolled back write sends nothing and gives its seq back, so there's no gap
+    @Test
+    void rolledBackWritesSendNothing() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            changeEventService.record("person", "update", 1, null);
+            status.setRollbackOnly();
+        });
+        assertEquals(List.of(), changeEventService.eventsAfter(start, 10));
+
+        changeEventService.record("person", "update", 2, null);
+        assertEquals(expected(1), seqs(changeEventService.eventsAfter(start, 10)));
+    }
+
+    @Test
+    void olderEventsAreReadFromTheOutbox() {
+        for (int i = 1; i <= 5; i++) {
+            changeEventService.record("person", "update", i, null);
+        }
+
+        assertEquals(expected(5), seqs(changeEventService.eventsAfter(start, 10)));
+        assertEquals(List.of(start + 2, start + 3), seqs(changeEventService.eventsAfter(start + 1, 2)));
+    }
+
+    // Another instance of the app writing to the same db, this one only finds out when it checks the outbox
+    @Test
+    void refreshPicksUpEventsWrittenElsewhere() {
+        changeEventService.record("person", "update", 1, null);
+        jdbcTemplate.update("update change_sequence_table set last_seq = last_seq + 1");
+        jdbcTemplate.update("insert into change_event_table (seq, entity, operation, entity_id, payload, created_at) values (?, 'person', 'delete', 9, null, ?)",
+                start + 2, Timestamp.from(Instant.now()));
+        assertEquals(expected(1), seqs(changeEventService.eventsAfter(start, 10)));
+
+        changeEventService.refresh();
+        assertEquals(expected(2), seqs(changeEventService.eventsAfter(start, 10)));
+
+        // The next one here comes after it without a gap
+        changeEventService.record("person", "update", 1, null);
+        assertEquals(expected(3), seqs(changeEventService.eventsAfter(start, 10)));
+    }
+
+    @Test
+    void waitsForTheNextCommit() throws Exception {
+        Thread writer = Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            changeEventService.record("person", "create", 1, null);
+        });
+
+        assertEquals(expected(1), seqs(changeEventService.awaitEventsAfter(start, 10, Duration.ofSeconds(10))));
+        writer.join();
+        assertEquals(List.of(), changeEventService.awaitEventsAfter(start + 1, 10, Duration.ofMillis(50)));
+    }
+
+    @Test
+    void purgesEventsOlderThanTheRetention() {
+        changeEventService.record("person", "create", 1, null);
+        changeEventService.record("person", "create", 2, null);
+        jdbcTemplate.update("update change_event_table set created_at = ? where seq = ?", Timestamp.from(Instant.now().minus(Duration.ofDays(30))), start + 1);
+
+        assertEquals(1, changeEventService.purge());
+        assertEquals(start + 2, changeEventService.firstRetainedSeq());
+    }
+
+    // Past what a transaction keeps in memory the events wait in the db, and they still come out numbered in the order they were recorded
+    @Test
+    void bigTransactionsAreNumberedInOrder() {
+        int count = 2 * ChangeEventService.WRITE_BATCH + 10;
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 1; i <= count; i++) {
+                changeEventService.record("person", "create", i, null);
+            }
+            // The counter isn't touched until the commit
+            assertEquals(start, jdbcTemplate.queryForObject("select last_seq from change_sequence_table where id = 1", Long.class));
+        });
+
+        List<ChangeEvent> events = changeEventService.eventsAfter(start, count);
+        assertEquals(expected(count), seqs(events));
+        assertEquals(LongStream.rangeClosed(1, count).boxed().toList(), events.stream().map(ChangeEvent::entityId).toList());
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from change_event_pending_table", Integer.class));
+    }
+
+    @Test
+    void rolledBackBigTransactionsLeaveNothingWaiting() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 1; i <= ChangeEventService.WRITE_BATCH + 1; i++) {
+                changeEventService.record("person", "create", i, null);
+            }
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from change_event_pending_table", Integer.class));
+        changeEventService.record("person", "update", 1, null);
+        assertEquals(expected(1), seqs(changeEventService.eventsAfter(start, 10)));
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.communityemail.service;
+
+import com.example.communityemail.model.City;
+import com.example.communityemail.model.ExportFormat;
+import com.example.communityemail.model.Person;
+import com.example.communityemail.repository.PersonRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Exports from an in memory db with a fetch size smaller than the number of people, so the cursor has to go back for more
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "communityemail.export.fetch-size=3"})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(PersonExportService.class)
+class PersonExportServiceTest {
+
+    private static final Instant UNTIL = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PersonExportService personExportService;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    private final List<Long> ids = new ArrayList<>();
+    private long cityId;
+
+    // Ten people, the nth changed on the nth of March
+    @BeforeEach
+    void setUp() {
+        City city = new City(5000, "Springfield", "555", null);
+        entityManager.persist(city);
+        cityId = city.getId();
+        for (int i = 1; i <= 10; i++) {
+            Person person = new Person("Person" + i, "Simpson", "742 Evergreen Terrace", "555-000" + i, "p" + i + "@example.com", 30 + i, city);
+            entityManager.persist(person);
+            entityManager.flush();
+            jdbcTemplate.update("update person_table set updated_at = ? where id = ?", Timestamp.from(Instant.parse(String.format("2024-03-%02dT12:00:00Z", i))), person.getId());
+            ids.add(person.getId());
+        }
+    }
+
+    private String export(ExportFormat format, Instant since) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = personExportService.export(format, since, UNTIL, out);
+        String text = out.toString(StandardCharsets.UTF_8);
+        assertEquals(count, text.lines().filter(line -> !line.startsWith("id,")).count());
+        return text;
+    }
+
+    @Test
+    void exportsEveryoneInIdOrder() throws Exception {
+        List<String> lines = export(ExportFormat.CSV, null).lines().toList();
+
+        assertEquals(11, lines.size());
+        assertEquals("id,firstName,lastName,address,phoneNumber,email,age,cityId,city,updatedAt", lines.get(0));
+        assertEquals(ids.get(0) + ",Person1,Simpson,742 Evergreen Terrace,555-0001,p1@example.com,31," + cityId + ",Springfield,2024-03-01T12:00:00.000000Z", lines.get(1));
+        for (int i = 0; i < ids.size(); i++) {
+            assertTrue(lines.get(i + 1).startsWith(ids.get(i) + ","));
+        }
+    }
+
+    @Test
+    void exportsOnlyPeopleChangedSince() throws Exception {
+        String ndjson = export(ExportFormat.NDJSON, Instant.parse("2024-03-09T12:00:00Z"));
+
+        assertEquals(2, ndjson.lines().count());
+        assertTrue(ndjson.startsWith("{\"id\":" + ids.get(8) + ",\"firstName\":\"Person9\","));
+        assertTrue(ndjson.contains("\"email\":\"p10@example.com\",\"age\":40,\"cityId\":" + cityId + ",\"city\":\"Springfield\",\"updatedAt\":\"2024-03-10T12:00:00.000000Z\"}\n"));
+
+        // The export goes back the overlap (a minute by default) before since, so Person9 is sent again for a since just after it
+        assertEquals(ndjson, export(ExportFormat.NDJSON, Instant.parse("2024-03-09T12:01:00Z")));
+        assertEquals(1, export(ExportFormat.NDJSON, Instant.parse("2024-03-09T12:01:01Z")).lines().count());
+    }
+
+    @Test
+    void renamingACityChangesItsPeople() throws Exception {
+        Instant renamed = Instant.parse("2024-06-01T00:00:00Z");
+        assertFalse(personExportService.changedBetween(renamed, UNTIL));
+
+        assertEquals(10, personRepository.touchByCityId(cityId, renamed));
+        assertTrue(personExportService.changedBetween(renamed, UNTIL));
+        assertEquals(10, export(ExportFormat.NDJSON, renamed).lines().count());
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.communityemail.service;
+
+import com.example.communityemail.controller.CityController;
+import com.example.communityemail.controller.PersonController;
+import com.example.communityemail.model.City;
+import com.example.communityemail.model.CityCount;
+import com.example.communityemail.model.Person;
+import com.example.communityemail.model.SnapshotRow;
+import com.example.communityemail.repository.CityRepository;
+import com.example.communityemail.repository.PersonRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// Changes only reach the snapshot after they commit, so the tests run outside a test transaction and empty the tables themselves
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "communityemail.snapshot.enabled=true"})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({PersonSnapshotService.class, PersonController.class, CityController.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PersonSnapshotServiceTest {
+
+    @Autowired
+    private PersonSnapshotService personSnapshotService;
+
+    @Autowired
+    private PersonController personController;
+
+    @Autowired
+    private CityController cityController;
+
+    @MockBean
+    private ChangeEventService changeEventService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    // Springfield has a child and two people in their thirties, Shelbyville has one 70 year old and Ogdenville has nobody
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("insert into city_table (id, name, population, area_code) values (1, 'Springfield', 10, '555'), (2, 'Shelbyville', 10, '555'), (3, 'Ogdenville', 10, '555')");
+        insertPerson(1001, 5, 1);
+        insertPerson(1002, 35, 1);
+        insertPerson(1003, 38, 1);
+        insertPerson(1004, 70, 2);
+        personSnapshotService.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from person_table");
+        jdbcTemplate.update("delete from city_table");
+    }
+
+    private void insertPerson(long id, int age, long cityId) {
+        jdbcTemplate.update("insert into person_table (id, first_name, last_name, address, phone_number, email, age, city_id) values (?, 'John', 'Doe', '1 Main St', '555-5555', 'john@email.com', ?, ?)",
+                id, age, cityId);
+    }
+
+    // The person writes touch the city's lazy people list, which the open session in the running app covers
+    private void inTransaction(Runnable write) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> write.run());
+    }
+
+    private List<CityCount> peoplePerCity() throws Exception {
+        return peoplePerCity(personSnapshotService);
+    }
+
+    private static List<CityCount> peoplePerCity(PersonSnapshotService snapshot) throws Exception {
+        snapshot.awaitRefreshes();
+        return snapshot.getPeoplePerCity().orElseThrow();
+    }
+
+    @Test
+    void build_countsEveryCity() throws Exception {
+        assertEquals(List.of(new CityCount("Springfield", 3), new CityCount("Shelbyville", 1), new CityCount("Ogdenville", 0)), peoplePerCity());
+
+        long[] springfield = personSnapshotService.getAgeHistogram("Springfield", 10).orElseThrow().counts();
+        assertEquals(13, springfield.length);
+        assertEquals(1, springfield[0]);
+        assertEquals(2, springfield[3]);
+        assertTrue(personSnapshotService.getAgeHistogram("Capital City", 10).isEmpty());
+    }
+
+    @Test
+    void personWrites_areAppliedAfterCommit() throws Exception {
+        Person person = new Person("Jane", "Doe", "9 Main St", "555-5556", "jane@email.com", 31, 3);
+        inTransaction(() -> personController.addPerson(person));
+        assertEquals(List.of(new CityCount("Springfield", 3), new CityCount("Ogdenville", 1), new CityCount("Shelbyville", 1)), peoplePerCity());
+
+        inTransaction(() -> personController.updatePerson(person.getId(), new Person("Jane", "Doe", "9 Main St", "555-5556", "jane@email.com", 72, 2)));
+        assertEquals(List.of(new CityCount("Springfield", 3), new CityCount("Shelbyville", 2), new CityCount("Ogdenville", 0)), peoplePerCity());
+        assertEquals(2, personSnapshotService.getAgeHistogram("Shelbyville", 10).orElseThrow().counts()[7]);
+
+        inTransaction(() -> personController.deletePerson(person.getId()));
+        assertEquals(List.of(new CityCount("Springfield", 3), new CityCount("Shelbyville", 1), new CityCount("Ogdenville", 0)), peoplePerCity());
+        assertEquals(4, personSnapshotService.getStats().get("people"));
+    }
+
+    @Test
+    void cityDelete_takesItsPeopleOut() throws Exception {
+        cityController.deleteCity(1L);
+
+        assertEquals(List.of(new CityCount("Shelbyville", 1), new CityCount("Ogdenville", 0)), peoplePerCity());
+        assertEquals(1, personSnapshotService.getStats().get("people"));
+    }
+
+    @Test
+    void cityChanges_renameAndAddCities() throws Exception {
+        cityController.updateCity(2L, new City(2L, 10, "Capital City", "555"));
+        // Ids are handed out by the db, which doesn't know about the ones the setup inserted by hand, so this city is added the same way and the snapshot told about it
+        jdbcTemplate.update("insert into city_table (id, name, population, area_code) values (4, 'North Haverbrook', 20, '555')");
+        personSnapshotService.cityChanged(4);
+
+        assertEquals(List.of(new CityCount("Springfield", 3), new CityCount("Capital City", 1), new CityCount("North Haverbrook", 0), new CityCount("Ogdenville", 0)), peoplePerCity());
+        assertEquals(1, personSnapshotService.getAgeHistogram("Capital City", 10).orElseThrow().counts()[7]);
+        assertTrue(personSnapshotService.getAgeHistogram("Shelbyville", 10).isEmpty());
+    }
+
+    // A change that lands while the first build is reading has no snapshot to go into yet, it still has to be read again once the build is in
+    @Test
+    void firstBuild_picksUpPeopleChangedWhileItRuns() throws Exception {
+        PersonRepository slowRepository = mock(PersonRepository.class, AdditionalAnswers.delegatesTo(personRepository));
+        PersonSnapshotService firstBuild = new PersonSnapshotService(slowRepository, cityRepository, transactionManager, true);
+        doAnswer(invocation -> {
+            // The build has read everyone as they were, then 1001 moves to Ogdenville and the change is refreshed before the build is swapped in.
+            // It's sent from another thread since this one is in the build's transaction and would hold the change until that commits
+            List<SnapshotRow> rows;
+            try (Stream<SnapshotRow> stream = personRepository.streamSnapshotRows()) {
+                rows = stream.toList();
+            }
+            jdbcTemplate.update("update person_table set city_id = 3 where id = 1001");
+            CompletableFuture.runAsync(() -> firstBuild.peopleChanged(List.of(1001L))).get();
+            firstBuild.awaitRefreshes();
+            return rows.stream();
+        }).when(slowRepository).streamSnapshotRows();
+        try {
+            firstBuild.rebuild();
+
+            assertEquals(List.of(new CityCount("Springfield", 2), new CityCount("Ogdenville", 1), new CityCount("Shelbyville", 1)), peoplePerCity(firstBuild));
+        } finally {
+            firstBuild.shutdown();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.emergencysnapshot;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class EmergencySnapshotApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(EmergencySnapshotApplication.class, args);
+    }
+
+}
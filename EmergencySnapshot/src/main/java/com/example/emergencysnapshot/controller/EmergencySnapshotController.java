@@ -0,0 +1,48 @@
+package com.example.emergencysnapshot.controller;
+
+import com.example.emergencysnapshot.model.EmergencySnapshot;
+import com.example.emergencysnapshot.service.EmergencySnapshotService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+// One call for incident response instead of four. Each parameter brings in one service: stationNumber the fire station roster, address the children there, city the community emails, and firstName with lastName the medical info
+@RestController
+@RequestMapping("/emergency")
+public class EmergencySnapshotController {
+    @Autowired
+    private EmergencySnapshotService emergencySnapshotService;
+    private final Logger logger = LoggerFactory.getLogger(EmergencySnapshotController.class);
+
+    /**
+     * Gets what every service asked for knows about an incident, asking them all at the same time. A service that is slow or down is left out rather than holding up the rest
+     *
+     * @param stationNumber the fire station number to get the roster for
+     * @param address the address to get the children at
+     * @param city the city to get the emails of
+     * @param firstName the first name of the person to get medical info for, needs lastName too
+     * @param lastName the last name of the person to get medical info for, needs firstName too
+     *
+     * @return an OK response entity with the snapshot, which says which services answered, or bad request if nothing was asked for or only one of the names was given
+     */
+    @GetMapping
+    public ResponseEntity<EmergencySnapshot> getSnapshot(@RequestParam(required = false) Integer stationNumber,
+                                                         @RequestParam(required = false) String address,
+                                                         @RequestParam(required = false) String city,
+                                                         @RequestParam(required = false) String firstName,
+                                                         @RequestParam(required = false) String lastName) {
+        logger.info("Received a request for an emergency snapshot: station {} address {} city {} person {} {}", stationNumber, address, city, firstName, lastName);
+        if ((firstName == null) != (lastName == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (stationNumber == null && address == null && city == null && firstName == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(emergencySnapshotService.getSnapshot(stationNumber, address, city, firstName, lastName));
+    }
+}
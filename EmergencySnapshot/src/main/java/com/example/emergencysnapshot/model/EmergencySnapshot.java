@@ -0,0 +1,7 @@
+package com.example.emergencysnapshot.model;
+
+import java.util.Map;
+
+// Everything the four services know about an incident. A part is null if it wasn't asked for or its service didn't answer in time, sources says which. Complete is false if any service that was asked timed out or failed
+public record EmergencySnapshot(Object fireStation, Object childAlert, Object communityEmails, Object personInfo, Map<String, SourceResult> sources, boolean complete) {
+}
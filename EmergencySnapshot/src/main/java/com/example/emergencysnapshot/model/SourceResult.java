@@ -0,0 +1,8 @@
+package com.example.emergencysnapshot.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.JsonNode;
+
+// What one service answered and how long it took. The body is passed through as it came, it goes in its own field of the snapshot so it's left out here
+public record SourceResult(SourceStatus status, long millis, @JsonIgnore JsonNode body) {
+}
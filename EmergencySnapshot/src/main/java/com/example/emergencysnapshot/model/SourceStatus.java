@@ -0,0 +1,9 @@
+package com.example.emergencysnapshot.model;
+
+// How the call to one of the services went. Anything but OK and NOT_FOUND means the snapshot is missing that service's part
+public enum SourceStatus {
+    OK,
+    NOT_FOUND,
+    TIMEOUT,
+    ERROR
+}
@@ -0,0 +1,97 @@
+package com.example.emergencysnapshot.service;
+
+import com.example.emergencysnapshot.model.SourceResult;
+import com.example.emergencysnapshot.model.SourceStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.*;
+
+// Makes the GET calls to the four services. Each call runs on its own virtual thread, at most emergency.max-concurrent-calls are open at once, and a call that isn't done within emergency.timeout is answered as TIMEOUT without waiting for it
+@Component
+public class DownstreamClient {
+
+    private final HttpClient httpClient;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore slots;
+    private final Duration timeout;
+    private final ObjectMapper objectMapper;
+    private final Logger logger = LoggerFactory.getLogger(DownstreamClient.class);
+
+    // Can have the constructor be autowired so it autowires everything in the constructor
+    @Autowired
+    public DownstreamClient(ObjectMapper objectMapper, @Value("${emergency.timeout:2s}") Duration timeout, @Value("${emergency.max-concurrent-calls:64}") int maxConcurrentCalls) {
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+        this.slots = new Semaphore(maxConcurrentCalls);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .executor(executor)
+                .build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public CompletableFuture<SourceResult> get(URI uri) {
+        long start = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> call(uri, start), executor)
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    // The call itself gives up soon after from its own request timeout, so nothing is left running for long
+                    logger.warn("Gave up waiting on {}", uri);
+                    return new SourceResult(SourceStatus.TIMEOUT, millisSince(start), null);
+                });
+    }
+
+    private SourceResult call(URI uri, long start) {
+        try {
+            if (!slots.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                return new SourceResult(SourceStatus.TIMEOUT, millisSince(start), null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new SourceResult(SourceStatus.ERROR, millisSince(start), null);
+        }
+        try {
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(timeout).header("Accept", "application/json").GET().build();
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() == 200) {
+                return new SourceResult(SourceStatus.OK, millisSince(start), objectMapper.readTree(response.body()));
+            }
+            if (response.statusCode() == 404) {
+                return new SourceResult(SourceStatus.NOT_FOUND, millisSince(start), null);
+            }
+            logger.warn("{} answered {}", uri, response.statusCode());
+            return new SourceResult(SourceStatus.ERROR, millisSince(start), null);
+        } catch (HttpTimeoutException e) {
+            return new SourceResult(SourceStatus.TIMEOUT, millisSince(start), null);
+        } catch (IOException e) {
+            logger.warn("Couldn't get {}: {}", uri, e.toString());
+            return new SourceResult(SourceStatus.ERROR, millisSince(start), null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new SourceResult(SourceStatus.ERROR, millisSince(start), null);
+        } finally {
+            slots.release();
+        }
+    }
+
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
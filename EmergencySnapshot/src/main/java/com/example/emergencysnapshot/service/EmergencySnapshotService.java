@@ -0,0 +1,77 @@
+package com.example.emergencysnapshot.service;
+
+import com.example.emergencysnapshot.model.EmergencySnapshot;
+import com.example.emergencysnapshot.model.SourceResult;
+import com.example.emergencysnapshot.model.SourceStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Use this service to ask every service that has something to say about an incident at the same time and put the answers together. Only the services whose parameters were given are asked
+@Service
+public class EmergencySnapshotService implements EmergencySnapshotServiceInterface {
+
+    static final String FIRE_STATION = "fireStation";
+    static final String CHILD_ALERT = "childAlert";
+    static final String COMMUNITY_EMAIL = "communityEmail";
+    static final String PERSON_INFO = "personInfo";
+
+    private DownstreamClient downstreamClient;
+    private String fireStationUrl;
+    private String childAlertUrl;
+    private String communityEmailUrl;
+    private String personInfoUrl;
+
+    // Can have the constructor be autowired so it autowires everything in the constructor
+    @Autowired
+    public EmergencySnapshotService(DownstreamClient downstreamClient,
+                                    @Value("${emergency.services.fire-station}") String fireStationUrl,
+                                    @Value("${emergency.services.child-alert}") String childAlertUrl,
+                                    @Value("${emergency.services.community-email}") String communityEmailUrl,
+                                    @Value("${emergency.services.person-info}") String personInfoUrl) {
+        this.downstreamClient = downstreamClient;
+        this.fireStationUrl = fireStationUrl;
+        this.childAlertUrl = childAlertUrl;
+        this.communityEmailUrl = communityEmailUrl;
+        this.personInfoUrl = personInfoUrl;
+    }
+
+    @Override
+    public EmergencySnapshot getSnapshot(Integer stationNumber, String address, String city, String firstName, String lastName) {
+        // All the calls are started before waiting on any of them, so the whole thing takes as long as the slowest one (or the timeout)
+        Map<String, CompletableFuture<SourceResult>> calls = new LinkedHashMap<>();
+        if (stationNumber != null) {
+            calls.put(FIRE_STATION, downstreamClient.get(uri(fireStationUrl, "/firestation").queryParam("stationNumber", stationNumber).build().toUri()));
+        }
+        if (address != null) {
+            calls.put(CHILD_ALERT, downstreamClient.get(uri(childAlertUrl, "/childAlert").queryParam("address", address).encode().build().toUri()));
+        }
+        if (city != null) {
+            calls.put(COMMUNITY_EMAIL, downstreamClient.get(uri(communityEmailUrl, "/communityEmail/emails").queryParam("city", city).encode().build().toUri()));
+        }
+        if (firstName != null && lastName != null) {
+            calls.put(PERSON_INFO, downstreamClient.get(uri(personInfoUrl, "/personinfo").queryParam("firstName", firstName).queryParam("lastName", lastName).encode().build().toUri()));
+        }
+        CompletableFuture.allOf(calls.values().toArray(new CompletableFuture[0])).join();
+
+        Map<String, SourceResult> sources = new LinkedHashMap<>();
+        calls.forEach((source, call) -> sources.put(source, call.join()));
+        boolean complete = sources.values().stream().allMatch(result -> result.status() == SourceStatus.OK || result.status() == SourceStatus.NOT_FOUND);
+        return new EmergencySnapshot(body(sources, FIRE_STATION), body(sources, CHILD_ALERT), body(sources, COMMUNITY_EMAIL), body(sources, PERSON_INFO), sources, complete);
+    }
+
+    private static UriComponentsBuilder uri(String baseUrl, String path) {
+        return UriComponentsBuilder.fromHttpUrl(baseUrl).path(path);
+    }
+
+    private static Object body(Map<String, SourceResult> sources, String source) {
+        SourceResult result = sources.get(source);
+        return result == null ? null : result.body();
+    }
+}
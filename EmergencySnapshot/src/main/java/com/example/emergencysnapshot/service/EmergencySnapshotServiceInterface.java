@@ -0,0 +1,7 @@
+package com.example.emergencysnapshot.service;
+
+import com.example.emergencysnapshot.model.EmergencySnapshot;
+
+public interface EmergencySnapshotServiceInterface {
+    EmergencySnapshot getSnapshot(Integer stationNumber, String address, String city, String firstName, String lastName);
+}
@@ -0,0 +1,13 @@
+package com.example.emergencysnapshot;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class EmergencySnapshotApplicationTests {
+
+    @Test
+    void contextLoads() {
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.example.emergencysnapshot.controller;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// The four services are stubbed with small http servers on their own local ports, so the real calls, timeouts and merging all run
+@SpringBootTest(properties = {"emergency.timeout=1s", "emergency.max-concurrent-calls=16"})
+@AutoConfigureMockMvc
+class EmergencySnapshotControllerTest {
+
+    private static StubService fireStation;
+    private static StubService childAlert;
+    private static StubService communityEmail;
+    private static StubService personInfo;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeAll
+    static void startServices() throws IOException {
+        fireStation = new StubService("/firestation", """
+                {"people":[{"firstName":"John","lastName":"Doe","address":"1 Main St","phone":"555-5555"}],"adultCount":1,"childCount":0}""");
+        childAlert = new StubService("/childAlert", """
+                {"children":[{"firstName":"Jimmy","lastName":"Doe","age":5}],"otherHouseholdMembers":[]}""");
+        communityEmail = new StubService("/communityEmail/emails", """
+                ["john@email.com","jane@email.com"]""");
+        personInfo = new StubService("/personinfo", """
+                [{"firstName":"John","lastName":"Doe","allergies":["Peanuts"],"medication":[]}]""");
+    }
+
+    @AfterAll
+    static void stopServices() {
+        for (StubService service : List.of(fireStation, childAlert, communityEmail, personInfo)) {
+            service.close();
+        }
+    }
+
+    @DynamicPropertySource
+    static void serviceUrls(DynamicPropertyRegistry registry) {
+        registry.add("emergency.services.fire-station", () -> fireStation.url());
+        registry.add("emergency.services.child-alert", () -> childAlert.url());
+        registry.add("emergency.services.community-email", () -> communityEmail.url());
+        registry.add("emergency.services.person-info", () -> personInfo.url());
+    }
+
+    @BeforeEach
+    void resetServices() {
+        for (StubService service : List.of(fireStation, childAlert, communityEmail, personInfo)) {
+            service.reset();
+        }
+    }
+
+    @Test
+    void getSnapshot_mergesEveryService() throws Exception {
+        mockMvc.perform(get("/emergency")
+                        .param("stationNumber", "1")
+                        .param("address", "1 Main St")
+                        .param("city", "Springfield")
+                        .param("firstName", "John")
+                        .param("lastName", "Doe"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.complete").value(true))
+                .andExpect(jsonPath("$.fireStation.adultCount").value(1))
+                .andExpect(jsonPath("$.childAlert.children[0].firstName").value("Jimmy"))
+                .andExpect(jsonPath("$.communityEmails", hasSize(2)))
+                .andExpect(jsonPath("$.personInfo[0].allergies[0]").value("Peanuts"))
+                .andExpect(jsonPath("$.sources.fireStation.status").value("OK"))
+                .andExpect(jsonPath("$.sources.personInfo.status").value("OK"));
+
+        assertEquals(List.of("/firestation?stationNumber=1"), fireStation.requests);
+        assertEquals(List.of("/childAlert?address=1%20Main%20St"), childAlert.requests);
+        assertEquals(List.of("/communityEmail/emails?city=Springfield"), communityEmail.requests);
+        assertEquals(List.of("/personinfo?firstName=John&lastName=Doe"), personInfo.requests);
+    }
+
+    // Every stub waits until all four have been called before it answers, which only happens in time if the calls are made at the same time
+    @Test
+    void getSnapshot_callsTheServicesInParallel() throws Exception {
+        CountDownLatch together = new CountDownLatch(4);
+        for (StubService service : List.of(fireStation, childAlert, communityEmail, personInfo)) {
+            service.together = together;
+        }
+
+        mockMvc.perform(get("/emergency").param("stationNumber", "1").param("address", "1 Main St").param("city", "Springfield")
+                        .param("firstName", "John").param("lastName", "Doe"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.complete").value(true));
+        for (StubService service : List.of(fireStation, childAlert, communityEmail, personInfo)) {
+            assertTrue(service.calledTogether);
+        }
+    }
+
+    @Test
+    void getSnapshot_slowServiceIsLeftOut() throws Exception {
+        childAlert.delayMillis = 3000;
+
+        long start = System.nanoTime();
+        mockMvc.perform(get("/emergency").param("stationNumber", "1").param("address", "1 Main St"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.complete").value(false))
+                .andExpect(jsonPath("$.fireStation.adultCount").value(1))
+                .andExpect(jsonPath("$.childAlert").value(nullValue()))
+                .andExpect(jsonPath("$.sources.fireStation.status").value("OK"))
+                .andExpect(jsonPath("$.sources.childAlert.status").value("TIMEOUT"));
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(millis < 2500, "took " + millis + " ms");
+    }
+
+    @Test
+    void getSnapshot_notFoundAndFailedServices() throws Exception {
+        fireStation.status = 404;
+        communityEmail.status = 500;
+
+        mockMvc.perform(get("/emergency").param("stationNumber", "9").param("city", "Nowhere"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.complete").value(false))
+                .andExpect(jsonPath("$.sources.fireStation.status").value("NOT_FOUND"))
+                .andExpect(jsonPath("$.sources.communityEmail.status").value("ERROR"))
+                .andExpect(jsonPath("$.sources", not(hasKey("childAlert"))));
+    }
+
+    @Test
+    void getSnapshot_onlyAsksForWhatWasGiven() throws Exception {
+        mockMvc.perform(get("/emergency").param("city", "Springfield"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.complete").value(true))
+                .andExpect(jsonPath("$.fireStation").value(nullValue()));
+
+        assertEquals(1, communityEmail.requests.size());
+        assertTrue(fireStation.requests.isEmpty());
+        assertTrue(childAlert.requests.isEmpty());
+        assertTrue(personInfo.requests.isEmpty());
+    }
+
+    @Test
+    void getSnapshot_badRequests() throws Exception {
+        mockMvc.perform(get("/emergency"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/emergency").param("firstName", "John"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.emergencysnapshot.controller;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Stands in for one of the four services on its own local port. Answers every GET to its path with the same json, after an optional delay
+class StubService implements AutoCloseable {
+
+    private final HttpServer server;
+    private final String json;
+    volatile int status = 200;
+    volatile long delayMillis;
+    // If set, a request counts this down and then waits for it to reach zero before answering, so the stubs can tell whether they were all called at the same time
+    volatile CountDownLatch together;
+    volatile boolean calledTogether;
+    // The path and query of every request, in the order they came in
+    final List<String> requests = new CopyOnWriteArrayList<>();
+
+    StubService(String path, String json) throws IOException {
+        this.json = json;
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext(path, exchange -> {
+            requests.add(exchange.getRequestURI().toString());
+            try {
+                Thread.sleep(delayMillis);
+                CountDownLatch latch = together;
+                if (latch != null) {
+                    latch.countDown();
+                    calledTogether = latch.await(900, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = status == 200 ? json.getBytes(StandardCharsets.UTF_8) : new byte[0];
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            try (OutputStream out = exchange.getResponseBody()) {
+                exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+                out.write(body);
+            } catch (IOException e) {
+                // The aggregator gave up on this call and closed the connection
+            }
+        });
+        server.start();
+    }
+
+    String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    void reset() {
+        status = 200;
+        delayMillis = 0;
+        together = null;
+        calledTogether = false;
+        requests.clear();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
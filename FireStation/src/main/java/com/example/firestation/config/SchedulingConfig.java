@@ -0,0 +1,10 @@
+package com.example.firestation.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Turns on @Scheduled jobs, like the station counter reconciliation in StationCounterService
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,33 @@
+package com.example.firestation.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.net.URI;
+
+// Turns on Hibernate's second level cache, backed by Caffeine through JCache. The regions and their limits are in hibernate-cache.conf, and any region missing from there fails start up instead of quietly being unbounded.
+// Rosters are cached whole by StationRosterCache, so nothing here needs the query cache and it stays off.
+// The cache manager belongs to this application context instead of being the JVM wide default, so two contexts (like tests on different dbs) never share cached rows
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        return new CaffeineCachingProvider().getCacheManager(URI.create("classpath:hibernate-cache.conf"), getClass().getClassLoader());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCache(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+}
@@ -1,16 +1,28 @@
 package com.example.firestation.controller;
 
 import com.example.firestation.model.FireStation;
+import com.example.firestation.model.FireStationView;
+import com.example.firestation.model.Person;
+import com.example.firestation.model.ReassignRequest;
+import com.example.firestation.model.ReassignResult;
+import com.example.firestation.model.StationSummary;
 import com.example.firestation.repository.FireStationRepository;
+import com.example.firestation.repository.PersonRepository;
+import com.example.firestation.service.ChangeEventService;
 import com.example.firestation.service.FireStationService;
+import com.example.firestation.service.PersonSnapshotService;
+import com.example.firestation.service.StationCounterService;
+import com.example.firestation.service.StationReassignmentService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 // Having the mapping here makes it the mapping for all functions. In a case where there would be 2 or more of the same mapping, I could specify something like "/map" for the method, and, as a result, the entire path would be "/firestation/map"
@@ -21,6 +33,16 @@ public class FireStationController {
     private FireStationService fireStationService;
     @Autowired
     private FireStationRepository fireStationRepository;
+    @Autowired
+    private PersonRepository personRepository;
+    @Autowired
+    private StationReassignmentService stationReassignmentService;
+    @Autowired
+    private StationCounterService stationCounterService;
+    @Autowired
+    private PersonSnapshotService personSnapshotService;
+    @Autowired
+    private ChangeEventService changeEventService;
     private final Logger logger = LoggerFactory.getLogger(FireStationController.class);
 
     /**
@@ -52,6 +74,32 @@ public class FireStationController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Gets how many adults and children a station number covers. The counts are kept up to date as people change, so this doesn't read any people
+     *
+     * @param stationNumber the station number to get the counts for
+     *
+     * @return an OK response entity with the counts, or not found if there's no fire station with that number
+     */
+    @GetMapping("/{stationNumber}/summary")
+    public ResponseEntity<StationSummary> getStationSummary(@PathVariable int stationNumber) {
+        logger.info("Received a request to get the summary of fire station {}", stationNumber);
+        return stationCounterService.getSummary(stationNumber)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Gets the hit, miss and eviction counts for the station roster cache
+     *
+     * @return an OK response entity with the cache stats
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getRosterCacheStats() {
+        logger.info("Received a request to get the roster cache stats");
+        return ResponseEntity.ok(fireStationService.getRosterCacheStats());
+    }
+
     /**
      * This takes a FireStation as it's request body, then saving it into the db and returning the FireStation with a CREATED status in a ResponseEntity
      *
@@ -60,10 +108,15 @@ public class FireStationController {
      * @return a (@code ResponseEntity) that that contains the fireStation as well as a CREATED HttpStatus.
      */
     @PostMapping
+    @Transactional
     public ResponseEntity<FireStation> addFireStation(@RequestBody @Valid FireStation fireStation) {
         // Save to db, and then return HttpStatus to let know it worked
         logger.info("Received request to add a new FireStation: {}", fireStation);
         FireStation savedFireStation = fireStationRepository.save(fireStation);
+        stationCounterService.stationAdded(fireStation.getId());
+        personSnapshotService.stationChanged(fireStation.getId());
+        changeEventService.record("fireStation", "create", fireStation.getId(), FireStationView.of(fireStation));
+        fireStationService.invalidateRosters(List.of(fireStation.getStationNumber()));
         return new ResponseEntity<>(savedFireStation, HttpStatus.CREATED);
     }
 
@@ -76,18 +129,53 @@ public class FireStationController {
      * @return a not found or ok ResponseEntity depending on the circumstances
      */
     @PutMapping("/{id}")
+    @Transactional
     public ResponseEntity<FireStation> updateFireStation(@PathVariable Long id, @RequestBody @Valid FireStation fireStationDetails) {
         logger.info("Received request to update a FireStation: {}", fireStationDetails);
         return fireStationRepository.findById(id)
                 .map(fireStation -> {
+                    // The people move with the station, so the roster for the old station number and the new one both change
+                    int oldStationNumber = fireStation.getStationNumber();
                     fireStation.setStationNumber(fireStationDetails.getStationNumber());
                     fireStation.setAddress(fireStationDetails.getAddress());
                     FireStation updatedFireStation = fireStationRepository.save(fireStation);
+                    // Exported people carry their station number, so they need to go out again in the next incremental export
+                    if (oldStationNumber != fireStationDetails.getStationNumber()) {
+                        personRepository.touchByFireStationId(id, Person.now());
+                        personSnapshotService.stationChanged(id);
+                    }
+                    // Subscribers take the new station number for everyone at the station from this one event
+                    changeEventService.record("fireStation", "update", id, FireStationView.of(updatedFireStation));
+                    fireStationService.invalidateRosters(List.of(oldStationNumber, fireStationDetails.getStationNumber()));
                     return ResponseEntity.ok(updatedFireStation);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Moves people to this fire station, either everyone at another fire station or everyone living at one of a list of addresses. This is done with bulk updates in the db, so it doesn't matter how many people are moved
+     *
+     * @param id the id of the fire station to move people to
+     * @param request either the id of the fire station to move people from or the addresses to move
+     *
+     * @return a response entity with how many people were moved and where from, not found if the fire station doesn't exist, or bad request if the request doesn't say who to move
+     */
+    @PostMapping("/{id}/reassign")
+    public ResponseEntity<ReassignResult> reassignPeople(@PathVariable Long id, @RequestBody ReassignRequest request) {
+        logger.info("Received request to reassign people to fire station {}", id);
+        // One or the other, not both and not neither
+        if ((request.fromFireStationId() == null) == (request.addresses() == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        long start = System.nanoTime();
+        return stationReassignmentService.reassign(id, request)
+                .map(result -> {
+                    logger.info("Moved {} people to fire station {} in {} ms", result.moved(), id, (System.nanoTime() - start) / 1_000_000);
+                    return ResponseEntity.ok(result);
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     /**
      * Deletes a fire station by taking an id and seeing if it exists in the db
      *
@@ -96,11 +184,20 @@ public class FireStationController {
      * @return a response entity with either no content or not found depending on the circumstances
      */
     @DeleteMapping("/{id}")
+    @Transactional
     public ResponseEntity<Object> deleteFireStation(@PathVariable Long id) {
         logger.info("Received request to delete fire station by id: {}", id);
         return fireStationRepository.findById(id)
                 .map(fireStation -> {
+                    // Its people go with it (cascade), so its counter goes too. The cascade loads them anyway, so each gets its own delete event
+                    if (fireStation.getPeople() != null) {
+                        fireStation.getPeople().forEach(person -> changeEventService.record("person", "delete", person.getId(), null));
+                    }
                     fireStationRepository.delete(fireStation);
+                    changeEventService.record("fireStation", "delete", id, null);
+                    stationCounterService.stationDeleted(fireStation.getId());
+                    personSnapshotService.stationChanged(fireStation.getId());
+                    fireStationService.invalidateRosters(List.of(fireStation.getStationNumber()));
                     return ResponseEntity.noContent().build();
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -1,18 +1,36 @@
 package com.example.firestation.controller;
 
+import com.example.firestation.model.BatchResult;
+import com.example.firestation.model.ExportRow;
 import com.example.firestation.model.FireStation;
 import com.example.firestation.model.Person;
+import com.example.firestation.model.PersonView;
 import com.example.firestation.repository.FireStationRepository;
 import com.example.firestation.repository.PersonRepository;
+import com.example.firestation.service.ChangeEventService;
+import com.example.firestation.service.FireStationService;
+import com.example.firestation.service.PersonBatchService;
+import com.example.firestation.service.PersonSnapshotService;
+import com.example.firestation.service.StationCounterService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 // This is the same as the fire station where this mapping is for all methods unless otherwise specified
 @RestController
@@ -23,6 +41,24 @@ public class PersonController {
 
     @Autowired
     private FireStationRepository fireStationRepository;
+
+    @Autowired
+    private PersonBatchService personBatchService;
+
+    @Autowired
+    private FireStationService fireStationService;
+
+    @Autowired
+    private StationCounterService stationCounterService;
+
+    @Autowired
+    private PersonSnapshotService personSnapshotService;
+
+    @Autowired
+    private ChangeEventService changeEventService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
     private final Logger logger = LoggerFactory.getLogger(PersonController.class);
 
     /**
@@ -37,6 +73,37 @@ public class PersonController {
         return ResponseEntity.ok(people);
     }
 
+    /**
+     * Streams all people as newline delimited json (one person per line) when the request asks for application/x-ndjson. Rows are written as they come off the database cursor, so memory use doesn't grow with the size of the table
+     *
+     * @param response the response the people are written to
+     *
+     * @throws IOException if the client goes away while streaming
+     */
+    @GetMapping(produces = "application/x-ndjson")
+    @Transactional(readOnly = true)
+    public void streamAllPeople(HttpServletResponse response) throws IOException {
+        logger.info("Received request to stream all people");
+        long start = System.nanoTime();
+        long firstByte = -1;
+        long count = 0;
+        response.setContentType("application/x-ndjson");
+        OutputStream out = response.getOutputStream();
+        try (Stream<PersonView> people = personRepository.streamAllPeople()) {
+            for (PersonView person : (Iterable<PersonView>) people::iterator) {
+                out.write(objectMapper.writeValueAsBytes(person));
+                out.write('\n');
+                // Flush the first row right away so the client gets something without waiting for a full buffer
+                if (count++ == 0) {
+                    out.flush();
+                    firstByte = System.nanoTime() - start;
+                }
+            }
+        }
+        out.flush();
+        logger.info("Streamed {} people, first byte after {} ms, finished after {} ms", count, firstByte / 1_000_000, (System.nanoTime() - start) / 1_000_000);
+    }
+
     /**
      * Saves a person to the db, also adding them to a fire station.
      *
@@ -45,16 +112,60 @@ public class PersonController {
      * @return a response entity with the person and created status, or throws an error if the fire station doesn't exist
      */
     @PostMapping
+    @Transactional
     public ResponseEntity<Person> addPerson(@RequestBody @Valid Person person) {
         logger.info("Received request to add a new Person: {}", person);
-        // Use this to add a person. First get the fire station (if it exists), set the fire station to the person, add the person to the fire station, save the person to the db and then return status created.
+        // Use this to add a person. First get the fire station (if it exists), set the fire station to the person, save the person to the db and then return status created.
+        // The person owns the relationship (fireStation_id), so the station's people list isn't touched, that would load everyone the station serves just to add one person.
         FireStation fireStation = fireStationRepository.findById(person.getFireStationId()).orElseThrow(() -> new RuntimeException("FireStation not found"));
         person.setFireStation(fireStation);
-        fireStation.getPeople().add(person);
         Person savedPerson = personRepository.save(person);
+        // Same transaction as the save, so the station's counts can't end up out of step with its people if either fails
+        stationCounterService.personAdded(fireStation.getId(), person.getAge());
+        personSnapshotService.peopleChanged(List.of(savedPerson.getId()));
+        changeEventService.record("person", "create", savedPerson.getId(), ExportRow.of(savedPerson, fireStation.getStationNumber()));
+        fireStationService.invalidateRosters(List.of(fireStation.getStationNumber()));
         return new ResponseEntity<>(savedPerson, HttpStatus.CREATED);
     }
 
+    /**
+     * Saves a json array of people to the db in batches. Unlike adding people one by one, each fire station is only looked up once, and one bad row doesn't stop the rest from being saved
+     *
+     * @param people the people to be saved to the db
+     *
+     * @return a response entity with the status of each row and an ok status
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BatchResult>> addPeople(@RequestBody List<Person> people) {
+        logger.info("Received request to add {} People", people.size());
+        return ResponseEntity.ok(savePeople(people.iterator()));
+    }
+
+    /**
+     * Same as above, but the people are newline delimited json (one person per line) which is read while it's being saved, so big imports don't have to fit in memory first
+     *
+     * @param request the request to read the people from
+     *
+     * @return a response entity with the status of each row and an ok status
+     *
+     * @throws IOException if the request body can't be read
+     */
+    @PostMapping(value = "/batch", consumes = "application/x-ndjson")
+    public ResponseEntity<List<BatchResult>> addPeopleStream(HttpServletRequest request) throws IOException {
+        logger.info("Received request to add a stream of People");
+        Iterator<Person> people = objectMapper.readerFor(Person.class).readValues(request.getInputStream());
+        return ResponseEntity.ok(savePeople(people));
+    }
+
+    // Saves the people and logs how fast it went
+    private List<BatchResult> savePeople(Iterator<Person> people) {
+        long start = System.nanoTime();
+        List<BatchResult> results = personBatchService.addPeople(people);
+        double seconds = Math.max(System.nanoTime() - start, 1) / 1_000_000_000.0;
+        logger.info("Saved {} rows in {} ms ({} rows/sec)", results.size(), Math.round(seconds * 1000), Math.round(results.size() / seconds));
+        return results;
+    }
+
     /**
      * Updates a person with new details using an id to find the old person to replace, and Person for the new information
      *
@@ -64,10 +175,13 @@ public class PersonController {
      * @return response entity with not found or ok and the update person depending on the circumstances
      */
     @PutMapping("/{id}")
+    @Transactional
     public ResponseEntity<Person> updatePerson(@PathVariable Long id, @RequestBody @Valid Person personDetails) {
         logger.info("Received request to update a person with id: {}", id);
         return personRepository.findById(id)
                 .map(person -> {
+                    // Their old station and age are taken off the old station's counts before they change
+                    int oldAge = person.getAge();
                     person.setFirstName(personDetails.getFirstName());
                     person.setLastName(personDetails.getLastName());
                     person.setAddress(personDetails.getAddress());
@@ -76,32 +190,51 @@ public class PersonController {
                     person.setFireStationId(personDetails.getFireStationId());
                     FireStation fireStation = fireStationRepository.findById(personDetails.getFireStationId())
                             .orElseThrow(() -> new RuntimeException("Fire station not found"));
+                    // Moving to the new fire station only changes fireStation_id on the person, neither station's people list gets loaded
+                    FireStation oldFireStation = person.getFireStation();
                     person.setFireStation(fireStation);
-                    FireStation existingFireStation = person.getFireStation();
-                    // Remove from old fire station, add to new
-                    existingFireStation.getPeople().remove(person);
-                    existingFireStation.getPeople().add(person);
+                    person.touch();
                     Person updatedPerson = personRepository.save(person);
+                    // Flushed so the updatedAt stamped on the update is the one in the event
+                    personRepository.flush();
+                    if (oldFireStation != null) {
+                        stationCounterService.personRemoved(oldFireStation.getId(), oldAge);
+                    }
+                    stationCounterService.personAdded(fireStation.getId(), updatedPerson.getAge());
+                    personSnapshotService.peopleChanged(List.of(id));
+                    changeEventService.record("person", "update", id, ExportRow.of(updatedPerson, fireStation.getStationNumber()));
+                    // Both the old and new station rosters have changed
+                    List<Integer> stationNumbers = new ArrayList<>(List.of(fireStation.getStationNumber()));
+                    if (oldFireStation != null) {
+                        stationNumbers.add(oldFireStation.getStationNumber());
+                    }
+                    fireStationService.invalidateRosters(stationNumbers);
                     return ResponseEntity.ok(updatedPerson);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
     /**
-     * Deletes a person using an id, using the personRepository to find that person in the first place. Also removes them from their fire station
+     * Deletes a person using an id, using the personRepository to find that person in the first place. This also takes them off their fire station
      *
      * @param id the id of the person to bee deleted
      *
      * @return a response entity with either no content or not found depending on the circumstance
      */
     @DeleteMapping("/{id}")
+    @Transactional
     public ResponseEntity<Object> deletePerson(@PathVariable Long id) {
         logger.info("Received request to delete a person with id: {}", id);
         return personRepository.findById(id)
                 .map(person -> {
-                    FireStation fireStation = person.getFireStation();
-                    fireStation.getPeople().remove(person);
+                    // Deleting the person row is enough, the station's people list doesn't need to be loaded to take them out of it
                     personRepository.delete(person);
+                    personSnapshotService.peopleChanged(List.of(id));
+                    changeEventService.record("person", "delete", id, null);
+                    if (person.getFireStation() != null) {
+                        stationCounterService.personRemoved(person.getFireStation().getId(), person.getAge());
+                        fireStationService.invalidateRosters(List.of(person.getFireStation().getStationNumber()));
+                    }
                     return ResponseEntity.noContent().build();
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -0,0 +1,75 @@
+package com.example.firestation.controller;
+
+import com.example.firestation.model.AddressCount;
+import com.example.firestation.model.AgeHistogram;
+import com.example.firestation.service.PersonSnapshotService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+// Coverage stats for the dashboards. These are answered from the in memory person snapshot, never from the db, and need firestation.snapshot.enabled=true
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+    @Autowired
+    private PersonSnapshotService personSnapshotService;
+    private final Logger logger = LoggerFactory.getLogger(StatsController.class);
+
+    /**
+     * Gets whether the snapshot is on and ready, how many people and addresses it has and when it was last built
+     *
+     * @return an OK response entity with the snapshot stats
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getSnapshotStats() {
+        logger.info("Received a request to get the person snapshot stats");
+        return ResponseEntity.ok(personSnapshotService.getStats());
+    }
+
+    /**
+     * Gets the age histogram of each station number, or of just one
+     *
+     * @param stationNumber the station number to get the histogram for, every station if it's left out
+     * @param bucketWidth how many years each bucket covers
+     *
+     * @return an OK response entity with the histograms, bad request if the bucket width isn't between 1 and 120, or service unavailable if the snapshot is off or hasn't been built yet
+     */
+    @GetMapping("/ages")
+    public ResponseEntity<List<AgeHistogram>> getAgeHistograms(@RequestParam(value = "stationNumber", required = false) Integer stationNumber,
+                                                               @RequestParam(value = "bucketWidth", defaultValue = "10") int bucketWidth) {
+        logger.info("Received a request to get age histograms for station {}", stationNumber == null ? "all" : stationNumber);
+        if (bucketWidth < 1 || bucketWidth > 120) {
+            return ResponseEntity.badRequest().build();
+        }
+        return personSnapshotService.getAgeHistograms(stationNumber, bucketWidth)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
+    /**
+     * Gets the addresses with the most people living at them
+     *
+     * @param limit how many addresses to return
+     *
+     * @return an OK response entity with the addresses and their number of people, most first, bad request if the limit isn't between 1 and 1000, or service unavailable if the snapshot is off or hasn't been built yet
+     */
+    @GetMapping("/addresses")
+    public ResponseEntity<List<AddressCount>> getTopAddresses(@RequestParam(value = "limit", defaultValue = "20") int limit) {
+        logger.info("Received a request to get the top {} addresses", limit);
+        if (limit < 1 || limit > 1000) {
+            return ResponseEntity.badRequest().build();
+        }
+        return personSnapshotService.getTopAddresses(limit)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+}
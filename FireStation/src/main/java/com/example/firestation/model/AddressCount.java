@@ -0,0 +1,5 @@
+package com.example.firestation.model;
+
+// How many people live at an address
+public record AddressCount(String address, long people) {
+}
@@ -0,0 +1,5 @@
+package com.example.firestation.model;
+
+// Ages of everyone a station number covers. counts[i] is how many people are between i * bucketWidth and (i + 1) * bucketWidth - 1, the last bucket also has everyone older.
+public record AgeHistogram(int stationNumber, int bucketWidth, long[] counts) {
+}
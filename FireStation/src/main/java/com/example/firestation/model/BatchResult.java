@@ -0,0 +1,13 @@
+package com.example.firestation.model;
+
+// Status of one row from POST /person/batch. Row is the position in the request (starting at 0), id is only set if the person was created and error is only set if they weren't.
+public record BatchResult(int row, String status, Long id, String error) {
+
+    public static BatchResult created(int row, long id) {
+        return new BatchResult(row, "CREATED", id, null);
+    }
+
+    public static BatchResult failed(int row, String error) {
+        return new BatchResult(row, "FAILED", null, error);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.firestation.model;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+// What GET /export can write the people as
+public enum ExportFormat {
+    NDJSON("ndjson", "application/x-ndjson"),
+    CSV("csv", "text/csv");
+
+    private final String name;
+    private final String contentType;
+
+    ExportFormat(String name, String contentType) {
+        this.name = name;
+        this.contentType = contentType;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    // By the name used in ?format=, empty if it isn't one
+    public static Optional<ExportFormat> of(String name) {
+        return Arrays.stream(values()).filter(format -> format.name.equalsIgnoreCase(name)).findFirst();
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.firestation.model;
+
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+// One person as GET /export writes them. The json fields come out in this order, and updatedAt is already formatted so it always has the same number of digits.
+// Change events for people carry the same row, so a copy made from an export can be kept up to date with GET /events
+public record ExportRow(long id, String firstName, String lastName, String address, String phoneNumber, int age, Long fireStationId, Integer stationNumber, String updatedAt) {
+
+    public static final DateTimeFormatter UPDATED_AT = DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss.SSSSSS'Z'").withZone(ZoneOffset.UTC);
+
+    // The fire station id is the one set on the person by the request, so the station itself doesn't have to be loaded
+    public static ExportRow of(Person person, int stationNumber) {
+        return new ExportRow(person.getId(), person.getFirstName(), person.getLastName(), person.getAddress(), person.getPhoneNumber(), person.getAge(),
+                person.getFireStationId(), stationNumber, UPDATED_AT.format(person.getUpdatedAt()));
+    }
+}
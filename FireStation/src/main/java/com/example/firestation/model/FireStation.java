@@ -5,6 +5,8 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
@@ -12,6 +14,9 @@ import java.util.List;
 @Setter
 @Entity
 @Table(name="FireStationTable")
+// Stations get looked up every time a person is added or moved but hardly ever change themselves, so they're kept in Hibernate's second level cache (see hibernate-cache.conf for the region)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "fireStations")
 public class FireStation {
 
     // Setters and getters
@@ -0,0 +1,9 @@
+package com.example.firestation.model;
+
+// A fire station without its people, what a fire station change event carries. The entity's json has everyone the station serves in it
+public record FireStationView(long id, int stationNumber, String address) {
+
+    public static FireStationView of(FireStation fireStation) {
+        return new FireStationView(fireStation.getId(), fireStation.getStationNumber(), fireStation.getAddress());
+    }
+}
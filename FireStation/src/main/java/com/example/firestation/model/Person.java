@@ -1,11 +1,17 @@
 package com.example.firestation.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 @Setter
 @Getter
@@ -14,9 +20,9 @@ import lombok.Setter;
 public class Person {
 
     // Setters and getters
-    // Person ID
+    // Person ID. Same as FireStation this comes from a sequence (50 ids at a time) instead of IDENTITY, so Hibernate knows the id before inserting and can send inserts in batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue
     private long id;
 
     @NotNull(message = "firstName cannot be null!")
@@ -40,6 +46,13 @@ public class Person {
     @Transient
     private long fireStationId;
 
+    // When the row last changed, GET /export?since= goes by it. Stamped right before the insert or update instead of when the object is made, so a person read from a request a while before it's saved isn't written out already in the past.
+    // Changing only a list doesn't update the row by itself, touch() makes the person count as changed for that. The bulk updates and imports that skip the entity set it themselves.
+    // Kept to microseconds since that's all the column holds, and never part of the json
+    @JsonIgnore
+    @JdbcTypeCode(SqlTypes.TIMESTAMP)
+    private Instant updatedAt;
+
     // Constructors
     public Person(long id, String firstName, String lastName, String address, String phoneNumber, int age, FireStation fireStation) {
         this.id = id;
@@ -73,4 +86,18 @@ public class Person {
 
     }
 
+    public static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void stampUpdatedAt() {
+        updatedAt = now();
+    }
+
+    public void touch() {
+        updatedAt = now();
+    }
+
 }
@@ -0,0 +1,5 @@
+package com.example.firestation.model;
+
+// Read-only copy of a person row used when streaming the whole table. Rows come straight from the query so nothing builds up in the persistence context while streaming.
+public record PersonView(long id, String firstName, String lastName, String address, String phoneNumber, int age, Long fireStationId) {
+}
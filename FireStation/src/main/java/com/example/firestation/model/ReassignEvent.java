@@ -0,0 +1,7 @@
+package com.example.firestation.model;
+
+import java.util.List;
+
+// What a reassign change event carries. People are moved with bulk updates, so instead of an event per person there's one saying who moved (everyone at fromFireStationId or everyone at the addresses) and where to
+public record ReassignEvent(Long fromFireStationId, List<String> addresses, long toFireStationId, int stationNumber, int moved) {
+}
@@ -0,0 +1,7 @@
+package com.example.firestation.model;
+
+import java.util.List;
+
+// Body of POST /firestation/{id}/reassign. Exactly one of these should be set, either everyone at a fire station or everyone living at one of the addresses gets moved.
+public record ReassignRequest(Long fromFireStationId, List<String> addresses) {
+}
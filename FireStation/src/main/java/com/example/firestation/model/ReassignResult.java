@@ -0,0 +1,7 @@
+package com.example.firestation.model;
+
+import java.util.Map;
+
+// Answer to POST /firestation/{id}/reassign. Moved is the number of people that changed station, movedFrom splits that up by the station number they used to have.
+public record ReassignResult(long fireStationId, int stationNumber, int moved, Map<Integer, Long> movedFrom) {
+}
@@ -0,0 +1,5 @@
+package com.example.firestation.model;
+
+// What a counter reconciliation found. Added and removed are counters for stations that didn't have one or don't exist anymore, repaired are counters that didn't match a full count.
+public record ReconcileResult(int added, int removed, int repaired) {
+}
@@ -0,0 +1,7 @@
+package com.example.firestation.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+// Read-only row for a station roster. Only the columns the roster needs are selected, so no Person or FireStation entities get loaded. Age is only used for the adult/child counts, so it's left out of the json.
+public record RosterEntry(String firstName, String lastName, String address, String phone, @JsonIgnore int age) {
+}
@@ -0,0 +1,86 @@
+package com.example.firestation.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// Read-only list of roster entries packed for the roster cache. A List<RosterEntry> costs a record and four Strings (each with its own byte array) per person, here every name and phone number is a slice of one shared byte array and the address is a code into the station's distinct addresses.
+// Entries are made again when they're read, which is what the json writer does, so this serializes the same as the list it was built from
+public final class RosterRows extends AbstractList<RosterEntry> implements RandomAccess {
+
+    // Each row has three fields in text, first name, last name and phone number
+    private static final int FIELDS = 3;
+
+    private final byte[] text;
+    // Where each field starts in text, a field ends where the next one starts
+    private final int[] starts;
+    // Fields that were null rather than empty, both take no bytes. The columns are not null so this is nearly always empty
+    private final BitSet nulls;
+    private final int[] addressCodes;
+    private final String[] addresses;
+    private final short[] ages;
+
+    private RosterRows(byte[] text, int[] starts, BitSet nulls, int[] addressCodes, String[] addresses, short[] ages) {
+        this.text = text;
+        this.starts = starts;
+        this.nulls = nulls;
+        this.addressCodes = addressCodes;
+        this.addresses = addresses;
+        this.ages = ages;
+    }
+
+    public static RosterRows of(List<RosterEntry> entries) {
+        int size = entries.size();
+        int[] starts = new int[size * FIELDS + 1];
+        BitSet nulls = new BitSet();
+        int[] addressCodes = new int[size];
+        short[] ages = new short[size];
+        Map<String, Integer> addressIndex = new HashMap<>();
+        List<String> addresses = new ArrayList<>();
+        byte[] text = new byte[Math.max(size * 24, 16)];
+        int length = 0;
+        for (int row = 0; row < size; row++) {
+            RosterEntry entry = entries.get(row);
+            String[] fields = {entry.firstName(), entry.lastName(), entry.phone()};
+            for (int i = 0; i < FIELDS; i++) {
+                int field = row * FIELDS + i;
+                starts[field] = length;
+                if (fields[i] == null) {
+                    nulls.set(field);
+                    continue;
+                }
+                byte[] encoded = fields[i].getBytes(StandardCharsets.UTF_8);
+                if (length + encoded.length > text.length) {
+                    text = Arrays.copyOf(text, Math.max(text.length * 2, length + encoded.length));
+                }
+                System.arraycopy(encoded, 0, text, length, encoded.length);
+                length += encoded.length;
+            }
+            addressCodes[row] = addressIndex.computeIfAbsent(entry.address(), address -> {
+                addresses.add(address);
+                return addresses.size() - 1;
+            });
+            ages[row] = (short) entry.age();
+        }
+        starts[size * FIELDS] = length;
+        return new RosterRows(Arrays.copyOf(text, length), starts, nulls, addressCodes, addresses.toArray(new String[0]), ages);
+    }
+
+    @Override
+    public RosterEntry get(int index) {
+        Objects.checkIndex(index, ages.length);
+        int field = index * FIELDS;
+        return new RosterEntry(field(field), field(field + 1), addresses[addressCodes[index]], field(field + 2), ages[index]);
+    }
+
+    @Override
+    public int size() {
+        return ages.length;
+    }
+
+    private String field(int field) {
+        if (nulls.get(field)) {
+            return null;
+        }
+        return new String(text, starts[field], starts[field + 1] - starts[field], StandardCharsets.UTF_8);
+    }
+}
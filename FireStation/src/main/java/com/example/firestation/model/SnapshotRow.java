@@ -0,0 +1,5 @@
+package com.example.firestation.model;
+
+// The columns of a person that the stats snapshot keeps, read straight from the query without loading entities
+public record SnapshotRow(long id, int age, Long fireStationId, String address) {
+}
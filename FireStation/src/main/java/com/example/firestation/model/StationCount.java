@@ -0,0 +1,5 @@
+package com.example.firestation.model;
+
+// Number of people at a fire station, used to count who a reassignment is about to move
+public record StationCount(long fireStationId, int stationNumber, long people) {
+}
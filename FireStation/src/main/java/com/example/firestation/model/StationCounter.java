@@ -0,0 +1,34 @@
+package com.example.firestation.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Entity
+// One row per fire station with how many adults and children it covers. It's only ever changed with update statements that add to the counts (see StationCounterRepository), so two people being added at once can't overwrite each other's change
+@Table(name="StationCounterTable")
+public class StationCounter {
+
+    // Same id as the fire station, there's no relationship mapped so changing a counter never touches the cached fire station
+    @Id
+    private long fireStationId;
+
+    // Adults are over 18, same as the roster counts
+    private int adultCount;
+    private int childCount;
+
+    // Constructors
+    public StationCounter(long fireStationId, int adultCount, int childCount) {
+        this.fireStationId = fireStationId;
+        this.adultCount = adultCount;
+        this.childCount = childCount;
+    }
+
+    public StationCounter() {
+
+    }
+}
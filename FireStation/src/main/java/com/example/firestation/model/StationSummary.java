@@ -0,0 +1,5 @@
+package com.example.firestation.model;
+
+// Answer to GET /firestation/{stationNumber}/summary. The counts are added up over every fire station with the station number.
+public record StationSummary(int stationNumber, long adultCount, long childCount) {
+}
@@ -1,12 +1,71 @@
 package com.example.firestation.repository;
 
+import com.example.firestation.model.FireStation;
 import com.example.firestation.model.Person;
+import com.example.firestation.model.PersonView;
+import com.example.firestation.model.RosterEntry;
+import com.example.firestation.model.SnapshotRow;
+import com.example.firestation.model.StationCount;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 // Repository for People, uses JPA built in methods to get first station station number.
 public interface PersonRepository extends JpaRepository<Person, Long> {
-    List<Person> findByFireStationStationNumber(int stationNumber);
+    // Written out as an inner join, the derived version left joins the station so the database has to start from every person instead of from the station number index
+    @Query("select p from Person p join p.fireStation f where f.stationNumber = :stationNumber")
+    List<Person> findByFireStationStationNumber(@Param("stationNumber") int stationNumber);
     List<Person> findByFirstNameAndLastName(String firstName, String lastName);
+
+    // Same lookup as findByFireStationStationNumber, but only selects the roster columns into a record instead of loading full entities.
+    // Not in the query cache, StationRosterCache already keeps the response each station's roster is built into
+    @Query("select new com.example.firestation.model.RosterEntry(p.firstName, p.lastName, p.address, p.phoneNumber, p.age) " +
+            "from Person p join p.fireStation f where f.stationNumber = :stationNumber")
+    List<RosterEntry> findRosterByStationNumber(@Param("stationNumber") int stationNumber);
+
+    // Forward only cursor over every person, has to be used inside a transaction and closed after. The fetch size keeps the driver from reading the whole table at once
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.firestation.model.PersonView(p.id, p.firstName, p.lastName, p.address, p.phoneNumber, p.age, f.id) " +
+            "from Person p left join p.fireStation f")
+    Stream<PersonView> streamAllPeople();
+
+    // Bulk updates for moving people between stations. They go straight to the db, so the persistence context is flushed before and cleared after to keep it from holding people with their old station.
+    // Hibernate knows they change person_table, so cached queries over people are thrown away too. They skip the entity, so they set updatedAt themselves
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Person p set p.fireStation = :to, p.updatedAt = :now where p.fireStation = :from")
+    int reassignFireStation(@Param("from") FireStation from, @Param("to") FireStation to, @Param("now") Instant now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Person p set p.fireStation = :to, p.updatedAt = :now where p.address in :addresses and p.fireStation <> :to")
+    int reassignAddresses(@Param("addresses") List<String> addresses, @Param("to") FireStation to, @Param("now") Instant now);
+
+    // The export has each person's station number in it, so when a station's number changes its people count as changed too
+    @Modifying(flushAutomatically = true)
+    @Query("update Person p set p.updatedAt = :now where p.fireStation.id = :fireStationId")
+    int touchByFireStationId(@Param("fireStationId") long fireStationId, @Param("now") Instant now);
+
+    // Who reassignAddresses is about to move, by the fire station they're at now
+    @Query("select new com.example.firestation.model.StationCount(f.id, f.stationNumber, count(p)) " +
+            "from Person p join p.fireStation f where p.address in :addresses and f <> :to group by f.id, f.stationNumber")
+    List<StationCount> countByAddressesNotAtFireStation(@Param("addresses") List<String> addresses, @Param("to") FireStation to);
+
+    // For the stats snapshot. Ordered by id so the snapshot's rows are built already sorted, which is the primary key order so the db doesn't have to sort
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.example.firestation.model.SnapshotRow(p.id, p.age, p.fireStation.id, p.address) from Person p order by p.id")
+    Stream<SnapshotRow> streamSnapshotRows();
+
+    @Query("select new com.example.firestation.model.SnapshotRow(p.id, p.age, p.fireStation.id, p.address) from Person p where p.id in :ids")
+    List<SnapshotRow> findSnapshotRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select new com.example.firestation.model.SnapshotRow(p.id, p.age, p.fireStation.id, p.address) from Person p where p.fireStation.id = :fireStationId")
+    List<SnapshotRow> findSnapshotRowsByFireStationId(@Param("fireStationId") long fireStationId);
 }
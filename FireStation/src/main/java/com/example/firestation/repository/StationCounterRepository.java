@@ -0,0 +1,51 @@
+package com.example.firestation.repository;
+
+import com.example.firestation.model.StationCounter;
+import com.example.firestation.model.StationSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// Repository for the per station counters. Everything that changes them is a single update statement in the db, so concurrent writes add up instead of one overwriting the other
+public interface StationCounterRepository extends JpaRepository<StationCounter, Long> {
+
+    // Starts from the station number index and then reads one counter row per station, no people are read
+    @Query("select new com.example.firestation.model.StationSummary(f.stationNumber, sum(c.adultCount), sum(c.childCount)) " +
+            "from StationCounter c join FireStation f on f.id = c.fireStationId where f.stationNumber = :stationNumber group by f.stationNumber")
+    Optional<StationSummary> findSummaryByStationNumber(@Param("stationNumber") int stationNumber);
+
+    // Returns how many rows changed, 0 means the station has no counter row yet
+    @Modifying(flushAutomatically = true)
+    @Query("update StationCounter c set c.adultCount = c.adultCount + :adults, c.childCount = c.childCount + :children where c.fireStationId = :fireStationId")
+    int increment(@Param("fireStationId") long fireStationId, @Param("adults") int adults, @Param("children") int children);
+
+    // Counts the people at these stations again from scratch. It's one statement per call, so it sees the people as they are at that moment
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update StationCounter c set " +
+            "c.adultCount = (select count(p) from Person p where p.fireStation.id = c.fireStationId and p.age > 18), " +
+            "c.childCount = (select count(p) from Person p where p.fireStation.id = c.fireStationId and p.age <= 18) " +
+            "where c.fireStationId in :fireStationIds")
+    int recount(@Param("fireStationIds") Collection<Long> fireStationIds);
+
+    // Stations whose counters don't match a full count of their people
+    @Query("select c.fireStationId from StationCounter c where " +
+            "c.adultCount <> (select count(p) from Person p where p.fireStation.id = c.fireStationId and p.age > 18) or " +
+            "c.childCount <> (select count(p) from Person p where p.fireStation.id = c.fireStationId and p.age <= 18)")
+    List<Long> findDrifted();
+
+    // Adds a zero counter for every station that doesn't have one, findDrifted picks them up after if they have people
+    @Modifying(flushAutomatically = true)
+    @Query("insert into StationCounter (fireStationId, adultCount, childCount) select f.id, 0, 0 from FireStation f " +
+            "where not exists (select 1 from StationCounter c where c.fireStationId = f.id)")
+    int insertMissing();
+
+    // Counters left behind by stations that are gone
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from StationCounter c where not exists (select 1 from FireStation f where f.id = c.fireStationId)")
+    int deleteOrphaned();
+}
@@ -1,9 +1,11 @@
 package com.example.firestation.service;
 
-import com.example.firestation.model.Person;
+import com.example.firestation.model.RosterEntry;
+import com.example.firestation.model.RosterRows;
 import com.example.firestation.repository.PersonRepository;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -17,53 +19,61 @@ import java.util.*;
 public class FireStationService implements FireStationServiceInterface{
 
     private PersonRepository personRepository;
+    private StationRosterCache stationRosterCache;
 
     // Can have the constructor be autowired so it autowires everything in the constructor
     @Autowired
-    public FireStationService(PersonRepository personRepository) {
+    public FireStationService(PersonRepository personRepository, StationRosterCache stationRosterCache) {
         this.personRepository = personRepository;
+        this.stationRosterCache = stationRosterCache;
     }
 
-    // Use a Map so the keys of the key value pair are unique
+    // Rosters are read a lot more than they change, so they come from the cache when they can
     @Override
     public Map<String, Object> getPeopleByStation(int stationNumber) {
-        List<Person> people = personRepository.findByFireStationStationNumber(stationNumber);
+        return stationRosterCache.get(stationNumber, () -> loadPeopleByStation(stationNumber));
+    }
+
+    // Has to be called by anything that adds, moves or removes people or changes a station number, otherwise the old roster keeps being served
+    @Override
+    public void invalidateRosters(Collection<Integer> stationNumbers) {
+        stationRosterCache.invalidate(stationNumbers);
+    }
+
+    @Override
+    public Map<String, Object> getRosterCacheStats() {
+        return stationRosterCache.stats();
+    }
+
+    // Use a Map so the keys of the key value pair are unique
+    private Map<String, Object> loadPeopleByStation(int stationNumber) {
+        // Only the roster columns are selected, so there are no entities or per person maps to build here
+        List<RosterEntry> people = personRepository.findRosterByStationNumber(stationNumber);
 
         // If the Map is empty, return an empty Map.
         if (people.isEmpty()) {
             return Collections.emptyMap();
         }
 
-        // Ints for number of children and adults that have been served.
+        // Ints for number of children and adults that have been served, counted in the same pass over the rows.
         int adultCount = 0;
         int childCount = 0;
-        List<Map<String, String>> personInfo = new ArrayList<>();
-
-        for (Person person : people) {
-            // Get the people
-            Map<String, String> personData = new HashMap<>();
-            personData.put("firstName", person.getFirstName());
-            personData.put("lastName", person.getLastName());
-            personData.put("address", person.getAddress());
-            personData.put("phone", person.getPhoneNumber());
-
-            // Increase the respective counts for the people
-            if (person.getAge() > 18) {
+        for (RosterEntry person : people) {
+            if (person.age() > 18) {
                 adultCount++;
             } else {
                 childCount++;
             }
-            // Add the data to the Map List
-            personInfo.add(personData);
         }
 
         // Add everything to a response so it can easily be returned
         Map<String, Object> response = new HashMap<>();
-        response.put("people", personInfo);
+        // Cached rosters can be kept for a long time and some stations cover a lot of people, so the cache holds the packed copy instead of the entries from the query
+        response.put("people", RosterRows.of(people));
         response.put("adultCount", adultCount);
         response.put("childCount", childCount);
 
-        return response;
+        // The same map is handed out to everyone who reads this station from the cache, so it can't be changed
+        return Collections.unmodifiableMap(response);
     }
 }
-
@@ -1,7 +1,10 @@
 package com.example.firestation.service;
 
+import java.util.Collection;
 import java.util.Map;
 
 public interface FireStationServiceInterface {
     Map<String, Object> getPeopleByStation(int stationNumber);
+    void invalidateRosters(Collection<Integer> stationNumbers);
+    Map<String, Object> getRosterCacheStats();
 }
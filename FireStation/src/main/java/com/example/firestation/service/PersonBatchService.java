@@ -0,0 +1,142 @@
+package com.example.firestation.service;
+
+import com.example.firestation.model.BatchResult;
+import com.example.firestation.model.ExportRow;
+import com.example.firestation.model.FireStation;
+import com.example.firestation.model.Person;
+import com.example.firestation.repository.FireStationRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+// Use this service to add a lot of people at once, like for an import. Each fire station is only looked up once and people are inserted in JDBC batches.
+// Every batch is written in its own transaction, so a batch the db turns down only rolls back its own people, and a row is only reported as created once its batch has committed
+@Service
+public class PersonBatchService implements PersonBatchServiceInterface {
+
+    private FireStationRepository fireStationRepository;
+    private FireStationService fireStationService;
+    private StationCounterService stationCounterService;
+    private PersonSnapshotService personSnapshotService;
+    private ChangeEventService changeEventService;
+    private EntityManager entityManager;
+    private Validator validator;
+    private TransactionTemplate transactionTemplate;
+    private int batchSize;
+
+    // Can have the constructor be autowired so it autowires everything in the constructor
+    @Autowired
+    public PersonBatchService(FireStationRepository fireStationRepository, FireStationService fireStationService, StationCounterService stationCounterService, PersonSnapshotService personSnapshotService, ChangeEventService changeEventService, EntityManager entityManager, Validator validator,
+                              PlatformTransactionManager transactionManager, @Value("${firestation.batch-size:500}") int batchSize) {
+        this.fireStationRepository = fireStationRepository;
+        this.fireStationService = fireStationService;
+        this.stationCounterService = stationCounterService;
+        this.personSnapshotService = personSnapshotService;
+        this.changeEventService = changeEventService;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    // Takes an iterator so people can be read from the request while they're being saved instead of all being read first
+    @Override
+    public List<BatchResult> addPeople(Iterator<Person> people) {
+        List<BatchResult> results = new ArrayList<>();
+        // The station number for each fire station id (empty if it doesn't exist), so every station is only looked up once no matter how many people use it
+        Map<Long, Optional<Integer>> stations = new HashMap<>();
+        // The people waiting for the next batch and the rows they came from
+        List<Person> batch = new ArrayList<>(batchSize);
+        List<Integer> batchRows = new ArrayList<>(batchSize);
+        int row = 0;
+
+        while (people.hasNext()) {
+            Person person = people.next();
+            int currentRow = row++;
+
+            // Check the same things @Valid checks on the single person endpoint
+            Set<ConstraintViolation<Person>> violations = validator.validate(person);
+            if (!violations.isEmpty()) {
+                results.add(BatchResult.failed(currentRow, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(", "))));
+                continue;
+            }
+            Optional<Integer> stationNumber = stations.computeIfAbsent(person.getFireStationId(),
+                    id -> fireStationRepository.findById(id).map(FireStation::getStationNumber));
+            if (stationNumber.isEmpty()) {
+                results.add(BatchResult.failed(currentRow, "FireStation not found"));
+                continue;
+            }
+
+            batch.add(person);
+            batchRows.add(currentRow);
+            if (batch.size() == batchSize) {
+                writeBatch(batch, batchRows, stations, results);
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch, batchRows, stations, results);
+        }
+        // Failed rows are reported straight away and created ones once their batch is in, so put them back in request order
+        results.sort(Comparator.comparingInt(BatchResult::row));
+        return results;
+    }
+
+    private void writeBatch(List<Person> batch, List<Integer> batchRows, Map<Long, Optional<Integer>> stations, List<BatchResult> results) {
+        Set<Integer> stationNumbers = new HashSet<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Adults and children added to each fire station id, the counters are updated once per station instead of once per person
+                Map<Long, int[]> added = new HashMap<>();
+                for (Person person : batch) {
+                    int stationNumber = stations.get(person.getFireStationId()).orElseThrow();
+                    // A reference is enough to set the foreign key, it doesn't load the station or its people
+                    person.setFireStation(entityManager.getReference(FireStation.class, person.getFireStationId()));
+                    entityManager.persist(person);
+                    changeEventService.record("person", "create", person.getId(), ExportRow.of(person, stationNumber));
+                    added.computeIfAbsent(person.getFireStationId(), id -> new int[2])[person.getAge() > 18 ? 0 : 1]++;
+                    stationNumbers.add(stationNumber);
+                }
+                // Send the batch and empty the persistence context so memory doesn't grow with the size of the import
+                entityManager.flush();
+                entityManager.clear();
+                added.forEach((fireStationId, counts) -> stationCounterService.adjust(fireStationId, counts[0], counts[1]));
+            });
+        } catch (PersistenceException | DataAccessException | TransactionException e) {
+            // The whole batch was rolled back, so none of its people were saved even if the db only turned down one of them
+            String error = "not saved, rows " + batchRows.get(0) + " to " + batchRows.get(batchRows.size() - 1) + " were rolled back together: "
+                    + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            for (int batchRow : batchRows) {
+                results.add(BatchResult.failed(batchRow, error));
+            }
+            batch.clear();
+            batchRows.clear();
+            return;
+        }
+
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            ids.add(batch.get(i).getId());
+            results.add(BatchResult.created(batchRows.get(i), batch.get(i).getId()));
+        }
+        personSnapshotService.peopleChanged(ids);
+        // Every station that got someone new has a different roster now
+        fireStationService.invalidateRosters(stationNumbers);
+        batch.clear();
+        batchRows.clear();
+    }
+}
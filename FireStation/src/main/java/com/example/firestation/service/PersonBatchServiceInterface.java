@@ -0,0 +1,11 @@
+package com.example.firestation.service;
+
+import com.example.firestation.model.BatchResult;
+import com.example.firestation.model.Person;
+
+import java.util.Iterator;
+import java.util.List;
+
+public interface PersonBatchServiceInterface {
+    List<BatchResult> addPeople(Iterator<Person> people);
+}
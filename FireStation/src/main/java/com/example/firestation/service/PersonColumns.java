@@ -0,0 +1,175 @@
+package com.example.firestation.service;
+
+import com.example.firestation.model.AddressCount;
+
+import java.util.*;
+
+// Column store of the people table for the stats endpoints. Every person is a row number into parallel primitive arrays (id, age, station and address), so 10M people take about 180MB and a full scan is a tight loop over arrays instead of walking 10M objects.
+// Stations and addresses are dictionary encoded: each distinct value is stored once and the rows hold its code.
+// Rows are kept sorted by id so a changed person is found with a binary search. Deleted rows are only marked, they're dropped the next time the snapshot is rebuilt.
+// Not thread safe, PersonSnapshotService locks around it
+public final class PersonColumns {
+
+    // Ages are stored as shorts, a deleted row gets this age
+    private static final short DELETED = -1;
+    // Station code for someone without a fire station
+    private static final int NO_STATION = -1;
+    // Oldest age that gets its own bucket, everyone older goes in the last one
+    static final int MAX_AGE = 120;
+
+    private long[] ids;
+    private short[] ages;
+    private int[] stations;
+    private int[] addresses;
+    private int size;
+    private int deleted;
+
+    private final Map<Long, Integer> stationCodes = new HashMap<>();
+    private final List<Long> stationIds = new ArrayList<>();
+    private final Map<String, Integer> addressCodes = new HashMap<>();
+    private final List<String> addressValues = new ArrayList<>();
+
+    public PersonColumns(int capacity) {
+        int initial = Math.max(capacity, 16);
+        ids = new long[initial];
+        ages = new short[initial];
+        stations = new int[initial];
+        addresses = new int[initial];
+    }
+
+    // Number of people in the snapshot, not counting deleted rows
+    public int size() {
+        return size - deleted;
+    }
+
+    public int addressCount() {
+        return addressValues.size();
+    }
+
+    // Adds the person or replaces what's stored for them. People are usually added in id order (the snapshot is built ordered by id and new ids are higher), which is just an append
+    public void upsert(long id, int age, Long fireStationId, String address) {
+        int row = size > 0 && ids[size - 1] < id ? -(size + 1) : Arrays.binarySearch(ids, 0, size, id);
+        if (row < 0) {
+            row = -(row + 1);
+            if (size == ids.length) {
+                grow();
+            }
+            // Anything after the new row moves up one, only happens for an id lower than the highest one seen
+            if (row < size) {
+                System.arraycopy(ids, row, ids, row + 1, size - row);
+                System.arraycopy(ages, row, ages, row + 1, size - row);
+                System.arraycopy(stations, row, stations, row + 1, size - row);
+                System.arraycopy(addresses, row, addresses, row + 1, size - row);
+            }
+            size++;
+            ids[row] = id;
+        } else if (ages[row] == DELETED) {
+            deleted--;
+        }
+        ages[row] = (short) Math.min(Math.max(age, 0), Short.MAX_VALUE);
+        stations[row] = fireStationId == null ? NO_STATION : stationCodes.computeIfAbsent(fireStationId, key -> {
+            stationIds.add(key);
+            return stationIds.size() - 1;
+        });
+        addresses[row] = addressCodes.computeIfAbsent(address, key -> {
+            addressValues.add(key);
+            return addressValues.size() - 1;
+        });
+    }
+
+    public void remove(long id) {
+        int row = Arrays.binarySearch(ids, 0, size, id);
+        if (row >= 0 && ages[row] != DELETED) {
+            ages[row] = DELETED;
+            deleted++;
+        }
+    }
+
+    // Ids of everyone the snapshot has at this fire station
+    public List<Long> idsAtStation(long fireStationId) {
+        Integer code = stationCodes.get(fireStationId);
+        List<Long> result = new ArrayList<>();
+        if (code == null) {
+            return result;
+        }
+        for (int row = 0; row < size; row++) {
+            if (stations[row] == code && ages[row] != DELETED) {
+                result.add(ids[row]);
+            }
+        }
+        return result;
+    }
+
+    // Age histogram for each fire station id, only for the given ones if fireStationIds isn't null
+    public Map<Long, long[]> ageHistograms(int bucketWidth, Collection<Long> fireStationIds) {
+        int buckets = MAX_AGE / bucketWidth + 1;
+        // Which station codes to count, as a flag per code so the loop doesn't do a lookup per row
+        boolean[] wanted = new boolean[stationIds.size()];
+        if (fireStationIds == null) {
+            Arrays.fill(wanted, true);
+        } else {
+            for (Long fireStationId : fireStationIds) {
+                Integer code = stationCodes.get(fireStationId);
+                if (code != null) {
+                    wanted[code] = true;
+                }
+            }
+        }
+
+        // One flat array of counts, station code * buckets + bucket
+        long[] counts = new long[stationIds.size() * buckets];
+        for (int row = 0; row < size; row++) {
+            int age = ages[row];
+            int station = stations[row];
+            if (age == DELETED || station == NO_STATION || !wanted[station]) {
+                continue;
+            }
+            counts[station * buckets + Math.min(age / bucketWidth, buckets - 1)]++;
+        }
+
+        Map<Long, long[]> result = new HashMap<>();
+        for (int code = 0; code < wanted.length; code++) {
+            if (wanted[code]) {
+                result.put(stationIds.get(code), Arrays.copyOfRange(counts, code * buckets, (code + 1) * buckets));
+            }
+        }
+        return result;
+    }
+
+    // The addresses with the most people, most first
+    public List<AddressCount> topAddresses(int limit) {
+        int[] counts = new int[addressValues.size()];
+        for (int row = 0; row < size; row++) {
+            if (ages[row] != DELETED) {
+                counts[addresses[row]]++;
+            }
+        }
+
+        // Keeps the biggest ones seen so far, the smallest of those on top so it's the one pushed out
+        PriorityQueue<Integer> top = new PriorityQueue<>(Comparator.<Integer>comparingInt(code -> counts[code]).thenComparing(code -> addressValues.get(code), Comparator.reverseOrder()));
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] == 0) {
+                continue;
+            }
+            top.add(code);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<AddressCount> result = new ArrayList<>();
+        while (!top.isEmpty()) {
+            int code = top.poll();
+            result.add(new AddressCount(addressValues.get(code), counts[code]));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private void grow() {
+        int capacity = ids.length + (ids.length >> 1);
+        ids = Arrays.copyOf(ids, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        stations = Arrays.copyOf(stations, capacity);
+        addresses = Arrays.copyOf(addresses, capacity);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.firestation.service;
+
+import com.example.firestation.model.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+
+public interface PersonExportServiceInterface {
+    Instant exportUntil();
+    boolean changedBetween(Instant since, Instant until);
+    long export(ExportFormat format, Instant since, Instant until, OutputStream out) throws IOException;
+}
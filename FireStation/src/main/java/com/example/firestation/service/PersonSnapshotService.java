@@ -0,0 +1,287 @@
+package com.example.firestation.service;
+
+import com.example.firestation.model.AddressCount;
+import com.example.firestation.model.AgeHistogram;
+import com.example.firestation.model.FireStation;
+import com.example.firestation.model.SnapshotRow;
+import com.example.firestation.repository.FireStationRepository;
+import com.example.firestation.repository.PersonRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Use this service for the coverage stats (age histograms and people per address). It keeps a column copy of the person table in memory (see PersonColumns) and answers from that, so the stats never touch the db.
+// Only on when firestation.snapshot.enabled is true. The copy is rebuilt every firestation.snapshot.rebuild-interval, and in between the person writes tell it which people changed so it can read just those rows again
+@Service
+public class PersonSnapshotService implements PersonSnapshotServiceInterface {
+
+    private static final int ID_CHUNK = 1000;
+
+    private PersonRepository personRepository;
+    private FireStationRepository fireStationRepository;
+    private TransactionTemplate readOnlyTransaction;
+    private boolean enabled;
+    private final Logger logger = LoggerFactory.getLogger(PersonSnapshotService.class);
+
+    // Readers share the lock, applying changes and swapping in a rebuilt copy take it alone
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private PersonColumns columns;
+    // Fire station id to station number, read with the people and kept up to date by stationChanged, so the histograms don't have to ask the db which stations there are
+    private Map<Long, Integer> stationNumbers;
+    private Instant builtAt;
+    private long buildMillis;
+
+    // Changes are read from the db on one background thread after their transaction commits, in the order they committed, so a write doesn't wait for the snapshot
+    private ExecutorService refresher;
+    // People and stations changed while a rebuild is running. The rebuild might have read them before the change, so they're read again once it's swapped in
+    private Set<Long> changedDuringRebuild;
+    private Set<Long> stationsChangedDuringRebuild;
+
+    // Can have the constructor be autowired so it autowires everything in the constructor
+    @Autowired
+    public PersonSnapshotService(PersonRepository personRepository, FireStationRepository fireStationRepository, PlatformTransactionManager transactionManager, @Value("${firestation.snapshot.enabled:false}") boolean enabled) {
+        this.personRepository = personRepository;
+        this.fireStationRepository = fireStationRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        if (enabled) {
+            refresher = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("person-snapshot").daemon().factory());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    // Empty until the first build has finished (or if the snapshot is off)
+    @Override
+    public Optional<List<AgeHistogram>> getAgeHistograms(Integer stationNumber, int bucketWidth) {
+        Map<Long, Integer> stationNumbers = new HashMap<>();
+        Map<Long, long[]> byFireStation;
+        lock.readLock().lock();
+        try {
+            if (columns == null) {
+                return Optional.empty();
+            }
+            this.stationNumbers.forEach((fireStationId, number) -> {
+                if (stationNumber == null || number.equals(stationNumber)) {
+                    stationNumbers.put(fireStationId, number);
+                }
+            });
+            byFireStation = columns.ageHistograms(bucketWidth, stationNumbers.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Stations that share a number are added together, a station nobody lives at still gets an empty histogram
+        Map<Integer, long[]> byStationNumber = new TreeMap<>();
+        for (Integer number : stationNumbers.values()) {
+            byStationNumber.putIfAbsent(number, new long[PersonColumns.MAX_AGE / bucketWidth + 1]);
+        }
+        byFireStation.forEach((fireStationId, counts) -> {
+            long[] total = byStationNumber.get(stationNumbers.get(fireStationId));
+            for (int i = 0; i < counts.length; i++) {
+                total[i] += counts[i];
+            }
+        });
+        List<AgeHistogram> result = new ArrayList<>();
+        byStationNumber.forEach((number, counts) -> result.add(new AgeHistogram(number, bucketWidth, counts)));
+        return Optional.of(result);
+    }
+
+    @Override
+    public Optional<List<AddressCount>> getTopAddresses(int limit) {
+        lock.readLock().lock();
+        try {
+            return columns == null ? Optional.empty() : Optional.of(columns.topAddresses(limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("enabled", enabled);
+        lock.readLock().lock();
+        try {
+            response.put("ready", columns != null);
+            if (columns != null) {
+                response.put("people", columns.size());
+                response.put("addresses", columns.addressCount());
+                response.put("builtAt", builtAt.toString());
+                response.put("buildMillis", buildMillis);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return response;
+    }
+
+    // Called by anything that adds, changes or deletes people. The rows are read again once the transaction commits, deleted people just aren't found anymore
+    @Override
+    public void peopleChanged(Collection<Long> personIds) {
+        if (enabled && !personIds.isEmpty()) {
+            List<Long> ids = List.copyOf(personIds);
+            afterCommit(() -> refreshPeople(ids));
+        }
+    }
+
+    // Called when a station is added, renumbered or deleted, and when people are moved to a station or deleted with it in bulk, where the changed ids aren't known
+    @Override
+    public void stationChanged(long fireStationId) {
+        if (enabled) {
+            afterCommit(() -> refreshStation(fireStationId));
+        }
+    }
+
+    // Reads the whole person table into a new copy and swaps it in. Runs at startup and then every rebuild interval, which also clears out deleted rows and repairs anything the incremental changes missed
+    @Override
+    @Scheduled(fixedDelayString = "${firestation.snapshot.rebuild-interval:PT1H}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        int capacity;
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashSet<>();
+            stationsChangedDuringRebuild = new HashSet<>();
+            capacity = columns == null ? 1024 : columns.size() + 1024;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<Long, Integer> rebuiltStationNumbers = new HashMap<>();
+        PersonColumns rebuilt = readOnlyTransaction.execute(status -> {
+            for (FireStation fireStation : fireStationRepository.findAll()) {
+                rebuiltStationNumbers.put(fireStation.getId(), fireStation.getStationNumber());
+            }
+            PersonColumns fresh = new PersonColumns(capacity);
+            try (Stream<SnapshotRow> rows = personRepository.streamSnapshotRows()) {
+                rows.forEach(row -> fresh.upsert(row.id(), row.age(), row.fireStationId(), row.address()));
+            }
+            return fresh;
+        });
+
+        Set<Long> changed;
+        Set<Long> stationsChanged;
+        lock.writeLock().lock();
+        try {
+            columns = rebuilt;
+            stationNumbers = rebuiltStationNumbers;
+            builtAt = Instant.now();
+            buildMillis = (System.nanoTime() - start) / 1_000_000;
+            changed = changedDuringRebuild;
+            stationsChanged = stationsChangedDuringRebuild;
+            changedDuringRebuild = null;
+            stationsChangedDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!changed.isEmpty()) {
+            refresher.submit(() -> refreshPeople(changed));
+        }
+        stationsChanged.forEach(fireStationId -> refresher.submit(() -> refreshStation(fireStationId)));
+        logger.info("Built the person snapshot with {} people in {} ms", rebuilt.size(), buildMillis);
+    }
+
+    // Waits for every change queued so far to be applied, for tests
+    void awaitRefreshes() throws Exception {
+        Future<?> done = refresher.submit(() -> { });
+        done.get();
+    }
+
+    private void afterCommit(Runnable refresh) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresher.submit(refresh);
+                }
+            });
+        } else {
+            refresher.submit(refresh);
+        }
+    }
+
+    private void refreshPeople(Collection<Long> personIds) {
+        List<Long> ids = new ArrayList<>(personIds);
+        for (int start = 0; start < ids.size(); start += ID_CHUNK) {
+            List<Long> chunk = ids.subList(start, Math.min(start + ID_CHUNK, ids.size()));
+            List<SnapshotRow> rows = readOnlyTransaction.execute(status -> personRepository.findSnapshotRowsByIdIn(chunk));
+            lock.writeLock().lock();
+            try {
+                // Recorded even before the first build is in, so the build that's running reads these people again once it's done
+                if (changedDuringRebuild != null) {
+                    changedDuringRebuild.addAll(chunk);
+                }
+                if (columns == null) {
+                    continue;
+                }
+                // Anyone not found was deleted
+                Set<Long> missing = new HashSet<>(chunk);
+                for (SnapshotRow row : rows) {
+                    columns.upsert(row.id(), row.age(), row.fireStationId(), row.address());
+                    missing.remove(row.id());
+                }
+                missing.forEach(columns::remove);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void refreshStation(long fireStationId) {
+        Optional<Integer> stationNumber = readOnlyTransaction.execute(status -> fireStationRepository.findById(fireStationId).map(FireStation::getStationNumber));
+        List<SnapshotRow> rows = readOnlyTransaction.execute(status -> personRepository.findSnapshotRowsByFireStationId(fireStationId));
+        List<Long> gone = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            if (stationsChangedDuringRebuild != null) {
+                stationsChangedDuringRebuild.add(fireStationId);
+            }
+            if (columns == null) {
+                return;
+            }
+            stationNumber.ifPresentOrElse(number -> stationNumbers.put(fireStationId, number), () -> stationNumbers.remove(fireStationId));
+            Set<Long> found = new HashSet<>();
+            for (SnapshotRow row : rows) {
+                columns.upsert(row.id(), row.age(), row.fireStationId(), row.address());
+                found.add(row.id());
+            }
+            // People the snapshot still has at the station but the db doesn't were moved or deleted, they're read again by id below
+            for (Long id : columns.idsAtStation(fireStationId)) {
+                if (!found.contains(id)) {
+                    gone.add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!gone.isEmpty()) {
+            refreshPeople(gone);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.firestation.service;
+
+import com.example.firestation.model.AddressCount;
+import com.example.firestation.model.AgeHistogram;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface PersonSnapshotServiceInterface {
+    Optional<List<AgeHistogram>> getAgeHistograms(Integer stationNumber, int bucketWidth);
+    Optional<List<AddressCount>> getTopAddresses(int limit);
+    Map<String, Object> getStats();
+    void peopleChanged(Collection<Long> personIds);
+    void stationChanged(long fireStationId);
+    void rebuild();
+}
@@ -0,0 +1,101 @@
+package com.example.firestation.service;
+
+import com.example.firestation.model.ReconcileResult;
+import com.example.firestation.model.StationCounter;
+import com.example.firestation.model.StationSummary;
+import com.example.firestation.repository.StationCounterRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// Use this service to keep the adult and child count of every fire station up to date as people are added, moved and deleted, so a station's summary can be read without counting its people.
+// Anything that writes people has to call it in the same transaction, the reconciliation job repairs whatever gets missed
+@Service
+public class StationCounterService implements StationCounterServiceInterface {
+
+    private StationCounterRepository stationCounterRepository;
+    private final Logger logger = LoggerFactory.getLogger(StationCounterService.class);
+
+    // Can have the constructor be autowired so it autowires everything in the constructor
+    @Autowired
+    public StationCounterService(StationCounterRepository stationCounterRepository) {
+        this.stationCounterRepository = stationCounterRepository;
+    }
+
+    @Override
+    public void personAdded(long fireStationId, int age) {
+        adjust(fireStationId, age > 18 ? 1 : 0, age > 18 ? 0 : 1);
+    }
+
+    @Override
+    public void personRemoved(long fireStationId, int age) {
+        adjust(fireStationId, age > 18 ? -1 : 0, age > 18 ? 0 : -1);
+    }
+
+    // If the station has no counter yet (it was made some other way than through the app) one is made by counting its people, which already includes this change
+    @Override
+    @Transactional
+    public void adjust(long fireStationId, int adults, int children) {
+        if (adults == 0 && children == 0) {
+            return;
+        }
+        if (stationCounterRepository.increment(fireStationId, adults, children) == 0) {
+            stationAdded(fireStationId);
+            recount(List.of(fireStationId));
+        }
+    }
+
+    @Override
+    @Transactional
+    public void stationAdded(long fireStationId) {
+        if (!stationCounterRepository.existsById(fireStationId)) {
+            stationCounterRepository.save(new StationCounter(fireStationId, 0, 0));
+        }
+    }
+
+    @Override
+    @Transactional
+    public void stationDeleted(long fireStationId) {
+        stationCounterRepository.deleteById(fireStationId);
+    }
+
+    @Override
+    @Transactional
+    public void recount(Collection<Long> fireStationIds) {
+        if (!fireStationIds.isEmpty()) {
+            stationCounterRepository.recount(fireStationIds);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<StationSummary> getSummary(int stationNumber) {
+        return stationCounterRepository.findSummaryByStationNumber(stationNumber);
+    }
+
+    // Checks every counter against a full count of the station's people and fixes the ones that are off. The check is done in the db, so only the station ids that drifted come back.
+    // It runs every firestation.counters.reconcile-interval, starting one interval after startup
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${firestation.counters.reconcile-interval:PT1H}", initialDelayString = "${firestation.counters.reconcile-interval:PT1H}")
+    public ReconcileResult reconcile() {
+        int added = stationCounterRepository.insertMissing();
+        int removed = stationCounterRepository.deleteOrphaned();
+        List<Long> drifted = stationCounterRepository.findDrifted();
+        recount(drifted);
+
+        if (added > 0 || removed > 0 || !drifted.isEmpty()) {
+            logger.warn("Station counters were off: added {}, removed {} and repaired {} ({})", added, removed, drifted.size(), drifted);
+        } else {
+            logger.info("Station counters match a full count");
+        }
+        return new ReconcileResult(added, removed, drifted.size());
+    }
+}
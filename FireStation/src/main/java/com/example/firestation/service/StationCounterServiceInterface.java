@@ -0,0 +1,18 @@
+package com.example.firestation.service;
+
+import com.example.firestation.model.ReconcileResult;
+import com.example.firestation.model.StationSummary;
+
+import java.util.Collection;
+import java.util.Optional;
+
+public interface StationCounterServiceInterface {
+    void personAdded(long fireStationId, int age);
+    void personRemoved(long fireStationId, int age);
+    void adjust(long fireStationId, int adults, int children);
+    void stationAdded(long fireStationId);
+    void stationDeleted(long fireStationId);
+    void recount(Collection<Long> fireStationIds);
+    Optional<StationSummary> getSummary(int stationNumber);
+    ReconcileResult reconcile();
+}
@@ -0,0 +1,94 @@
+package com.example.firestation.service;
+
+import com.example.firestation.model.FireStation;
+import com.example.firestation.model.Person;
+import com.example.firestation.model.ReassignEvent;
+import com.example.firestation.model.ReassignRequest;
+import com.example.firestation.model.ReassignResult;
+import com.example.firestation.model.StationCount;
+import com.example.firestation.repository.FireStationRepository;
+import com.example.firestation.repository.PersonRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.*;
+
+// Use this service to move people to another fire station when station boundaries change. People are moved with UPDATE statements in the db instead of being loaded and saved one at a time, so moving a whole station is one statement no matter how many people it has.
+@Service
+public class StationReassignmentService implements StationReassignmentServiceInterface {
+
+    // Addresses are moved this many at a time so the IN list stays a sensible size
+    static final int ADDRESS_CHUNK = 1000;
+
+    private FireStationRepository fireStationRepository;
+    private PersonRepository personRepository;
+    private FireStationService fireStationService;
+    private StationCounterService stationCounterService;
+    private PersonSnapshotService personSnapshotService;
+    private ChangeEventService changeEventService;
+
+    // Can have the constructor be autowired so it autowires everything in the constructor
+    @Autowired
+    public StationReassignmentService(FireStationRepository fireStationRepository, PersonRepository personRepository, FireStationService fireStationService, StationCounterService stationCounterService, PersonSnapshotService personSnapshotService, ChangeEventService changeEventService) {
+        this.fireStationRepository = fireStationRepository;
+        this.personRepository = personRepository;
+        this.fireStationService = fireStationService;
+        this.stationCounterService = stationCounterService;
+        this.personSnapshotService = personSnapshotService;
+        this.changeEventService = changeEventService;
+    }
+
+    // Empty if the station to move people to doesn't exist. Everything is one transaction, so either everyone moves or no one does
+    @Override
+    @Transactional
+    public Optional<ReassignResult> reassign(long toFireStationId, ReassignRequest request) {
+        Optional<FireStation> to = fireStationRepository.findById(toFireStationId);
+        if (to.isEmpty()) {
+            return Optional.empty();
+        }
+        FireStation toFireStation = to.get();
+        Map<Integer, Long> movedFrom = new TreeMap<>();
+        // Fire station ids whose people changed
+        Set<Long> changedFireStationIds = new HashSet<>();
+        int moved = 0;
+        Instant now = Person.now();
+
+        if (request.fromFireStationId() != null) {
+            Optional<FireStation> from = fireStationRepository.findById(request.fromFireStationId());
+            if (from.isPresent() && from.get().getId() != toFireStation.getId()) {
+                moved = personRepository.reassignFireStation(from.get(), toFireStation, now);
+                if (moved > 0) {
+                    movedFrom.put(from.get().getStationNumber(), (long) moved);
+                    changedFireStationIds.add(from.get().getId());
+                }
+            }
+        } else {
+            List<String> addresses = new ArrayList<>(new LinkedHashSet<>(request.addresses()));
+            for (int start = 0; start < addresses.size(); start += ADDRESS_CHUNK) {
+                List<String> chunk = addresses.subList(start, Math.min(start + ADDRESS_CHUNK, addresses.size()));
+                // Counted first since the update can only say how many rows it changed, not which stations they came from
+                for (StationCount count : personRepository.countByAddressesNotAtFireStation(chunk, toFireStation)) {
+                    movedFrom.merge(count.stationNumber(), count.people(), Long::sum);
+                    changedFireStationIds.add(count.fireStationId());
+                }
+                moved += personRepository.reassignAddresses(chunk, toFireStation, now);
+            }
+        }
+
+        // Every station someone left has a different roster and counts now, and so does the one they went to. The counts are redone with one statement for all of them instead of working out the adults and children that moved
+        if (moved > 0) {
+            changedFireStationIds.add(toFireStation.getId());
+            stationCounterService.recount(changedFireStationIds);
+            // Everyone who moved is at the new station now, so reading that station again picks them all up
+            personSnapshotService.stationChanged(toFireStation.getId());
+            List<Integer> stationNumbers = new ArrayList<>(movedFrom.keySet());
+            stationNumbers.add(toFireStation.getStationNumber());
+            fireStationService.invalidateRosters(stationNumbers);
+            // One event for the whole move, the same way it's one statement in the db
+            changeEventService.record("fireStation", "reassign", toFireStation.getId(), new ReassignEvent(request.fromFireStationId(), request.addresses(), toFireStation.getId(), toFireStation.getStationNumber(), moved));
+        }
+        return Optional.of(new ReassignResult(toFireStation.getId(), toFireStation.getStationNumber(), moved, movedFrom));
+    }
+}
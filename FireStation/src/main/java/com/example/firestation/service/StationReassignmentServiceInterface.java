@@ -0,0 +1,10 @@
+package com.example.firestation.service;
+
+import com.example.firestation.model.ReassignRequest;
+import com.example.firestation.model.ReassignResult;
+
+import java.util.Optional;
+
+public interface StationReassignmentServiceInterface {
+    Optional<ReassignResult> reassign(long toFireStationId, ReassignRequest request);
+}
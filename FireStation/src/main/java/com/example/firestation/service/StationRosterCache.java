@@ -0,0 +1,91 @@
+package com.example.firestation.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Cache of station rosters keyed by station number. It's bounded by size and time, and every write that changes a roster invalidates that station number.
+@Component
+public class StationRosterCache implements MeterBinder {
+
+    private final Cache<Integer, Map<String, Object>> cache;
+
+    // Bumped every time a station number is invalidated. A roster that was loaded while its station was being invalidated is thrown away instead of cached, otherwise a read that started before a write could put the old roster back after the write
+    private final Map<Integer, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StationRosterCache(@Value("${firestation.roster-cache.maximum-size:1000}") long maximumSize, @Value("${firestation.roster-cache.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    // Gets the cached roster or loads it with the loader, only caching it if nothing invalidated the station while it was loading
+    public Map<String, Object> get(int stationNumber, Supplier<Map<String, Object>> loader) {
+        Map<String, Object> roster = cache.getIfPresent(stationNumber);
+        if (roster != null) {
+            return roster;
+        }
+        AtomicLong generation = generations.computeIfAbsent(stationNumber, key -> new AtomicLong());
+        long loadedAt = generation.get();
+        Map<String, Object> loaded = loader.get();
+        cache.asMap().compute(stationNumber, (key, current) -> generation.get() == loadedAt ? loaded : current);
+        return loaded;
+    }
+
+    // Drops the rosters for these station numbers. If a transaction is running this waits until it commits, so nobody can load and cache the roster from before the write
+    public void invalidate(Collection<Integer> stationNumbers) {
+        Set<Integer> numbers = new HashSet<>(stationNumbers);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateNow(numbers);
+                }
+            });
+        } else {
+            invalidateNow(numbers);
+        }
+    }
+
+    private void invalidateNow(Set<Integer> stationNumbers) {
+        for (Integer stationNumber : stationNumbers) {
+            generations.computeIfAbsent(stationNumber, key -> new AtomicLong()).incrementAndGet();
+            cache.invalidate(stationNumber);
+        }
+    }
+
+    // Publishes the same stats as cache_gets, cache_evictions and cache_size metrics tagged cache="stationRoster"
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "stationRoster");
+    }
+
+    // Hit, miss and eviction counts since startup
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("size", cache.estimatedSize());
+        response.put("hitCount", stats.hitCount());
+        response.put("missCount", stats.missCount());
+        response.put("evictionCount", stats.evictionCount());
+        response.put("hitRate", stats.hitRate());
+        return response;
+    }
+}
@@ -0,0 +1,4 @@
+-- The schema as Hibernate made it with ddl-auto=update. Databases that already have these tables are baselined at 1.1 and skip straight to V2
+create table fire_station_table (station_number integer not null, id bigint not null, address varchar(255) not null, primary key (id));
+create table person_table (age integer not null, fire_station_id bigint, id bigint not null, address varchar(255) not null, first_name varchar(255) not null, last_name varchar(255) not null, phone_number varchar(255) not null, primary key (id));
+alter table person_table add constraint FK2c9509ffvvp1c8hts684j75f foreign key (fire_station_id) references fire_station_table (id);
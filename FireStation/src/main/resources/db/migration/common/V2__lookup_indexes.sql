@@ -0,0 +1,5 @@
+-- GET /firestation finds stations by number and then their people through fire_station_id, which already has an index from its foreign key.
+-- Not unique, a station number can cover more than one address
+create index idx_fire_station_station_number on fire_station_table (station_number);
+-- findByFirstNameAndLastName
+create index idx_person_name on person_table (last_name, first_name);
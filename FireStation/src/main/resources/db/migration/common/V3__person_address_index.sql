@@ -0,0 +1,2 @@
+-- POST /firestation/{id}/reassign moves people by address, without this every chunk of addresses would read the whole person table
+create index idx_person_address on person_table (address);
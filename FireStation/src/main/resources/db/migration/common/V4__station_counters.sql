@@ -0,0 +1,9 @@
+-- Adults and children per fire station, kept up to date by the person writes so GET /firestation/{stationNumber}/summary doesn't have to count anyone.
+-- No foreign key, the counters are dropped by the app when a station is deleted and the reconciliation job cleans up anything left over
+create table station_counter_table (fire_station_id bigint not null, adult_count integer not null, child_count integer not null, primary key (fire_station_id));
+insert into station_counter_table (fire_station_id, adult_count, child_count)
+select f.id,
+       coalesce(sum(case when p.age > 18 then 1 else 0 end), 0),
+       coalesce(sum(case when p.age <= 18 then 1 else 0 end), 0)
+from fire_station_table f left join person_table p on p.fire_station_id = f.id
+group by f.id;
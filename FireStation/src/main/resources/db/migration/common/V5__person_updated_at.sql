@@ -0,0 +1,4 @@
+-- When each person row last changed, so GET /export?since= can send only what changed. Rows that are already there count as changed now.
+-- The index is for those incremental exports, a full export reads the table in id order and doesn't use it
+alter table person_table add column updated_at datetime(6) not null default current_timestamp(6);
+create index idx_person_updated_at on person_table (updated_at);
@@ -0,0 +1,6 @@
+-- Outbox behind GET /events. Every person and fire station write adds its events here in the same transaction, so an event is never sent for a change that rolled back and never lost for one that committed.
+-- seq comes from change_sequence_table instead of auto increment: the update that takes the next seqs locks its one row until the transaction ends, so seqs commit in order and there are no gaps
+create table change_event_table (seq bigint not null, entity varchar(32) not null, operation varchar(16) not null, entity_id bigint not null, payload text, created_at datetime(6) not null, primary key (seq));
+create index idx_change_event_created_at on change_event_table (created_at);
+create table change_sequence_table (id integer not null, last_seq bigint not null, primary key (id));
+insert into change_sequence_table (id, last_seq) values (1, 0);
@@ -0,0 +1,2 @@
+create sequence fire_station_table_seq start with 1 increment by 50;
+create sequence person_table_seq start with 1 increment by 50;
@@ -0,0 +1,5 @@
+-- MySQL has no sequences, so Hibernate keeps the next id for each table in a one row table instead
+create table fire_station_table_seq (next_val bigint) engine=InnoDB;
+insert into fire_station_table_seq values (1);
+create table person_table_seq (next_val bigint) engine=InnoDB;
+insert into person_table_seq values (1);
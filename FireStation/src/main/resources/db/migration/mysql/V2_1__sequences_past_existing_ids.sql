@@ -0,0 +1,9 @@
+-- Person ids used to be auto_increment, so a database from before the switch to sequences can have rows past where the sequence starts.
+-- Such a database is baselined at 1.1 and skips V1_1, so the sequence tables are made here if it doesn't have them yet
+create table if not exists fire_station_table_seq (next_val bigint) engine=InnoDB;
+insert into fire_station_table_seq (next_val) select 1 from dual where not exists (select * from fire_station_table_seq);
+create table if not exists person_table_seq (next_val bigint) engine=InnoDB;
+insert into person_table_seq (next_val) select 1 from dual where not exists (select * from person_table_seq);
+-- Hibernate hands out ids in blocks of 50 below next_val, so move it at least 50 past the highest id
+update fire_station_table_seq set next_val = greatest(next_val, (select coalesce(max(id), 0) + 51 from fire_station_table));
+update person_table_seq set next_val = greatest(next_val, (select coalesce(max(id), 0) + 51 from person_table));
@@ -2,8 +2,11 @@ package com.example.firestation;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 
+// Uses the in memory db so this doesn't need MySQL running
 @SpringBootTest
+@ActiveProfiles("h2")
 class AdvancedFinalApplicationTests {
 
     @Test
@@ -1,9 +1,19 @@
 package com.example.firestation;
 
 import com.example.firestation.controller.PersonController;
+import com.example.firestation.model.AgeHistogram;
 import com.example.firestation.model.FireStation;
+import com.example.firestation.model.ReassignRequest;
+import com.example.firestation.model.ReassignResult;
+import com.example.firestation.model.StationSummary;
 import com.example.firestation.repository.FireStationRepository;
+import com.example.firestation.repository.PersonRepository;
+import com.example.firestation.service.ChangeEventService;
 import com.example.firestation.service.FireStationService;
+import com.example.firestation.service.PersonExportService;
+import com.example.firestation.service.PersonSnapshotService;
+import com.example.firestation.service.StationCounterService;
+import com.example.firestation.service.StationReassignmentService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +22,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import static org.mockito.Mockito.*;
@@ -31,9 +42,27 @@ public class FireStationControllerTest {
     @MockBean
     private FireStationService fireStationService;
 
+    @MockBean
+    private StationReassignmentService stationReassignmentService;
+
+    @MockBean
+    private StationCounterService stationCounterService;
+
+    @MockBean
+    private PersonSnapshotService personSnapshotService;
+
     @MockBean
     private PersonController personController;
 
+    @MockBean
+    private PersonRepository personRepository;
+
+    @MockBean
+    private PersonExportService personExportService;
+
+    @MockBean
+    private ChangeEventService changeEventService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -96,5 +125,74 @@ public class FireStationControllerTest {
         verify(fireStationRepository, times(1)).delete(fireStation);
     }
 
+    @Test
+    public void reassignPeople() throws Exception {
+        ReassignRequest request = new ReassignRequest(2L, null);
+        when(stationReassignmentService.reassign(1L, request)).thenReturn(Optional.of(new ReassignResult(1L, 4, 3, Map.of(7, 3L))));
+
+        mockMvc.perform(post("/firestation/{id}/reassign", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.moved").value(3))
+                .andExpect(jsonPath("$.movedFrom.7").value(3));
+    }
+
+    @Test
+    public void reassignPeople_NotFound() throws Exception {
+        when(stationReassignmentService.reassign(eq(99L), any())).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/firestation/{id}/reassign", 99L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ReassignRequest(null, List.of("1 Main St")))))
+                .andExpect(status().isNotFound());
+    }
 
+    @Test
+    public void reassignPeople_NeedsStationOrAddresses() throws Exception {
+        mockMvc.perform(post("/firestation/{id}/reassign", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ReassignRequest(2L, List.of("1 Main St")))))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/firestation/{id}/reassign", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(stationReassignmentService);
+    }
+
+    @Test
+    public void getStationSummary() throws Exception {
+        when(stationCounterService.getSummary(4)).thenReturn(Optional.of(new StationSummary(4, 120, 40)));
+
+        mockMvc.perform(get("/firestation/{stationNumber}/summary", 4))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.adultCount").value(120))
+                .andExpect(jsonPath("$.childCount").value(40));
+
+        mockMvc.perform(get("/firestation/{stationNumber}/summary", 5))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void getAgeHistograms() throws Exception {
+        when(personSnapshotService.getAgeHistograms(4, 10)).thenReturn(Optional.of(List.of(new AgeHistogram(4, 10, new long[]{1, 2, 3}))));
+
+        mockMvc.perform(get("/stats/ages").param("stationNumber", "4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].stationNumber").value(4))
+                .andExpect(jsonPath("$[0].counts[2]").value(3));
+
+        mockMvc.perform(get("/stats/ages").param("bucketWidth", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getTopAddresses_SnapshotNotReady() throws Exception {
+        when(personSnapshotService.getTopAddresses(20)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/stats/addresses"))
+                .andExpect(status().isServiceUnavailable());
+    }
 }
@@ -5,7 +5,12 @@ import com.example.firestation.model.FireStation;
 import com.example.firestation.model.Person;
 import com.example.firestation.repository.FireStationRepository;
 import com.example.firestation.repository.PersonRepository;
+import com.example.firestation.service.ChangeEventService;
 import com.example.firestation.service.FireStationService;
+import com.example.firestation.service.PersonExportService;
+import com.example.firestation.service.PersonSnapshotService;
+import com.example.firestation.service.StationCounterService;
+import com.example.firestation.service.StationReassignmentService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -36,12 +41,27 @@ public class PersonControllerTest {
     @MockBean
     private FireStationService fireStationService;
 
+    @MockBean
+    private StationReassignmentService stationReassignmentService;
+
+    @MockBean
+    private StationCounterService stationCounterService;
+
+    @MockBean
+    private PersonSnapshotService personSnapshotService;
+
     @MockBean
     private PersonController personController;
 
     @MockBean
     private PersonRepository personRepository;
 
+    @MockBean
+    private PersonExportService personExportService;
+
+    @MockBean
+    private ChangeEventService changeEventService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -0,0 +1,79 @@
+package com.example.firestation.config;
+
+import com.example.firestation.repository.FireStationRepository;
+import com.example.firestation.repository.PersonRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Counts the statements sent to the db to check that warm station lookups don't reach it, and that the roster query isn't cached behind StationRosterCache.
+// Not run in one test transaction, each repository call gets its own session and transaction like separate requests would (a session can't read what it put in the cache itself)
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@Import(SecondLevelCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FireStationRepository fireStationRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    private Statistics statistics;
+
+    // Rows go in through JDBC so Hibernate hasn't seen them, and the caches start empty for every test
+    @BeforeEach
+    void setUp() {
+        SessionFactory sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        jdbcTemplate.update("insert into fire_station_table (id, station_number, address) values (1, 7, '1 Main St')");
+        jdbcTemplate.update("insert into person_table (id, first_name, last_name, address, phone_number, age, fire_station_id) values (1001, 'John', 'Doe', '1 Main St', '555-0000', 30, 1)");
+        jdbcTemplate.update("insert into person_table (id, first_name, last_name, address, phone_number, age, fire_station_id) values (1002, 'Jane', 'Doe', '1 Main St', '555-0001', 8, 1)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from person_table");
+        jdbcTemplate.update("delete from fire_station_table");
+    }
+
+    private long statementsFor(Runnable lookup) {
+        statistics.clear();
+        lookup.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void warmStationLookupsDontHitTheDb() {
+        assertEquals(1, statementsFor(() -> fireStationRepository.findById(1L)));
+        assertEquals(0, statementsFor(() -> assertEquals(7, fireStationRepository.findById(1L).orElseThrow().getStationNumber())));
+    }
+
+    // StationRosterCache keeps the roster responses, so the query behind them isn't cached a second time
+    @Test
+    void rostersAreNotInTheQueryCache() {
+        personRepository.findRosterByStationNumber(7);
+
+        assertTrue(statementsFor(() -> assertEquals(2, personRepository.findRosterByStationNumber(7).size())) > 0);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.firestation.controller;
+
+import com.example.firestation.model.FireStation;
+import com.example.firestation.service.ChangeEventBuffer;
+import com.example.firestation.service.ChangeEventService;
+import com.example.firestation.service.FireStationService;
+import com.example.firestation.service.PersonSnapshotService;
+import com.example.firestation.service.StationCounterService;
+import com.example.firestation.service.StationReassignmentService;
+import com.example.firestation.service.StationRosterCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+// Subscribes to GET /events and makes fire stations through the controller, reading the stream as it's written
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({ChangeEventController.class, ChangeEventService.class, ChangeEventBuffer.class, FireStationController.class, FireStationService.class, StationRosterCache.class,
+        StationCounterService.class, StationReassignmentService.class, PersonSnapshotService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChangeEventControllerTest {
+
+    @Autowired
+    private ChangeEventController changeEventController;
+
+    @Autowired
+    private FireStationController fireStationController;
+
+    @Autowired
+    private ChangeEventService changeEventService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(changeEventController).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from change_event_table");
+        jdbcTemplate.update("delete from station_counter_table");
+        jdbcTemplate.update("delete from fire_station_table");
+    }
+
+    private long addFireStation(int stationNumber) {
+        return fireStationController.addFireStation(new FireStation(stationNumber, stationNumber + " Station Rd", null)).getBody().getId();
+    }
+
+    // The stream never ends by itself, so this waits until the text turns up in what's been sent so far
+    private static String awaitBody(MvcResult result, String text) throws Exception {
+        for (int i = 0; i < 100; i++) {
+            String body = result.getResponse().getContentAsString();
+            if (body.contains(text)) {
+                return body;
+            }
+            Thread.sleep(50);
+        }
+        fail("Never got " + text + " in " + result.getResponse().getContentAsString());
+        return null;
+    }
+
+    @Test
+    void streamsWritesAsTheyCommit() throws Exception {
+        MvcResult result = mockMvc.perform(get("/events")).andExpect(request().asyncStarted()).andReturn();
+
+        long id = addFireStation(7);
+        long seq = changeEventService.lastSeq();
+
+        awaitBody(result, "id:" + seq + "\ndata:{\"seq\":" + seq + ",\"entity\":\"fireStation\",\"operation\":\"create\",\"entityId\":" + id
+                + ",\"payload\":{\"id\":" + id + ",\"stationNumber\":7,\"address\":\"7 Station Rd\"},\"createdAt\":");
+    }
+
+    // What EventSource sends when it reconnects
+    @Test
+    void resumesAfterLastEventId() throws Exception {
+        addFireStation(1);
+        long seen = changeEventService.lastSeq();
+        addFireStation(2);
+        addFireStation(3);
+
+        MvcResult result = mockMvc.perform(get("/events").header("Last-Event-ID", seen)).andExpect(request().asyncStarted()).andReturn();
+
+        String body = awaitBody(result, "\"stationNumber\":3");
+        assertFalse(body.contains("id:" + seen + "\n"));
+        assertTrue(body.contains("id:" + (seen + 1) + "\n"));
+        assertTrue(body.indexOf("\"stationNumber\":2") < body.indexOf("\"stationNumber\":3"));
+    }
+
+    @Test
+    void resetWhenMissedEventsWerePurged() throws Exception {
+        addFireStation(1);
+        long purged = changeEventService.lastSeq();
+        addFireStation(2);
+        jdbcTemplate.update("delete from change_event_table where seq <= ?", purged);
+
+        MvcResult result = mockMvc.perform(get("/events?after=" + (purged - 1))).andExpect(request().asyncStarted()).andReturn();
+
+        String body = awaitBody(result, "\"stationNumber\":2");
+        assertTrue(body.startsWith("id:" + purged + "\nevent:reset\ndata:" + purged + "\n\n"), body);
+    }
+}
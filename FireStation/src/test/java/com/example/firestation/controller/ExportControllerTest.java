@@ -0,0 +1,178 @@
+package com.example.firestation.controller;
+
+import com.example.firestation.model.FireStation;
+import com.example.firestation.model.Person;
+import com.example.firestation.service.PersonExportService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+// Runs GET /export against an in memory db, with the people's change times set by hand so the output can be checked byte for byte
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "firestation.export.fetch-size=2"})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({ExportController.class, PersonExportService.class})
+class ExportControllerTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ExportController exportController;
+
+    private MockMvc mockMvc;
+    private long mario;
+    private long luigi;
+    private long toad;
+
+    private long person(String firstName, String address, FireStation fireStation, String updatedAt) {
+        Person person = new Person(firstName, "Bros", address, "555-5555", 30, fireStation);
+        entityManager.persist(person);
+        entityManager.flush();
+        jdbcTemplate.update("update person_table set updated_at = ? where id = ?", Timestamp.from(Instant.parse(updatedAt)), person.getId());
+        return person.getId();
+    }
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(exportController).build();
+        FireStation fireStation = new FireStation(7, "1 Station Rd", null);
+        entityManager.persist(fireStation);
+        mario = person("Mario", "1 Pipe Rd", fireStation, "2024-01-01T10:00:00.123456Z");
+        luigi = person("Luigi", "2 Pipe Rd, \"Green\" House", fireStation, "2024-01-02T10:00:00Z");
+        toad = person("Toad", "Castle", null, "2024-01-03T10:00:00Z");
+    }
+
+    private static String gunzip(byte[] bytes) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void exportsEveryoneAsGzippedNdjson() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/export").header("Accept-Encoding", "gzip, deflate")).andReturn().getResponse();
+
+        assertEquals(200, response.getStatus());
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertTrue(response.getContentType().startsWith("application/x-ndjson"));
+        assertNotNull(response.getHeader("Last-Modified"));
+        assertEquals("{\"id\":" + mario + ",\"firstName\":\"Mario\",\"lastName\":\"Bros\",\"address\":\"1 Pipe Rd\",\"phoneNumber\":\"555-5555\",\"age\":30,\"fireStationId\":" + fireStationId() + ",\"stationNumber\":7,\"updatedAt\":\"2024-01-01T10:00:00.123456Z\"}\n"
+                + "{\"id\":" + luigi + ",\"firstName\":\"Luigi\",\"lastName\":\"Bros\",\"address\":\"2 Pipe Rd, \\\"Green\\\" House\",\"phoneNumber\":\"555-5555\",\"age\":30,\"fireStationId\":" + fireStationId() + ",\"stationNumber\":7,\"updatedAt\":\"2024-01-02T10:00:00.000000Z\"}\n"
+                + "{\"id\":" + toad + ",\"firstName\":\"Toad\",\"lastName\":\"Bros\",\"address\":\"Castle\",\"phoneNumber\":\"555-5555\",\"age\":30,\"fireStationId\":null,\"stationNumber\":null,\"updatedAt\":\"2024-01-03T10:00:00.000000Z\"}\n",
+                gunzip(response.getContentAsByteArray()));
+    }
+
+    @Test
+    void sameRowsGiveTheSameBytes() throws Exception {
+        byte[] first = mockMvc.perform(get("/export?format=csv").header("Accept-Encoding", "gzip")).andReturn().getResponse().getContentAsByteArray();
+        byte[] second = mockMvc.perform(get("/export?format=csv").header("Accept-Encoding", "gzip")).andReturn().getResponse().getContentAsByteArray();
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    void exportsCsvWithoutGzipWhenNotAccepted() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/export?format=csv").header("Accept-Encoding", "gzip;q=0, identity")).andReturn().getResponse();
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertTrue(response.getContentType().startsWith("text/csv"));
+        assertEquals("id,firstName,lastName,address,phoneNumber,age,fireStationId,stationNumber,updatedAt\n"
+                + mario + ",Mario,Bros,1 Pipe Rd,555-5555,30," + fireStationId() + ",7,2024-01-01T10:00:00.123456Z\n"
+                + luigi + ",Luigi,Bros,\"2 Pipe Rd, \"\"Green\"\" House\",555-5555,30," + fireStationId() + ",7,2024-01-02T10:00:00.000000Z\n"
+                + toad + ",Toad,Bros,Castle,555-5555,30,,,2024-01-03T10:00:00.000000Z\n",
+                response.getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void onlyExportsPeopleChangedSince() throws Exception {
+        String body = mockMvc.perform(get("/export?since=2024-01-02T10:00:00Z")).andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertFalse(body.contains("Mario"));
+        assertTrue(body.contains("Luigi"));
+        assertTrue(body.contains("Toad"));
+
+        // Same with the header, which only has whole seconds
+        body = mockMvc.perform(get("/export").header("If-Modified-Since", "Wed, 03 Jan 2024 10:00:00 GMT")).andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertEquals(1, body.lines().count());
+        assertTrue(body.contains("Toad"));
+    }
+
+    // Last-Modified sent back as If-Modified-Since gets nothing until someone changes
+    @Test
+    void notModifiedUntilSomeoneChanges() throws Exception {
+        String lastModified = mockMvc.perform(get("/export")).andReturn().getResponse().getHeader("Last-Modified");
+
+        assertEquals(304, mockMvc.perform(get("/export").header("If-Modified-Since", lastModified)).andReturn().getResponse().getStatus());
+
+        Person person = entityManager.find(Person.class, mario);
+        person.setAge(31);
+        person.touch();
+        entityManager.flush();
+        // Exports stop at the last whole second, so the change only shows once its second is over
+        Thread.sleep(1100);
+        MockHttpServletResponse response = mockMvc.perform(get("/export").header("If-Modified-Since", lastModified)).andReturn().getResponse();
+        assertEquals(200, response.getStatus());
+        assertEquals(1, response.getContentAsString().lines().count());
+        assertTrue(response.getContentAsString().contains("\"age\":31"));
+    }
+
+    // A change stamped before the last export's Last-Modified but committed after it ran, like a long import batch, still comes in the next one
+    @Test
+    void lateCommitsComeInTheNextExport() throws Exception {
+        MockHttpServletResponse first = mockMvc.perform(get("/export")).andReturn().getResponse();
+        Instant lastModified = Instant.ofEpochMilli(first.getDateHeader("Last-Modified"));
+        jdbcTemplate.update("update person_table set age = 31, updated_at = ? where id = ?", Timestamp.from(lastModified.minusSeconds(30)), luigi);
+
+        MockHttpServletResponse response = mockMvc.perform(get("/export").header("If-Modified-Since", first.getHeader("Last-Modified"))).andReturn().getResponse();
+        assertEquals(200, response.getStatus());
+        assertEquals(1, response.getContentAsString().lines().count());
+        assertTrue(response.getContentAsString().contains("\"firstName\":\"Luigi\""));
+    }
+
+    @Test
+    void unknownFormatIsBadRequest() throws Exception {
+        assertEquals(400, mockMvc.perform(get("/export?format=xml")).andReturn().getResponse().getStatus());
+    }
+
+    private long fireStationId() {
+        return jdbcTemplate.queryForObject("select id from fire_station_table where station_number = 7", Long.class);
+    }
+
+    // A person made a while before it's saved still gets the time it was saved, so an export that has already gone past the time it was made doesn't miss it
+    @Test
+    void updatedAtIsWhenThePersonIsWrittenNotMade() throws Exception {
+        Person person = new Person("Peach", "Toadstool", "Castle", "555-5555", 30, (FireStation) null);
+        assertNull(person.getUpdatedAt());
+        Thread.sleep(5);
+        Instant beforeInsert = Person.now();
+        entityManager.persist(person);
+        assertFalse(person.getUpdatedAt().isBefore(beforeInsert));
+
+        Thread.sleep(5);
+        Instant beforeUpdate = Person.now();
+        person.setAge(31);
+        entityManager.flush();
+        assertFalse(person.getUpdatedAt().isBefore(beforeUpdate));
+    }
+}
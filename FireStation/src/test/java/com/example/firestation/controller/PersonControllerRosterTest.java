@@ -0,0 +1,89 @@
+package com.example.firestation.controller;
+
+import com.example.firestation.model.FireStation;
+import com.example.firestation.model.Person;
+import com.example.firestation.service.ChangeEventService;
+import com.example.firestation.service.FireStationService;
+import com.example.firestation.service.PersonBatchService;
+import com.example.firestation.service.PersonSnapshotService;
+import com.example.firestation.service.StationCounterService;
+import com.example.firestation.service.StationRosterCache;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Adding, moving and deleting a person shouldn't load the station's roster, so the work for a big station should be the same as for a small one
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Import({PersonController.class, PersonBatchService.class, FireStationService.class, StationRosterCache.class, StationCounterService.class, PersonSnapshotService.class})
+class PersonControllerRosterTest {
+
+    @MockBean
+    private ChangeEventService changeEventService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PersonController personController;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private FireStation stationWithPeople(int stationNumber, int people) {
+        FireStation fireStation = new FireStation(stationNumber, stationNumber + " Main St", null);
+        entityManager.persist(fireStation);
+        for (int i = 0; i < people; i++) {
+            entityManager.persist(new Person("John" + i, "Doe", "1234 Main St", "555-5555", 30, fireStation));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return fireStation;
+    }
+
+    // Runs the action with an empty persistence context, checks no roster was loaded and returns the number of statements
+    private long statements(Runnable action) {
+        entityManager.clear();
+        statistics.clear();
+        action.run();
+        entityManager.flush();
+        assertEquals(0, statistics.getCollectionLoadCount(), "a station's people list was loaded");
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long statementsFor(int rosterSize, int stationNumber) {
+        FireStation fireStation = stationWithPeople(stationNumber, rosterSize);
+        FireStation otherStation = stationWithPeople(stationNumber + 100, rosterSize);
+        Person person = new Person("Jane", "Doe", "1234 Main St", "555-5556", 30, fireStation.getId());
+        Person moved = new Person("Jane", "Smith", "1234 Main St", "555-5556", 31, otherStation.getId());
+
+        LongSupplier id = person::getId;
+        return statements(() -> personController.addPerson(person))
+                + statements(() -> personController.updatePerson(id.getAsLong(), moved))
+                + statements(() -> personController.deletePerson(id.getAsLong()));
+    }
+
+    @Test
+    void personWrites_doNotDependOnRosterSize() {
+        assertEquals(statementsFor(5, 1), statementsFor(500, 2));
+    }
+}
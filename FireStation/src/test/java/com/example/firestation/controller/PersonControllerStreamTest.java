@@ -0,0 +1,104 @@
+package com.example.firestation.controller;
+
+import com.example.firestation.model.FireStation;
+import com.example.firestation.model.Person;
+import com.example.firestation.model.PersonView;
+import com.example.firestation.service.ChangeEventService;
+import com.example.firestation.service.FireStationService;
+import com.example.firestation.service.PersonBatchService;
+import com.example.firestation.service.PersonSnapshotService;
+import com.example.firestation.service.StationCounterService;
+import com.example.firestation.service.StationRosterCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+// Runs GET /person with Accept: application/x-ndjson against an in memory db and checks every person comes back as one json object on its own line
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Import({PersonController.class, PersonBatchService.class, FireStationService.class, StationRosterCache.class, StationCounterService.class, PersonSnapshotService.class})
+class PersonControllerStreamTest {
+
+    @MockBean
+    private ChangeEventService changeEventService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PersonController personController;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private MockMvc mockMvc;
+    private FireStation fireStation;
+    private Person mario;
+    private Person luigi;
+    private Person toad;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(personController).build();
+        fireStation = new FireStation(7, "1 Station Rd", null);
+        entityManager.persist(fireStation);
+        mario = new Person("Mario", "Bros", "1 Pipe Rd", "555-5555", 30, fireStation);
+        luigi = new Person("Luigi", "Bros", "2 Pipe Rd, \"Green\" House", "555-5556", 28, fireStation);
+        toad = new Person("Toad", "Mushroom", "Castle", "555-5557", 12, (FireStation) null);
+        entityManager.persist(mario);
+        entityManager.persist(luigi);
+        entityManager.persist(toad);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void streamsOnePersonPerLine() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/person").accept("application/x-ndjson")).andReturn().getResponse();
+
+        assertEquals(200, response.getStatus());
+        assertTrue(response.getContentType().startsWith("application/x-ndjson"));
+        String body = response.getContentAsString(StandardCharsets.UTF_8);
+        assertTrue(body.endsWith("\n"), "the last row isn't ended by a newline");
+
+        // The query has no order by, so the rows are sorted by id before comparing
+        List<PersonView> people = new ArrayList<>();
+        for (String line : body.lines().toList()) {
+            people.add(objectMapper.readValue(line, PersonView.class));
+        }
+        people.sort(Comparator.comparingLong(PersonView::id));
+        assertEquals(List.of(
+                new PersonView(mario.getId(), "Mario", "Bros", "1 Pipe Rd", "555-5555", 30, fireStation.getId()),
+                new PersonView(luigi.getId(), "Luigi", "Bros", "2 Pipe Rd, \"Green\" House", "555-5556", 28, fireStation.getId()),
+                new PersonView(toad.getId(), "Toad", "Mushroom", "Castle", "555-5557", 12, null)), people);
+    }
+
+    @Test
+    void streamsNothingForAnEmptyTable() throws Exception {
+        entityManager.createQuery("delete from Person").executeUpdate();
+
+        MockHttpServletResponse response = mockMvc.perform(get("/person").accept("application/x-ndjson")).andReturn().getResponse();
+
+        assertEquals(200, response.getStatus());
+        assertEquals("", response.getContentAsString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.firestation.load;
+
+import com.example.firestation.service.PersonSnapshotService;
+import com.example.loadtest.LoadTest;
+import com.example.loadtest.Scenario;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the whole app on the in memory db and sends it real HTTP load. The load part only runs when asked, for example:
+// mvn test -Dtest=LoadScenarioTest -Dload.people=100000 -Dload.clients=200 -Dload.duration=30
+// The person snapshot is on so the /stats scenarios can run
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "firestation.snapshot.enabled=true")
+@ActiveProfiles("h2")
+class LoadScenarioTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PersonSnapshotService personSnapshotService;
+
+    private final Logger logger = LoggerFactory.getLogger(LoadScenarioTest.class);
+
+    private List<Map<String, Object>> checksum() {
+        return jdbcTemplate.queryForList("select count(*), sum(age), sum(length(first_name)), sum(fire_station_id) from person_table");
+    }
+
+    @Test
+    void syntheticDataIsTheSameEveryTime() {
+        SyntheticData data = new SyntheticData(jdbcTemplate, 42);
+        data.clear();
+        data.generate(2000);
+        List<Map<String, Object>> first = checksum();
+        data.clear();
+        data.generate(2000);
+
+        assertEquals(first, checksum());
+        assertEquals(2000, jdbcTemplate.queryForObject("select count(*) from person_table", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from fire_station_table", Integer.class));
+        data.clear();
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "load.people", matches = "\\d+")
+    void loadScenarios() throws InterruptedException {
+        int people = Integer.getInteger("load.people");
+        int clients = Integer.getInteger("load.clients", 100);
+        Duration duration = Duration.ofSeconds(Long.getLong("load.duration", 30));
+        int stations = SyntheticData.stations(people);
+
+        SyntheticData data = new SyntheticData(jdbcTemplate, 42);
+        data.clear();
+        data.generate(people);
+        // The data went straight into the db, so the snapshot has to be read again
+        personSnapshotService.rebuild();
+
+        String base = "http://localhost:" + port;
+        logger.info("{} people, {} stations, {} clients, {} seconds per scenario", people, stations, clients, duration.toSeconds());
+        logger.info(LoadTest.header());
+        run("roster", clients, duration,
+                Scenario.get(random -> URI.create(base + "/firestation?stationNumber=" + (1 + random.nextInt(stations)))));
+        run("summary", clients, duration,
+                Scenario.get(random -> URI.create(base + "/firestation/" + (1 + random.nextInt(stations)) + "/summary")));
+        run("age histogram (snapshot)", clients, duration,
+                Scenario.get(random -> URI.create(base + "/stats/ages?stationNumber=" + (1 + random.nextInt(stations)))));
+        run("top addresses (snapshot)", Math.min(clients, 10), duration,
+                Scenario.get(random -> URI.create(base + "/stats/addresses?limit=20")));
+        // The whole table is only worth sending over and over when it's small
+        if (people <= 100_000) {
+            int listClients = Math.min(clients, 10);
+            run("all people (json)", listClients, duration,
+                    Scenario.get(random -> URI.create(base + "/person")).header("Accept", "application/json"));
+            run("all people (ndjson)", listClients, duration,
+                    Scenario.get(random -> URI.create(base + "/person")).header("Accept", "application/x-ndjson"));
+        }
+        data.clear();
+    }
+
+    // One line of the results table for each scenario
+    private void run(String scenario, int clients, Duration duration, Scenario requests) throws InterruptedException {
+        logger.info(LoadTest.run(requests, clients, duration).row(scenario));
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.firestation.load;
+
+import com.example.loadtest.SyntheticPeople;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Fills the db with made up fire stations and people straight through JDBC. The same seed and size always gives the same rows, and it scales from a thousand people to millions (there's a station for every 1000 people).
+public class SyntheticData {
+
+    private static final int CHUNK = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long seed;
+
+    public SyntheticData(JdbcTemplate jdbcTemplate, long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.seed = seed;
+    }
+
+    public static int stations(int people) {
+        return Math.max(1, people / 1000);
+    }
+
+    public void generate(int people) {
+        Random random = new Random(seed);
+        int stations = stations(people);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= stations; i++) {
+            rows.add(new Object[]{i, i, SyntheticPeople.address(random)});
+        }
+        jdbcTemplate.batchUpdate("insert into fire_station_table (id, station_number, address) values (?, ?, ?)", rows);
+
+        rows.clear();
+        for (int i = 1; i <= people; i++) {
+            rows.add(new Object[]{i, SyntheticPeople.firstName(random), SyntheticPeople.lastName(random),
+                    SyntheticPeople.address(random), SyntheticPeople.phoneNumber(random), SyntheticPeople.age(random), 1 + random.nextInt(stations)});
+            if (rows.size() == CHUNK || i == people) {
+                jdbcTemplate.batchUpdate("insert into person_table (id, first_name, last_name, address, phone_number, age, fire_station_id) values (?, ?, ?, ?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+
+        // Station counters from the generated people, the same as the migration fills them for an existing db
+        jdbcTemplate.update("insert into station_counter_table (fire_station_id, adult_count, child_count) " +
+                "select f.id, coalesce(sum(case when p.age > 18 then 1 else 0 end), 0), coalesce(sum(case when p.age <= 18 then 1 else 0 end), 0) " +
+                "from fire_station_table f left join person_table p on p.fire_station_id = f.id group by f.id");
+
+        // Move the id sequences past the generated rows (plus a full allocation of 50) so people added through the app don't clash with them
+        jdbcTemplate.execute("alter sequence fire_station_table_seq restart with " + (stations + 51));
+        jdbcTemplate.execute("alter sequence person_table_seq restart with " + (people + 51));
+    }
+
+    public void clear() {
+        jdbcTemplate.execute("delete from station_counter_table");
+        jdbcTemplate.execute("delete from person_table");
+        jdbcTemplate.execute("delete from fire_station_table");
+    }
+}
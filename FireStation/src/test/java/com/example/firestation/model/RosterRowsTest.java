@@ -0,0 +1,68 @@
+package com.example.firestation.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RosterRowsTest {
+
+    // Like rows coming off the db, every string is its own object except that people at the same address get the same one from the address list below
+    private static List<RosterEntry> roster(int people) {
+        Random random = new Random(42);
+        String[] addresses = new String[Math.max(people / 5, 1)];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = (100 + i) + " Main St";
+        }
+        List<RosterEntry> roster = new ArrayList<>(people);
+        for (int i = 0; i < people; i++) {
+            roster.add(new RosterEntry("First" + i, "Last" + random.nextInt(10_000), addresses[random.nextInt(addresses.length)],
+                    String.format("555-%04d", random.nextInt(10_000)), random.nextInt(100)));
+        }
+        return roster;
+    }
+
+    @Test
+    void sameEntriesAndJsonAsTheList() throws Exception {
+        List<RosterEntry> roster = new ArrayList<>(roster(1000));
+        roster.add(new RosterEntry("Zoë", "", "1 Ünïcode Rd", null, 7));
+        RosterRows rows = RosterRows.of(roster);
+
+        assertEquals(roster, rows);
+        assertEquals(new RosterEntry("Zoë", "", "1 Ünïcode Rd", null, 7), rows.get(1000));
+        ObjectMapper objectMapper = new ObjectMapper();
+        assertEquals(objectMapper.writeValueAsString(roster), objectMapper.writeValueAsString(rows));
+        assertThrows(IndexOutOfBoundsException.class, () -> rows.get(1001));
+        assertThrows(UnsupportedOperationException.class, () -> rows.add(roster.get(0)));
+        assertTrue(RosterRows.of(List.of()).isEmpty());
+    }
+
+    // What the roster cache holds for a station with 1M people: the per person maps FireStationService used to build, the entries from the query, and the packed copy
+    @Test
+    void footprintOfAMillionPeople() {
+        int people = 1_000_000;
+        List<RosterEntry> roster = roster(people);
+        double packedBytes = (double) GraphLayout.parseInstance(RosterRows.of(roster)).totalSize() / people;
+
+        // Walking millions of small objects takes minutes, so the entries and maps are measured on the first 10000 people. Their cost per person doesn't depend on the size
+        List<RosterEntry> slice = new ArrayList<>(roster.subList(0, 10_000));
+        double entryBytes = (double) GraphLayout.parseInstance(slice).totalSize() / slice.size();
+        List<Map<String, String>> maps = new ArrayList<>();
+        for (RosterEntry entry : slice) {
+            Map<String, String> map = new HashMap<>();
+            map.put("firstName", entry.firstName());
+            map.put("lastName", entry.lastName());
+            map.put("address", entry.address());
+            map.put("phone", entry.phone());
+            maps.add(map);
+        }
+        double mapBytes = (double) GraphLayout.parseInstance(maps).totalSize() / maps.size();
+
+        String summary = String.format("bytes per person: %.1f as maps, %.1f as entries, %.1f packed", mapBytes, entryBytes, packedBytes);
+        assertTrue(packedBytes * 3 < entryBytes, "packed roster should be at least 3x smaller than the entries, " + summary);
+        assertTrue(entryBytes < mapBytes, summary);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.firestation.repository;
+
+import com.example.firestation.model.FireStation;
+import com.example.firestation.model.Person;
+import jakarta.persistence.EntityManager;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs each lookup against the migrated schema, then asks H2 to EXPLAIN the exact SQL Hibernate sent, so dropping or changing an index the lookups need fails here instead of turning into a full table scan in production
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.firestation.repository.QueryPlanTest$SqlCapture"})
+class QueryPlanTest {
+
+    // Remembers the SQL Hibernate sends so the test can EXPLAIN it
+    public static class SqlCapture implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private StationCounterRepository stationCounterRepository;
+
+    // With empty tables a scan costs nothing so H2 would pick one, a few rows per station makes the plan look like the real one
+    @BeforeEach
+    void setUp() {
+        for (int i = 1; i <= 20; i++) {
+            jdbcTemplate.update("insert into fire_station_table (id, station_number, address) values (?, ?, ?)", i, i, i + " Main St");
+            for (int j = 0; j < 10; j++) {
+                jdbcTemplate.update("insert into person_table (id, first_name, last_name, address, phone_number, age, fire_station_id) values (?, ?, ?, ?, ?, ?, ?)",
+                        i * 100 + j, "First" + j, "Last" + i, i + " Main St", "555-0000", 30, i);
+            }
+        }
+        jdbcTemplate.update("insert into station_counter_table (fire_station_id, adult_count, child_count) select id, 10, 0 from fire_station_table");
+        SqlCapture.statements.clear();
+    }
+
+    // EXPLAIN output of the first statement the lookup ran, with the same parameters bound
+    private String planFor(Runnable lookup, Object... parameters) {
+        lookup.run();
+        String sql = SqlCapture.statements.get(0);
+        return jdbcTemplate.query("explain " + sql, statement -> {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+        }, resultSet -> {
+            resultSet.next();
+            return resultSet.getString(1);
+        });
+    }
+
+    private static void assertUsesIndex(String plan, String index) {
+        assertFalse(plan.contains("tableScan"), plan);
+        assertTrue(plan.toLowerCase().contains(index), plan);
+    }
+
+    @Test
+    void peopleByStationNumberUseTheStationNumberIndex() {
+        assertUsesIndex(planFor(() -> personRepository.findByFireStationStationNumber(3), 3), "idx_fire_station_station_number");
+    }
+
+    @Test
+    void rosterUsesTheStationNumberIndex() {
+        assertUsesIndex(planFor(() -> personRepository.findRosterByStationNumber(3), 3), "idx_fire_station_station_number");
+    }
+
+    @Test
+    void peopleByNameUseTheNameIndex() {
+        assertUsesIndex(planFor(() -> personRepository.findByFirstNameAndLastName("First1", "Last3"), "First1", "Last3"), "idx_person_name");
+    }
+
+    @Test
+    void reassigningAddressesUsesTheAddressIndex() {
+        FireStation to = entityManager.getReference(FireStation.class, 1L);
+        Timestamp now = Timestamp.from(Person.now());
+        assertUsesIndex(planFor(() -> personRepository.reassignAddresses(List.of("3 Main St", "4 Main St"), to, now.toInstant()), 1L, now, "3 Main St", "4 Main St", 1L), "idx_person_address");
+    }
+
+    @Test
+    void stationSummaryUsesTheStationNumberIndex() {
+        assertUsesIndex(planFor(() -> stationCounterRepository.findSummaryByStationNumber(3), 3), "idx_fire_station_station_number");
+    }
+}
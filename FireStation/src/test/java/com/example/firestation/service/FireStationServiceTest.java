@@ -0,0 +1,78 @@
+package com.example.firestation.service;
+
+import com.example.firestation.model.RosterEntry;
+import com.example.firestation.repository.PersonRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// Checks the roster is built from the projection query, counts people the same way as before and is cached until a write invalidates it
+class FireStationServiceTest {
+
+    private final PersonRepository personRepository = mock(PersonRepository.class);
+    private final FireStationService fireStationService = new FireStationService(personRepository, new StationRosterCache(100, Duration.ofMinutes(5)));
+
+    @Test
+    void getPeopleByStation_countsAdultsAndChildren() throws Exception {
+        when(personRepository.findRosterByStationNumber(4)).thenReturn(List.of(
+                new RosterEntry("John", "Doe", "123 Main St", "555-5555", 30),
+                new RosterEntry("Jane", "Doe", "123 Main St", "555-5556", 18),
+                new RosterEntry("Jimmy", "Doe", "123 Main St", "555-5557", 5)));
+
+        Map<String, Object> response = fireStationService.getPeopleByStation(4);
+
+        assertEquals(1, response.get("adultCount"));
+        assertEquals(2, response.get("childCount"));
+        verify(personRepository, never()).findByFireStationStationNumber(anyInt());
+
+        // Json for each person should be the same four fields as before
+        String json = new ObjectMapper().writeValueAsString(response.get("people"));
+        assertTrue(json.startsWith("[{\"firstName\":\"John\",\"lastName\":\"Doe\",\"address\":\"123 Main St\",\"phone\":\"555-5555\"}"));
+        assertFalse(json.contains("age"));
+    }
+
+    @Test
+    void getPeopleByStation_emptyStation() {
+        when(personRepository.findRosterByStationNumber(9)).thenReturn(List.of());
+
+        assertTrue(fireStationService.getPeopleByStation(9).isEmpty());
+    }
+
+    @Test
+    void getPeopleByStation_cachedUntilInvalidated() {
+        when(personRepository.findRosterByStationNumber(4)).thenReturn(List.of(
+                new RosterEntry("John", "Doe", "123 Main St", "555-5555", 30)));
+
+        fireStationService.getPeopleByStation(4);
+        fireStationService.getPeopleByStation(4);
+        verify(personRepository, times(1)).findRosterByStationNumber(4);
+
+        fireStationService.invalidateRosters(List.of(4));
+        fireStationService.getPeopleByStation(4);
+        verify(personRepository, times(2)).findRosterByStationNumber(4);
+
+        Map<String, Object> stats = fireStationService.getRosterCacheStats();
+        assertEquals(1L, stats.get("hitCount"));
+        assertEquals(2L, stats.get("missCount"));
+    }
+
+    @Test
+    void getPeopleByStation_doesNotCacheRosterInvalidatedWhileLoading() {
+        // A write lands while the roster is being read, the roster that was read can't be cached or it would be stale
+        when(personRepository.findRosterByStationNumber(4)).thenAnswer(invocation -> {
+            fireStationService.invalidateRosters(List.of(4));
+            return List.of(new RosterEntry("John", "Doe", "123 Main St", "555-5555", 30));
+        });
+
+        fireStationService.getPeopleByStation(4);
+        fireStationService.getPeopleByStation(4);
+
+        verify(personRepository, times(2)).findRosterByStationNumber(4);
+    }
+}
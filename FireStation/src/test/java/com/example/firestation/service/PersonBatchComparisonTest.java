@@ -0,0 +1,109 @@
+package com.example.firestation.service;
+
+import com.example.firestation.controller.PersonController;
+import com.example.firestation.load.SyntheticData;
+import com.example.firestation.model.BatchResult;
+import com.example.firestation.model.FireStation;
+import com.example.firestation.model.Person;
+import com.example.firestation.repository.FireStationRepository;
+import com.example.firestation.repository.PersonRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// People added one request at a time through POST /person against the same people through POST /person/batch, which should be at least 20x faster. Only runs when asked, for example:
+// mvn test -Dtest=PersonBatchComparisonTest -Dbatch.people=20000
+// Every request and batch commits on its own like it would for real, so these run outside the test transaction and empty the tables themselves
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Import({PersonController.class, PersonBatchService.class, FireStationService.class, StationRosterCache.class, StationCounterService.class, PersonSnapshotService.class})
+class PersonBatchComparisonTest {
+
+    private static final int STATIONS = 10;
+
+    @MockBean
+    private ChangeEventService changeEventService;
+
+    @Autowired
+    private PersonController personController;
+
+    @Autowired
+    private PersonBatchService personBatchService;
+
+    @Autowired
+    private FireStationRepository fireStationRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Logger logger = LoggerFactory.getLogger(PersonBatchComparisonTest.class);
+
+    @AfterEach
+    void tearDown() {
+        new SyntheticData(jdbcTemplate, 42).clear();
+    }
+
+    private List<Person> people(int count, List<FireStation> stations, String lastName) {
+        List<Person> people = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            people.add(new Person("John" + i, lastName, "1234 Main St", "123-456-7890", 30, stations.get(i % stations.size()).getId()));
+        }
+        return people;
+    }
+
+    private static double perSecond(int count, long start) {
+        return count / Math.max((System.nanoTime() - start) / 1_000_000_000.0, 1e-9);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "batch.people", matches = "\\d+")
+    void batchIsFasterThanOneAtATime() {
+        int count = Integer.getInteger("batch.people");
+        List<FireStation> stations = new ArrayList<>();
+        for (int i = 1; i <= STATIONS; i++) {
+            stations.add(fireStationRepository.save(new FireStation(i, i + " Main St", null)));
+        }
+        // Warm up both paths so the JIT and the connection pool are the same for each, these people aren't counted.
+        // The timed batch is over in a few seconds, so it's warmed up with as many people as it's timed with, otherwise on one cpu it's mostly timing the JIT compiling it
+        people(1000, stations, "Warmup").forEach(personController::addPerson);
+        personBatchService.addPeople(people(count, stations, "Warmup").iterator());
+
+        long start = System.nanoTime();
+        for (Person person : people(count, stations, "Single")) {
+            personController.addPerson(person);
+        }
+        double single = perSecond(count, start);
+
+        start = System.nanoTime();
+        List<BatchResult> results = personBatchService.addPeople(people(count, stations, "Batch").iterator());
+        double batch = perSecond(count, start);
+
+        String summary = String.format("%d people over %d stations: one at a time %.0f people a second, batch %.0f people a second, %.1fx", count, STATIONS, single, batch, batch / single);
+        logger.info(summary);
+
+        assertTrue(results.stream().allMatch(result -> result.status().equals("CREATED")), summary);
+        assertEquals(3L * count + 1000, personRepository.count(), summary);
+        assertTrue(batch >= 20 * single, summary);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.firestation.service;
+
+import com.example.firestation.model.BatchResult;
+import com.example.firestation.model.FireStation;
+import com.example.firestation.model.Person;
+import com.example.firestation.load.SyntheticData;
+import com.example.firestation.repository.FireStationRepository;
+import com.example.firestation.repository.PersonRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the batch insert against an in memory db to check the row statuses and that inserts really are sent in batches
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "firestation.batch-size=50"})
+@ImportAutoConfiguration(ValidationAutoConfiguration.class)
+@Import({PersonBatchService.class, FireStationService.class, StationRosterCache.class, StationCounterService.class, PersonSnapshotService.class})
+class PersonBatchServiceTest {
+
+    @MockBean
+    private ChangeEventService changeEventService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PersonBatchService personBatchService;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private FireStationRepository fireStationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void addPeople_reportsEachRow() {
+        FireStation fireStation = new FireStation(4, "123 Main St", null);
+        entityManager.persist(fireStation);
+
+        List<Person> people = List.of(
+                new Person("John", "Doe", "1234 Main St", "123-456-7890", 30, fireStation.getId()),
+                new Person("Jane", "Doe", "1234 Main St", "123-456-7891", 30, 9999),
+                new Person(null, "Doe", "1234 Main St", "123-456-7892", 30, fireStation.getId()));
+
+        List<BatchResult> results = personBatchService.addPeople(people.iterator());
+
+        assertEquals("CREATED", results.get(0).status());
+        assertNotNull(results.get(0).id());
+        assertEquals(BatchResult.failed(1, "FireStation not found"), results.get(1));
+        assertEquals(BatchResult.failed(2, "firstName cannot be null!"), results.get(2));
+        assertEquals(1, personRepository.findRosterByStationNumber(4).size());
+    }
+
+    @Test
+    void addPeople_insertsInBatches() {
+        FireStation fireStation = new FireStation(5, "456 Elm St", null);
+        entityManager.persist(fireStation);
+        entityManager.flush();
+
+        List<Person> people = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            people.add(new Person("John" + i, "Doe", "1234 Main St", "123-456-7890", 30, fireStation.getId()));
+        }
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<BatchResult> results = personBatchService.addPeople(people.iterator());
+
+        assertTrue(results.stream().allMatch(result -> result.status().equals("CREATED")));
+        assertEquals(500, personRepository.findRosterByStationNumber(5).size());
+        // One station check, ten batches of inserts and the sequence calls, nowhere near one statement per person
+        assertTrue(statistics.getPrepareStatementCount() < 50, "statements: " + statistics.getPrepareStatementCount());
+    }
+
+    // Each batch commits on its own, so this runs outside the test transaction and empties the tables itself
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void addPeople_reportsARolledBackBatchAsFailed() {
+        try {
+            FireStation fireStation = fireStationRepository.save(new FireStation(6, "789 Oak St", null));
+            List<Person> people = new ArrayList<>();
+            for (int i = 0; i < 120; i++) {
+                // Too long for the column, so the db turns down the second batch (rows 50 to 99) when it's flushed
+                String address = i == 60 ? "1".repeat(300) : "1234 Main St";
+                people.add(new Person("John" + i, "Doe", address, "123-456-7890", 30, fireStation.getId()));
+            }
+
+            List<BatchResult> results = personBatchService.addPeople(people.iterator());
+
+            assertEquals(120, results.size());
+            for (BatchResult result : results) {
+                if (result.row() >= 50 && result.row() < 100) {
+                    assertEquals("FAILED", result.status(), "row " + result.row());
+                    assertNull(result.id());
+                    assertTrue(result.error().startsWith("not saved, rows 50 to 99 were rolled back together"), result.error());
+                } else {
+                    assertEquals("CREATED", result.status(), "row " + result.row());
+                    assertTrue(personRepository.existsById(result.id()), "row " + result.row());
+                }
+            }
+            assertEquals(70, personRepository.findRosterByStationNumber(6).size());
+            assertEquals(70, jdbcTemplate.queryForObject("select adult_count from station_counter_table where fire_station_id = ?", Integer.class, fireStation.getId()));
+        } finally {
+            new SyntheticData(jdbcTemplate, 42).clear();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.firestation.service;
+
+import com.example.firestation.model.AddressCount;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersonColumnsTest {
+
+    @Test
+    void upsertAndRemove() {
+        PersonColumns columns = new PersonColumns(2);
+        columns.upsert(10, 40, 1L, "1 Main St");
+        columns.upsert(30, 8, 1L, "1 Main St");
+        // Lower than the highest id so far, goes in the middle
+        columns.upsert(20, 25, 2L, "2 Main St");
+        columns.upsert(40, 70, null, "3 Main St");
+        assertEquals(4, columns.size());
+        assertEquals(List.of(10L, 30L), columns.idsAtStation(1));
+
+        // Moves to station 2 and gets older
+        columns.upsert(30, 9, 2L, "1 Main St");
+        columns.remove(10);
+        columns.remove(10);
+        columns.remove(99);
+        assertEquals(3, columns.size());
+        assertEquals(List.of(), columns.idsAtStation(1));
+        assertEquals(List.of(20L, 30L), columns.idsAtStation(2));
+
+        // Coming back after being deleted
+        columns.upsert(10, 41, 1L, "1 Main St");
+        assertEquals(4, columns.size());
+        assertEquals(List.of(10L), columns.idsAtStation(1));
+    }
+
+    @Test
+    void ageHistograms() {
+        PersonColumns columns = new PersonColumns(16);
+        columns.upsert(1, 5, 1L, "a");
+        columns.upsert(2, 15, 1L, "a");
+        columns.upsert(3, 19, 1L, "a");
+        columns.upsert(4, 200, 1L, "a");
+        columns.upsert(5, 40, 2L, "a");
+        // No station, so it isn't in any histogram
+        columns.upsert(6, 40, null, "a");
+
+        Map<Long, long[]> histograms = columns.ageHistograms(10, null);
+        assertEquals(Set.of(1L, 2L), histograms.keySet());
+        long[] expected = new long[PersonColumns.MAX_AGE / 10 + 1];
+        expected[0] = 1;
+        expected[1] = 2;
+        expected[expected.length - 1] = 1;
+        assertArrayEquals(expected, histograms.get(1L));
+        assertEquals(1, Arrays.stream(histograms.get(2L)).sum());
+
+        assertEquals(Set.of(2L), columns.ageHistograms(10, List.of(2L, 99L)).keySet());
+    }
+
+    @Test
+    void topAddresses() {
+        PersonColumns columns = new PersonColumns(16);
+        String[] addresses = {"b", "a", "c", "a", "c", "a", "d"};
+        for (int i = 0; i < addresses.length; i++) {
+            columns.upsert(i, 30, 1L, addresses[i]);
+        }
+        columns.remove(6);
+
+        assertEquals(List.of(new AddressCount("a", 3), new AddressCount("c", 2), new AddressCount("b", 1)), columns.topAddresses(10));
+        assertEquals(List.of(new AddressCount("a", 3), new AddressCount("c", 2)), columns.topAddresses(2));
+    }
+
+    // A million random people, checked against counting them the obvious way
+    @Test
+    void matchesANaiveCountOnAMillionPeople() {
+        int people = 1_000_000;
+        SplittableRandom random = new SplittableRandom(42);
+        PersonColumns columns = new PersonColumns(1024);
+        Map<Long, long[]> expected = new HashMap<>();
+        Map<String, Long> perAddress = new HashMap<>();
+        for (int id = 1; id <= people; id++) {
+            int age = 1 + random.nextInt(100);
+            long station = 1 + random.nextInt(1000);
+            String address = random.nextInt(250_000) + " Main St";
+            columns.upsert(id, age, station, address);
+            expected.computeIfAbsent(station, key -> new long[PersonColumns.MAX_AGE / 10 + 1])[age / 10]++;
+            perAddress.merge(address, 1L, Long::sum);
+        }
+
+        Map<Long, long[]> histograms = columns.ageHistograms(10, null);
+        assertEquals(expected.keySet(), histograms.keySet());
+        expected.forEach((station, counts) -> assertArrayEquals(counts, histograms.get(station)));
+
+        long mostPeople = Collections.max(perAddress.values());
+        AddressCount top = columns.topAddresses(1).get(0);
+        assertEquals(mostPeople, top.people());
+        assertEquals(mostPeople, perAddress.get(top.address()));
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.firestation.service;
+
+import com.example.firestation.controller.PersonController;
+import com.example.firestation.model.AddressCount;
+import com.example.firestation.model.AgeHistogram;
+import com.example.firestation.model.Person;
+import com.example.firestation.model.ReassignRequest;
+import com.example.firestation.model.SnapshotRow;
+import com.example.firestation.repository.FireStationRepository;
+import com.example.firestation.repository.PersonRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// The snapshot is only told about changes once they commit, so nothing here runs in a test transaction and the tables are emptied after each test
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "firestation.snapshot.enabled=true"})
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Import({PersonSnapshotService.class, PersonController.class, PersonBatchService.class, StationReassignmentService.class, FireStationService.class, StationRosterCache.class, StationCounterService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PersonSnapshotServiceTest {
+
+    @MockBean
+    private ChangeEventService changeEventService;
+
+    @Autowired
+    private PersonSnapshotService personSnapshotService;
+
+    @Autowired
+    private PersonController personController;
+
+    @Autowired
+    private StationReassignmentService stationReassignmentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private FireStationRepository fireStationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Fire stations 1 and 2 share station number 1, fire station 3 is station number 2. Fire station 1 has 3 people at 1 Main St, fire station 2 has one at 2 Main St
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("insert into fire_station_table (id, station_number, address) values (1, 1, '1 Station St'), (2, 1, '2 Station St'), (3, 2, '3 Station St')");
+        insertPerson(1001, 5, 1, "1 Main St");
+        insertPerson(1002, 35, 1, "1 Main St");
+        insertPerson(1003, 38, 1, "1 Main St");
+        insertPerson(1004, 70, 2, "2 Main St");
+        personSnapshotService.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from station_counter_table");
+        jdbcTemplate.update("delete from person_table");
+        jdbcTemplate.update("delete from fire_station_table");
+    }
+
+    private void insertPerson(long id, int age, long fireStationId, String address) {
+        jdbcTemplate.update("insert into person_table (id, first_name, last_name, address, phone_number, age, fire_station_id) values (?, 'John', 'Doe', ?, '555-5555', ?, ?)",
+                id, address, age, fireStationId);
+    }
+
+    // Station number to {children under 10, people 30 to 39, people 70 to 79}, which are all the buckets the tests use
+    private Map<Integer, List<Long>> ages() throws Exception {
+        return ages(personSnapshotService);
+    }
+
+    private static Map<Integer, List<Long>> ages(PersonSnapshotService snapshot) throws Exception {
+        snapshot.awaitRefreshes();
+        return snapshot.getAgeHistograms(null, 10).orElseThrow().stream()
+                .collect(Collectors.toMap(AgeHistogram::stationNumber, histogram -> List.of(histogram.counts()[0], histogram.counts()[3], histogram.counts()[7])));
+    }
+
+    @Test
+    void build_addsUpStationsWithTheSameNumber() throws Exception {
+        assertEquals(Map.of(1, List.of(1L, 2L, 1L), 2, List.of(0L, 0L, 0L)), ages());
+        assertEquals(List.of(new AddressCount("1 Main St", 3), new AddressCount("2 Main St", 1)), personSnapshotService.getTopAddresses(10).orElseThrow());
+        assertEquals(4, personSnapshotService.getStats().get("people"));
+
+        AgeHistogram station2 = personSnapshotService.getAgeHistograms(2, 5).orElseThrow().get(0);
+        assertEquals(2, station2.stationNumber());
+        assertEquals(0, Arrays.stream(station2.counts()).sum());
+    }
+
+    @Test
+    void personWrites_areAppliedAfterCommit() throws Exception {
+        Person person = new Person("Jane", "Doe", "9 Main St", "555-5556", 31, 3L);
+        personController.addPerson(person);
+        assertEquals(Map.of(1, List.of(1L, 2L, 1L), 2, List.of(0L, 1L, 0L)), ages());
+
+        personController.updatePerson(person.getId(), new Person("Jane", "Doe", "2 Main St", "555-5556", 72, 2L));
+        assertEquals(Map.of(1, List.of(1L, 2L, 2L), 2, List.of(0L, 0L, 0L)), ages());
+        assertEquals(new AddressCount("2 Main St", 2), personSnapshotService.getTopAddresses(2).orElseThrow().get(1));
+
+        personController.deletePerson(person.getId());
+        assertEquals(Map.of(1, List.of(1L, 2L, 1L), 2, List.of(0L, 0L, 0L)), ages());
+        assertEquals(4, personSnapshotService.getStats().get("people"));
+    }
+
+    @Test
+    void reassign_movesEveryoneInTheSnapshot() throws Exception {
+        stationReassignmentService.reassign(3, new ReassignRequest(1L, null));
+
+        assertEquals(Map.of(1, List.of(0L, 0L, 1L), 2, List.of(1L, 2L, 0L)), ages());
+    }
+
+    // The snapshot doesn't see the db change by itself, only after being told about it or rebuilt
+    @Test
+    void stationChanged_picksUpDeletedPeople() throws Exception {
+        jdbcTemplate.update("delete from person_table where fire_station_id = 1");
+        assertEquals(Map.of(1, List.of(1L, 2L, 1L), 2, List.of(0L, 0L, 0L)), ages());
+
+        personSnapshotService.stationChanged(1);
+        assertEquals(Map.of(1, List.of(0L, 0L, 1L), 2, List.of(0L, 0L, 0L)), ages());
+    }
+
+    // Stations are in the second level cache, which doesn't see writes that skip Hibernate either, so it's emptied like a renumber through the api would
+    @Test
+    void stationChanged_picksUpRenumberedAndNewStations() throws Exception {
+        jdbcTemplate.update("update fire_station_table set station_number = 5 where id = 2");
+        jdbcTemplate.update("insert into fire_station_table (id, station_number, address) values (4, 6, '4 Station St')");
+        entityManagerFactory.getCache().evictAll();
+        assertEquals(Map.of(1, List.of(1L, 2L, 1L), 2, List.of(0L, 0L, 0L)), ages());
+
+        personSnapshotService.stationChanged(2);
+        personSnapshotService.stationChanged(4);
+        assertEquals(Map.of(1, List.of(1L, 2L, 0L), 2, List.of(0L, 0L, 0L), 5, List.of(0L, 0L, 1L), 6, List.of(0L, 0L, 0L)), ages());
+    }
+
+    // A change that lands while the first build is reading has no snapshot to go into yet, it still has to be read again once the build is in
+    @Test
+    void firstBuild_picksUpPeopleChangedWhileItRuns() throws Exception {
+        PersonRepository slowRepository = mock(PersonRepository.class, AdditionalAnswers.delegatesTo(personRepository));
+        PersonSnapshotService firstBuild = new PersonSnapshotService(slowRepository, fireStationRepository, transactionManager, true);
+        doAnswer(invocation -> {
+            // The build has read everyone as they were, then 1001 turns 75 and the change is refreshed before the build is swapped in.
+            // It's sent from another thread since this one is in the build's transaction and would hold the change until that commits
+            List<SnapshotRow> rows;
+            try (Stream<SnapshotRow> stream = personRepository.streamSnapshotRows()) {
+                rows = stream.toList();
+            }
+            jdbcTemplate.update("update person_table set age = 75 where id = 1001");
+            CompletableFuture.runAsync(() -> firstBuild.peopleChanged(List.of(1001L))).get();
+            firstBuild.awaitRefreshes();
+            return rows.stream();
+        }).when(slowRepository).streamSnapshotRows();
+        try {
+            firstBuild.rebuild();
+
+            assertEquals(Map.of(1, List.of(0L, 2L, 2L), 2, List.of(0L, 0L, 0L)), ages(firstBuild));
+        } finally {
+            firstBuild.shutdown();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.firestation.service;
+
+import com.example.firestation.load.SyntheticData;
+import com.example.firestation.model.Person;
+import com.example.firestation.model.RosterEntry;
+import com.example.firestation.repository.PersonRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The station roster built the way FireStationService used to (whole Person entities, then a HashMap per person) against the record projection it uses now, on the same seeded people.
+// The timed comparison only runs when asked, for example: mvn test -Dtest=RosterQueryComparisonTest -Droster.people=100000
+// The seeding changes sequences, which commits in H2, so these run outside the test transaction and empty the tables themselves
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RosterQueryComparisonTest {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Logger logger = LoggerFactory.getLogger(RosterQueryComparisonTest.class);
+
+    @AfterEach
+    void tearDown() {
+        new SyntheticData(jdbcTemplate, 42).clear();
+    }
+
+    // What getPeopleByStation did before the projection, copied from it
+    private Map<String, Object> entityRoster(int stationNumber) {
+        List<Person> people = entityManager.createQuery("select p from Person p join p.fireStation f where f.stationNumber = :stationNumber", Person.class)
+                .setParameter("stationNumber", stationNumber)
+                .getResultList();
+        if (people.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        int adultCount = 0;
+        int childCount = 0;
+        List<Map<String, String>> personInfo = new ArrayList<>();
+        for (Person person : people) {
+            Map<String, String> personData = new HashMap<>();
+            personData.put("firstName", person.getFirstName());
+            personData.put("lastName", person.getLastName());
+            personData.put("address", person.getAddress());
+            personData.put("phone", person.getPhoneNumber());
+            if (person.getAge() > 18) {
+                adultCount++;
+            } else {
+                childCount++;
+            }
+            personInfo.add(personData);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("people", personInfo);
+        response.put("adultCount", adultCount);
+        response.put("childCount", childCount);
+        return response;
+    }
+
+    // The service as it is now, with a cache that keeps nothing so every call goes to the db
+    private FireStationService projectionService() {
+        return new FireStationService(personRepository, new StationRosterCache(1000, Duration.ZERO));
+    }
+
+    // The people of a roster from either path as sorted lines, the queries have no order by
+    @SuppressWarnings("unchecked")
+    private static List<String> people(Map<String, Object> roster) {
+        List<String> lines = new ArrayList<>();
+        for (Object person : (List<Object>) roster.get("people")) {
+            if (person instanceof RosterEntry entry) {
+                lines.add(entry.firstName() + "|" + entry.lastName() + "|" + entry.address() + "|" + entry.phone());
+            } else {
+                Map<String, String> map = (Map<String, String>) person;
+                lines.add(map.get("firstName") + "|" + map.get("lastName") + "|" + map.get("address") + "|" + map.get("phone"));
+            }
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+
+    @Test
+    void bothPathsGiveTheSameRoster() {
+        new SyntheticData(jdbcTemplate, 42).generate(2000);
+        FireStationService service = projectionService();
+
+        for (int stationNumber = 1; stationNumber <= SyntheticData.stations(2000); stationNumber++) {
+            Map<String, Object> before = entityRoster(stationNumber);
+            Map<String, Object> after = service.getPeopleByStation(stationNumber);
+            assertEquals(people(before), people(after));
+            assertEquals(before.get("adultCount"), after.get("adultCount"));
+            assertEquals(before.get("childCount"), after.get("childCount"));
+        }
+        assertEquals(Map.of(), service.getPeopleByStation(999));
+    }
+
+    // Time and heap allocated for reading every station's roster ROUNDS times, after WARMUP_ROUNDS that aren't counted
+    private record Measurement(double millisPerRoster, double kilobytesPerRoster) {
+    }
+
+    private static Measurement measure(int stations, IntFunction<Map<String, Object>> roster) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (int stationNumber = 1; stationNumber <= stations; stationNumber++) {
+                roster.apply(stationNumber);
+            }
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int stationNumber = 1; stationNumber <= stations; stationNumber++) {
+                roster.apply(stationNumber);
+            }
+        }
+        int rosters = ROUNDS * stations;
+        return new Measurement((System.nanoTime() - start) / 1_000_000.0 / rosters, (threads.getCurrentThreadAllocatedBytes() - allocated) / 1024.0 / rosters);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "roster.people", matches = "\\d+")
+    void projectionIsFasterThanEntities() {
+        int people = Integer.getInteger("roster.people");
+        int stations = SyntheticData.stations(people);
+        new SyntheticData(jdbcTemplate, 42).generate(people);
+        FireStationService service = projectionService();
+
+        Measurement before = measure(stations, this::entityRoster);
+        Measurement after = measure(stations, service::getPeopleByStation);
+        String summary = String.format("%d people over %d stations, per roster: entities %.2f ms and %.0f KB allocated, projection %.2f ms and %.0f KB allocated",
+                people, stations, before.millisPerRoster(), before.kilobytesPerRoster(), after.millisPerRoster(), after.kilobytesPerRoster());
+        logger.info(summary);
+
+        assertTrue(after.millisPerRoster() < before.millisPerRoster(), summary);
+        assertTrue(after.kilobytesPerRoster() < before.kilobytesPerRoster(), summary);
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.firestation.service;
+
+import com.example.firestation.controller.PersonController;
+import com.example.firestation.model.Person;
+import com.example.firestation.model.ReassignRequest;
+import com.example.firestation.model.ReconcileResult;
+import com.example.firestation.model.StationSummary;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Every way people get written should leave the counters the same as counting the people again
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Import({StationCounterService.class, PersonController.class, PersonBatchService.class, StationReassignmentService.class, FireStationService.class, StationRosterCache.class, PersonSnapshotService.class})
+class StationCounterServiceTest {
+
+    @MockBean
+    private ChangeEventService changeEventService;
+
+    @Autowired
+    private StationCounterService stationCounterService;
+
+    @Autowired
+    private PersonController personController;
+
+    @Autowired
+    private PersonBatchService personBatchService;
+
+    @Autowired
+    private StationReassignmentService stationReassignmentService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Fire stations 1 and 2 have station number 1 and fire station 3 has station number 2. Fire station 1 starts with 2 adults and a child
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("insert into fire_station_table (id, station_number, address) values (1, 1, '1 Station St'), (2, 1, '2 Station St'), (3, 2, '3 Station St')");
+        insertPerson(1001, 40, 1);
+        insertPerson(1002, 30, 1);
+        insertPerson(1003, 8, 1);
+        jdbcTemplate.update("insert into station_counter_table (fire_station_id, adult_count, child_count) values (1, 2, 1), (2, 0, 0), (3, 0, 0)");
+    }
+
+    private void insertPerson(long id, int age, long fireStationId) {
+        jdbcTemplate.update("insert into person_table (id, first_name, last_name, address, phone_number, age, fire_station_id) values (?, 'John', 'Doe', '1 Main St', '555-5555', ?, ?)",
+                id, age, fireStationId);
+    }
+
+    // {adults, children} as stored for the fire station
+    private List<Integer> counts(long fireStationId) {
+        entityManager.flush();
+        return jdbcTemplate.queryForObject("select adult_count, child_count from station_counter_table where fire_station_id = ?",
+                (resultSet, row) -> List.of(resultSet.getInt(1), resultSet.getInt(2)), fireStationId);
+    }
+
+    private void assertCountersMatchPeople() {
+        entityManager.flush();
+        assertEquals(List.of(), jdbcTemplate.queryForList("select c.fire_station_id from station_counter_table c where " +
+                "c.adult_count <> (select count(*) from person_table p where p.fire_station_id = c.fire_station_id and p.age > 18) or " +
+                "c.child_count <> (select count(*) from person_table p where p.fire_station_id = c.fire_station_id and p.age <= 18)", Long.class));
+    }
+
+    @Test
+    void personWrites_updateCounters() {
+        Person child = new Person("Jane", "Doe", "1 Main St", "555-5556", 10, 3L);
+        personController.addPerson(child);
+        assertEquals(List.of(0, 1), counts(3));
+
+        // Moves to fire station 2 and grows up on the way
+        personController.updatePerson(child.getId(), new Person("Jane", "Doe", "1 Main St", "555-5556", 19, 2L));
+        assertEquals(List.of(0, 0), counts(3));
+        assertEquals(List.of(1, 0), counts(2));
+
+        personController.deletePerson(child.getId());
+        assertEquals(List.of(0, 0), counts(2));
+        assertCountersMatchPeople();
+    }
+
+    @Test
+    void batchAdd_updatesCounters() {
+        personBatchService.addPeople(List.of(
+                new Person("A", "Doe", "1 Main St", "555-5555", 30, 2L),
+                new Person("B", "Doe", "1 Main St", "555-5555", 5, 2L),
+                new Person("C", "Doe", "1 Main St", "555-5555", 50, 3L),
+                new Person("D", "Doe", "1 Main St", "555-5555", 50, 99L)).iterator());
+
+        assertEquals(List.of(1, 1), counts(2));
+        assertEquals(List.of(1, 0), counts(3));
+        assertCountersMatchPeople();
+    }
+
+    @Test
+    void reassign_recountsBothStations() {
+        stationReassignmentService.reassign(3, new ReassignRequest(1L, null));
+
+        assertEquals(List.of(0, 0), counts(1));
+        assertEquals(List.of(2, 1), counts(3));
+        assertCountersMatchPeople();
+    }
+
+    @Test
+    void getSummary_addsUpEveryStationWithTheNumber() {
+        insertPerson(1004, 60, 2);
+        stationCounterService.personAdded(2, 60);
+
+        assertEquals(Optional.of(new StationSummary(1, 3, 1)), stationCounterService.getSummary(1));
+        assertEquals(Optional.of(new StationSummary(2, 0, 0)), stationCounterService.getSummary(2));
+        assertEquals(Optional.empty(), stationCounterService.getSummary(99));
+    }
+
+    // A station made outside the app has no counter yet, the first change counts its people instead of adding to nothing
+    @Test
+    void adjust_withoutCounterRecounts() {
+        jdbcTemplate.update("insert into fire_station_table (id, station_number, address) values (4, 3, '4 Station St')");
+        insertPerson(1004, 60, 4);
+        insertPerson(1005, 6, 4);
+
+        stationCounterService.personAdded(4, 6);
+
+        assertEquals(List.of(1, 1), counts(4));
+    }
+
+    @Test
+    void reconcile_repairsDrift() {
+        // Fire station 1's counts are off, fire station 4 has no counter and fire station 5 doesn't exist anymore
+        jdbcTemplate.update("update station_counter_table set adult_count = 7 where fire_station_id = 1");
+        jdbcTemplate.update("insert into fire_station_table (id, station_number, address) values (4, 3, '4 Station St')");
+        insertPerson(1004, 6, 4);
+        jdbcTemplate.update("insert into station_counter_table (fire_station_id, adult_count, child_count) values (5, 1, 1)");
+
+        assertEquals(new ReconcileResult(1, 1, 2), stationCounterService.reconcile());
+        assertEquals(List.of(2, 1), counts(1));
+        assertEquals(List.of(0, 1), counts(4));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from station_counter_table where fire_station_id = 5", Integer.class));
+        assertCountersMatchPeople();
+
+        assertEquals(new ReconcileResult(0, 0, 0), stationCounterService.reconcile());
+    }
+}
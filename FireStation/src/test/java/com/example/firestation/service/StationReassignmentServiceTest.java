@@ -0,0 +1,129 @@
+package com.example.firestation.service;
+
+import com.example.firestation.model.ReassignRequest;
+import com.example.firestation.model.ReassignResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({StationReassignmentService.class, FireStationService.class, StationRosterCache.class, StationCounterService.class, PersonSnapshotService.class})
+class StationReassignmentServiceTest {
+
+    @MockBean
+    private ChangeEventService changeEventService;
+
+    @Autowired
+    private StationReassignmentService stationReassignmentService;
+
+    @Autowired
+    private FireStationService fireStationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Stations 1, 2 and 3 (ids 1, 2 and 3). Station 1 has 30 people on 1 Main St to 30 Main St, station 2 has 10 on 1 Elm St to 10 Elm St and station 3 is empty
+    @BeforeEach
+    void setUp() {
+        for (int i = 1; i <= 3; i++) {
+            jdbcTemplate.update("insert into fire_station_table (id, station_number, address) values (?, ?, ?)", i, i, i + " Station St");
+        }
+        for (int i = 1; i <= 40; i++) {
+            String address = i <= 30 ? i + " Main St" : (i - 30) + " Elm St";
+            jdbcTemplate.update("insert into person_table (id, first_name, last_name, address, phone_number, age, fire_station_id) values (?, ?, ?, ?, ?, ?, ?)",
+                    1000 + i, "John" + i, "Doe", address, "555-5555", 30, i <= 30 ? 1 : 2);
+        }
+    }
+
+    private int peopleAt(long fireStationId) {
+        return jdbcTemplate.queryForObject("select count(*) from person_table where fire_station_id = ?", Integer.class, fireStationId);
+    }
+
+    @Test
+    void reassign_WholeStation() {
+        ReassignResult result = stationReassignmentService.reassign(3, new ReassignRequest(1L, null)).orElseThrow();
+
+        assertEquals(new ReassignResult(3, 3, 30, Map.of(1, 30L)), result);
+        assertEquals(0, peopleAt(1));
+        assertEquals(30, peopleAt(3));
+        assertEquals(10, peopleAt(2));
+    }
+
+    @Test
+    void reassign_Addresses() {
+        // 5 Main St and 2 Elm St move, 1 Station St has nobody and 1 Main St is listed twice
+        List<String> addresses = List.of("1 Main St", "5 Main St", "2 Elm St", "1 Station St", "1 Main St");
+        ReassignResult result = stationReassignmentService.reassign(3, new ReassignRequest(null, addresses)).orElseThrow();
+
+        assertEquals(new ReassignResult(3, 3, 3, Map.of(1, 2L, 2, 1L)), result);
+        assertEquals(28, peopleAt(1));
+        assertEquals(9, peopleAt(2));
+        assertEquals(3, peopleAt(3));
+    }
+
+    @Test
+    void reassign_AddressesAlreadyAtStationArentCounted() {
+        ReassignResult result = stationReassignmentService.reassign(1, new ReassignRequest(null, List.of("1 Main St", "1 Elm St"))).orElseThrow();
+
+        assertEquals(1, result.moved());
+        assertEquals(Map.of(2, 1L), result.movedFrom());
+    }
+
+    @Test
+    void reassign_AddressesInChunks() {
+        // Every Main St address plus enough made up ones to take a few chunks
+        List<String> addresses = new ArrayList<>(IntStream.rangeClosed(1, StationReassignmentService.ADDRESS_CHUNK * 2 + 500).mapToObj(i -> i + " Main St").toList());
+        Collections.reverse(addresses);
+        ReassignResult result = stationReassignmentService.reassign(2, new ReassignRequest(null, addresses)).orElseThrow();
+
+        assertEquals(30, result.moved());
+        assertEquals(Map.of(1, 30L), result.movedFrom());
+        assertEquals(40, peopleAt(2));
+    }
+
+    @Test
+    void reassign_StationNotFound() {
+        assertTrue(stationReassignmentService.reassign(99, new ReassignRequest(1L, null)).isEmpty());
+        assertEquals(30, peopleAt(1));
+    }
+
+    @Test
+    void reassign_SameStationMovesNobody() {
+        assertEquals(0, stationReassignmentService.reassign(1, new ReassignRequest(1L, null)).orElseThrow().moved());
+    }
+
+    // The rosters of the stations people left and the one they went to are dropped once the move commits
+    @Test
+    void reassign_InvalidatesRosters() {
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        try {
+            assertEquals(30, rosterSize(1));
+            assertEquals(10, rosterSize(2));
+            assertTrue(fireStationService.getPeopleByStation(3).isEmpty());
+
+            stationReassignmentService.reassign(3, new ReassignRequest(null, List.of("1 Main St", "1 Elm St")));
+
+            assertEquals(29, rosterSize(1));
+            assertEquals(9, rosterSize(2));
+            assertEquals(2, rosterSize(3));
+        } finally {
+            jdbcTemplate.update("delete from person_table");
+            jdbcTemplate.update("delete from fire_station_table");
+        }
+    }
+
+    private int rosterSize(int stationNumber) {
+        return ((List<?>) fireStationService.getPeopleByStation(stationNumber).get("people")).size();
+    }
+}
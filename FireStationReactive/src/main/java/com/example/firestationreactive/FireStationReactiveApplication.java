@@ -0,0 +1,13 @@
+package com.example.firestationreactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class FireStationReactiveApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(FireStationReactiveApplication.class, args);
+    }
+
+}
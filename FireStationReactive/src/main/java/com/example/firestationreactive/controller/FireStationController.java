@@ -0,0 +1,56 @@
+package com.example.firestationreactive.controller;
+
+import com.example.firestationreactive.model.RosterEntry;
+import com.example.firestationreactive.service.FireStationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+// Read only copy of the FireStation service's GET /firestation. Nothing here blocks, so the request thread is handed back while the query runs
+@RestController
+@RequestMapping("/firestation")
+public class FireStationController {
+    @Autowired
+    private FireStationService fireStationService;
+    private final Logger logger = LoggerFactory.getLogger(FireStationController.class);
+
+    /**
+     * Takes a stationNumber, and uses the service class to find the people it covers and how many are adults and children
+     *
+     * @param stationNumber is used to find people by this number
+     *
+     * @return an OK response entity or not found with response depending on if information is found
+     */
+    @GetMapping
+    public Mono<ResponseEntity<Map<String, Object>>> getPeopleByStation(@RequestParam("stationNumber") int stationNumber) {
+        logger.info("Received a request to get people by fire station {}", stationNumber);
+        return fireStationService.getPeopleByStation(stationNumber)
+                .map(response -> response.isEmpty()
+                        ? ResponseEntity.status(HttpStatus.NOT_FOUND).body(response)
+                        : ResponseEntity.ok(response));
+    }
+
+    /**
+     * Streams the people a station covers as newline delimited json (one person per line) when the request asks for application/x-ndjson. There are no counts since those need the whole roster first
+     *
+     * @param stationNumber is used to find people by this number
+     *
+     * @return the people, written out as they're read from the db
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<RosterEntry> streamPeopleByStation(@RequestParam("stationNumber") int stationNumber) {
+        logger.info("Received a request to stream people by fire station {}", stationNumber);
+        return fireStationService.streamRoster(stationNumber);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.firestationreactive.controller;
+
+import com.example.firestationreactive.model.PersonView;
+import com.example.firestationreactive.repository.PersonRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+// Read only copy of the FireStation service's GET /person
+@RestController
+@RequestMapping("/person")
+public class PersonController {
+    @Autowired
+    private PersonRepository personRepository;
+    private final Logger logger = LoggerFactory.getLogger(PersonController.class);
+
+    /**
+     * Gets all people, as a json array or as newline delimited json depending on the Accept header. Either way rows are written as they come off the db and only as fast as the client reads them, so memory use doesn't grow with the size of the table
+     *
+     * @return all people
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<PersonView> getAllPeople() {
+        logger.info("Received request to get all people");
+        return personRepository.streamAllPeople();
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.firestationreactive.model;
+
+// A person row as it comes off the db, there are no entities in this service
+public record PersonView(long id, String firstName, String lastName, String address, String phoneNumber, int age, Long fireStationId) {
+}
@@ -0,0 +1,7 @@
+package com.example.firestationreactive.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+// One row of a station roster, same json as the servlet version. Age is only used for the adult/child counts, so it's left out of the json.
+public record RosterEntry(String firstName, String lastName, String address, String phone, @JsonIgnore int age) {
+}
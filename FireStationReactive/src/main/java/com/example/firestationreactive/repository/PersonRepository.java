@@ -0,0 +1,39 @@
+package com.example.firestationreactive.repository;
+
+import com.example.firestationreactive.model.PersonView;
+import com.example.firestationreactive.model.RosterEntry;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+// Plain SQL through DatabaseClient, rows are mapped straight into records as the driver hands them over.
+// Nothing is read ahead of what the subscriber asks for, so a slow client slows down the query instead of filling up memory
+@Repository
+public class PersonRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public PersonRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    // Starts from the station number index, same as the servlet version's findRosterByStationNumber
+    public Flux<RosterEntry> findRosterByStationNumber(int stationNumber) {
+        return databaseClient.sql("select p.first_name, p.last_name, p.address, p.phone_number, p.age " +
+                        "from person_table p join fire_station_table f on f.id = p.fire_station_id where f.station_number = :stationNumber")
+                .bind("stationNumber", stationNumber)
+                .map(row -> new RosterEntry(row.get("first_name", String.class), row.get("last_name", String.class),
+                        row.get("address", String.class), row.get("phone_number", String.class), row.get("age", Integer.class)))
+                .all();
+    }
+
+    // Every person, fetched from the db 500 rows at a time
+    public Flux<PersonView> streamAllPeople() {
+        return databaseClient.sql("select id, first_name, last_name, address, phone_number, age, fire_station_id from person_table")
+                .filter(statement -> statement.fetchSize(500))
+                .map(row -> new PersonView(row.get("id", Long.class), row.get("first_name", String.class), row.get("last_name", String.class),
+                        row.get("address", String.class), row.get("phone_number", String.class), row.get("age", Integer.class),
+                        row.get("fire_station_id", Long.class)))
+                .all();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.firestationreactive.service;
+
+import com.example.firestationreactive.model.RosterEntry;
+import com.example.firestationreactive.repository.PersonRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.*;
+
+// Same roster answer as the servlet FireStationService, without its cache. Writes go through the servlet service, so this one would never hear about the changes it needs to invalidate on
+@Service
+public class FireStationService implements FireStationServiceInterface {
+
+    private PersonRepository personRepository;
+
+    @Autowired
+    public FireStationService(PersonRepository personRepository) {
+        this.personRepository = personRepository;
+    }
+
+    @Override
+    public Mono<Map<String, Object>> getPeopleByStation(int stationNumber) {
+        // The counts need every row, so the roster is collected here. An empty roster gives an empty map, same as the servlet version
+        return personRepository.findRosterByStationNumber(stationNumber)
+                .collectList()
+                .map(people -> {
+                    if (people.isEmpty()) {
+                        return Collections.emptyMap();
+                    }
+                    int adultCount = 0;
+                    int childCount = 0;
+                    for (RosterEntry person : people) {
+                        if (person.age() > 18) {
+                            adultCount++;
+                        } else {
+                            childCount++;
+                        }
+                    }
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("people", people);
+                    response.put("adultCount", adultCount);
+                    response.put("childCount", childCount);
+                    return response;
+                });
+    }
+
+    @Override
+    public Flux<RosterEntry> streamRoster(int stationNumber) {
+        return personRepository.findRosterByStationNumber(stationNumber);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.firestationreactive.service;
+
+import com.example.firestationreactive.model.RosterEntry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+public interface FireStationServiceInterface {
+    Mono<Map<String, Object>> getPeopleByStation(int stationNumber);
+    Flux<RosterEntry> streamRoster(int stationNumber);
+}
@@ -0,0 +1,108 @@
+package com.example.firestationreactive.controller;
+
+import com.example.firestationreactive.model.PersonView;
+import com.example.firestationreactive.model.RosterEntry;
+import com.example.firestationreactive.repository.PersonRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+@ActiveProfiles("h2")
+class FireStationControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    private void execute(String sql) {
+        databaseClient.sql(sql).then().block();
+    }
+
+    @BeforeEach
+    void setUp() {
+        execute("insert into fire_station_table (id, station_number, address) values (1, 1, '1 Station St'), (2, 2, '2 Station St')");
+        for (int i = 1; i <= 30; i++) {
+            // Every third person is a child and only the first ten are at station 1
+            execute("insert into person_table (id, first_name, last_name, address, phone_number, age, fire_station_id) values ("
+                    + i + ", 'John" + i + "', 'Doe', '1234 Main St', '555-5555', " + (i % 3 == 0 ? 10 : 40) + ", " + (i <= 10 ? 1 : 2) + ")");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        execute("delete from person_table");
+        execute("delete from fire_station_table");
+    }
+
+    @Test
+    void getPeopleByStation() {
+        webTestClient.get().uri("/firestation?stationNumber=1").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.people.length()").isEqualTo(10)
+                .jsonPath("$.people[0].phone").isEqualTo("555-5555")
+                .jsonPath("$.people[0].age").doesNotExist()
+                .jsonPath("$.adultCount").isEqualTo(7)
+                .jsonPath("$.childCount").isEqualTo(3);
+    }
+
+    @Test
+    void getPeopleByStation_NotFound() {
+        webTestClient.get().uri("/firestation?stationNumber=99").exchange()
+                .expectStatus().isNotFound()
+                .expectBody().json("{}");
+    }
+
+    @Test
+    void streamPeopleByStation() {
+        webTestClient.get().uri("/firestation?stationNumber=2").accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(RosterEntry.class).getResponseBody()
+                .as(StepVerifier::create)
+                .expectNextCount(20)
+                .verifyComplete();
+    }
+
+    @Test
+    void getAllPeople() {
+        webTestClient.get().uri("/person").accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk()
+                .expectBodyList(PersonView.class).hasSize(30);
+
+        webTestClient.get().uri("/person").accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .returnResult(PersonView.class).getResponseBody()
+                .as(StepVerifier::create)
+                .expectNextCount(30)
+                .verifyComplete();
+    }
+
+    // Rows should only be read as they're asked for, so a subscriber that stops asking gets no more than it requested
+    @Test
+    void streamAllPeople_followsDemand() {
+        StepVerifier.create(personRepository.streamAllPeople(), 5)
+                .expectNextCount(5)
+                .expectNoEvent(Duration.ofMillis(200))
+                .thenRequest(25)
+                .expectNextCount(25)
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.firestationreactive.load;
+
+import com.example.loadtest.LoadTest;
+import com.example.loadtest.Scenario;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Same scenarios and data as the FireStation service's LoadScenarioTest, so running both with the same settings compares the servlet and reactive versions side by side:
+// mvn test -Dtest=LoadScenarioTest -Dload.people=100000 -Dload.clients=200 -Dload.duration=30
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("h2")
+class LoadScenarioTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private final Logger logger = LoggerFactory.getLogger(LoadScenarioTest.class);
+
+    private Map<String, Object> checksum() {
+        return databaseClient.sql("select count(*) people, sum(age) ages, sum(length(first_name)) names, sum(fire_station_id) stations from person_table")
+                .fetch().one().block();
+    }
+
+    @Test
+    void syntheticDataIsTheSameEveryTime() {
+        SyntheticData data = new SyntheticData(connectionFactory, 42);
+        data.clear();
+        data.generate(2000);
+        Map<String, Object> first = checksum();
+        data.clear();
+        data.generate(2000);
+
+        assertEquals(first, checksum());
+        assertEquals(2000L, ((Number) checksum().get("people")).longValue());
+        assertEquals(2L, databaseClient.sql("select count(*) from fire_station_table").map(row -> row.get(0, Long.class)).one().block());
+        data.clear();
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "load.people", matches = "\\d+")
+    void loadScenarios() throws InterruptedException {
+        int people = Integer.getInteger("load.people");
+        int clients = Integer.getInteger("load.clients", 100);
+        Duration duration = Duration.ofSeconds(Long.getLong("load.duration", 30));
+        int stations = SyntheticData.stations(people);
+
+        SyntheticData data = new SyntheticData(connectionFactory, 42);
+        data.clear();
+        data.generate(people);
+
+        String base = "http://localhost:" + port;
+        logger.info("{} people, {} stations, {} clients, {} seconds per scenario", people, stations, clients, duration.toSeconds());
+        logger.info(LoadTest.header());
+        run("roster", clients, duration,
+                Scenario.get(random -> URI.create(base + "/firestation?stationNumber=" + (1 + random.nextInt(stations)))));
+        // The whole table is only worth sending over and over when it's small
+        if (people <= 100_000) {
+            int listClients = Math.min(clients, 10);
+            run("all people (json)", listClients, duration,
+                    Scenario.get(random -> URI.create(base + "/person")).header("Accept", "application/json"));
+            run("all people (ndjson)", listClients, duration,
+                    Scenario.get(random -> URI.create(base + "/person")).header("Accept", "application/x-ndjson"));
+        }
+        data.clear();
+    }
+
+    // One line of the results table for each scenario
+    private void run(String scenario, int clients, Duration duration, Scenario requests) throws InterruptedException {
+        logger.info(LoadTest.run(requests, clients, duration).row(scenario));
+    }
+}
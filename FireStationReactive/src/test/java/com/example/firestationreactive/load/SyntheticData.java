@@ -0,0 +1,83 @@
+package com.example.firestationreactive.load;
+
+import com.example.loadtest.SyntheticPeople;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+// R2DBC copy of the FireStation service's SyntheticData. The random numbers are drawn in the same order, so the same seed and size gives exactly the same rows as the servlet version's load scenarios.
+// The placeholders are H2's ($1, $2...) since it's only used on the in memory db
+public class SyntheticData {
+
+    private static final int CHUNK = 10_000;
+
+    private final ConnectionFactory connectionFactory;
+    private final long seed;
+
+    public SyntheticData(ConnectionFactory connectionFactory, long seed) {
+        this.connectionFactory = connectionFactory;
+        this.seed = seed;
+    }
+
+    public static int stations(int people) {
+        return Math.max(1, people / 1000);
+    }
+
+    public void generate(int people) {
+        Random random = new Random(seed);
+        int stations = stations(people);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= stations; i++) {
+            rows.add(new Object[]{(long) i, i, SyntheticPeople.address(random)});
+        }
+        insert("insert into fire_station_table (id, station_number, address) values ($1, $2, $3)", rows);
+
+        rows.clear();
+        for (int i = 1; i <= people; i++) {
+            rows.add(new Object[]{(long) i, SyntheticPeople.firstName(random), SyntheticPeople.lastName(random),
+                    SyntheticPeople.address(random), SyntheticPeople.phoneNumber(random), SyntheticPeople.age(random), (long) (1 + random.nextInt(stations))});
+            if (rows.size() == CHUNK || i == people) {
+                insert("insert into person_table (id, first_name, last_name, address, phone_number, age, fire_station_id) values ($1, $2, $3, $4, $5, $6, $7)", rows);
+                rows.clear();
+            }
+        }
+    }
+
+    public void clear() {
+        execute("delete from person_table");
+        execute("delete from fire_station_table");
+    }
+
+    // Binds every row onto one statement with add() so the chunk goes to the db as a single batch
+    private void insert(String sql, List<Object[]> rows) {
+        withConnection(connection -> {
+            Statement statement = connection.createStatement(sql);
+            for (int i = 0; i < rows.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                Object[] row = rows.get(i);
+                for (int column = 0; column < row.length; column++) {
+                    statement.bind(column, row[column]);
+                }
+            }
+            return Flux.from(statement.execute()).flatMap(result -> result.getRowsUpdated());
+        });
+    }
+
+    private void execute(String sql) {
+        withConnection(connection -> Flux.from(connection.createStatement(sql).execute()).flatMap(result -> result.getRowsUpdated()));
+    }
+
+    private void withConnection(Function<Connection, Flux<Long>> work) {
+        Flux.usingWhen(Mono.from(connectionFactory.create()), work, Connection::close).blockLast();
+    }
+}
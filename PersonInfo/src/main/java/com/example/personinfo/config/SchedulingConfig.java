@@ -0,0 +1,10 @@
+package com.example.personinfo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Turns on @Scheduled jobs. Right now that's ChangeEventService polling the outbox for other instances' events and purging old ones
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,17 +1,26 @@
 package com.example.personinfo.controller;
 
+import com.example.personinfo.model.ExportRow;
 import com.example.personinfo.model.Medication;
+import com.example.personinfo.model.MedicationView;
 import com.example.personinfo.model.Person;
 import com.example.personinfo.repository.MedicationRepository;
+import com.example.personinfo.service.ChangeEventService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.stream.Stream;
 
 // Having the mapping here makes it the mapping for all functions. In a case where there would be 2 or more of the same mapping, I could specify something like "/map" for the method, and, as a result, the entire path would be "/medication/map"
 @RestController
@@ -19,6 +28,12 @@ import java.util.List;
 public class MedicationController {
     @Autowired
     private MedicationRepository medicationRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ChangeEventService changeEventService;
     private final Logger logger = LoggerFactory.getLogger(MedicationController.class);
 
     /**
@@ -37,6 +52,37 @@ public class MedicationController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Streams all medication as newline delimited json (one medication per line) when the request asks for application/x-ndjson. Rows are written as they come off the database cursor, so memory use doesn't grow with the size of the table
+     *
+     * @param response the response the medication is written to
+     *
+     * @throws IOException if the client goes away while streaming
+     */
+    @GetMapping(produces = "application/x-ndjson")
+    @Transactional(readOnly = true)
+    public void streamAllMedication(HttpServletResponse response) throws IOException {
+        logger.info("Received request to stream all Medication");
+        long start = System.nanoTime();
+        long firstByte = -1;
+        long count = 0;
+        response.setContentType("application/x-ndjson");
+        OutputStream out = response.getOutputStream();
+        try (Stream<MedicationView> medication = medicationRepository.streamAllMedication()) {
+            for (MedicationView view : (Iterable<MedicationView>) medication::iterator) {
+                out.write(objectMapper.writeValueAsBytes(view));
+                out.write('\n');
+                // Flush the first row right away so the client gets something without waiting for a full buffer
+                if (count++ == 0) {
+                    out.flush();
+                    firstByte = System.nanoTime() - start;
+                }
+            }
+        }
+        out.flush();
+        logger.info("Streamed {} Medication, first byte after {} ms, finished after {} ms", count, firstByte / 1_000_000, (System.nanoTime() - start) / 1_000_000);
+    }
+
     /**
      * Take medication as a request, then save it to the db using the medication repository
      *
@@ -45,9 +91,11 @@ public class MedicationController {
      * @return a response entity with the medication and created status
      */
     @PostMapping
+    @Transactional
     public ResponseEntity<Medication> addMedication(@Valid @RequestBody Medication medication) {
         logger.info("Received request to add a new Medication: {}", medication);
         Medication savedMedication = medicationRepository.save(medication);
+        changeEventService.record("medication", "create", medication.getId(), new MedicationView(medication.getId(), medication.getName(), medication.getDosage()));
         return new ResponseEntity<>(savedMedication, HttpStatus.CREATED);
     }
 
@@ -60,18 +108,26 @@ public class MedicationController {
      * @return a response entity with either ok or not found status depending on circumstances
      */
     @PutMapping("/{id}")
+    @Transactional
     public ResponseEntity<Medication> updateMedication(@PathVariable Long id, @Valid @RequestBody Medication medicationDetails) {
         logger.info("Received request to update a Medication: {}", id);
         return medicationRepository.findById(id)
                 .map(medication -> {
-                    if (medication.getPeople() != null) {
-                        for (Person person : medication.getPeople()) {
-                            person.getMedication().remove(medication);
-                        }
+                    List<Person> people = medication.getPeople() == null ? List.of() : List.copyOf(medication.getPeople());
+                    for (Person person : people) {
+                        person.getMedication().remove(medication);
+                        // Their medication list just changed, so they go out again as well
+                        person.touch();
                     }
                     medication.setName(medicationDetails.getName());
                     medication.setDosage(medicationDetails.getDosage());
                     Medication updatedMedication = medicationRepository.save(medication);
+                    // Flushed so the updatedAt stamped on each person's update is the one in their event
+                    medicationRepository.flush();
+                    for (Person person : people) {
+                        changeEventService.record("person", "update", person.getId(), ExportRow.of(person));
+                    }
+                    changeEventService.record("medication", "update", id, new MedicationView(id, medication.getName(), medication.getDosage()));
                     return ResponseEntity.ok(updatedMedication);
                 })
                 .orElse(ResponseEntity.notFound().build());
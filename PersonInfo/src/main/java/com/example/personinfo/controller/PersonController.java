@@ -1,19 +1,26 @@
 package com.example.personinfo.controller;
 
+import com.example.personinfo.model.ExportRow;
+import com.example.personinfo.model.ImportResult;
 import com.example.personinfo.model.Medication;
 import com.example.personinfo.model.Person;
-import com.example.personinfo.repository.MedicationRepository;
 import com.example.personinfo.repository.PersonRepository;
-import jakarta.transaction.Transactional;
+import com.example.personinfo.service.ChangeEventService;
+import com.example.personinfo.service.MedicationService;
+import com.example.personinfo.service.PersonImportService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 // This is the same as the medication where this mapping is for all methods unless otherwise specified
 @RestController
@@ -23,7 +30,13 @@ public class PersonController {
     private PersonRepository personRepository;
 
     @Autowired
-    private MedicationRepository medicationRepository;
+    private MedicationService medicationService;
+
+    @Autowired
+    private PersonImportService personImportService;
+
+    @Autowired
+    private ChangeEventService changeEventService;
     private final Logger logger = LoggerFactory.getLogger(PersonController.class);
 
     /**
@@ -53,14 +66,17 @@ public class PersonController {
      * @return a response entity with the saved person and created status or bad request depending on the circumstance
      */
     @PostMapping
+    @Transactional
     public ResponseEntity<Person> createPerson(@Valid @RequestBody Person person) {
         logger.info("Received request to add a new Person: {}", person);
-        for (Medication med : person.getMedication()) {
-            if (medicationRepository.findById(med.getId()).isEmpty()) {
-                return ResponseEntity.badRequest().body(null);
-            }
+        // All the medication is checked with one query, bad request if any of it doesn't exist
+        Optional<List<Medication>> medication = medicationService.resolveMedication(person.getMedication());
+        if (medication.isEmpty()) {
+            return ResponseEntity.badRequest().body(null);
         }
+        person.setMedication(medication.get());
         Person savedPerson = personRepository.save(person);
+        changeEventService.record("person", "create", savedPerson.getId(), ExportRow.of(savedPerson));
         return new ResponseEntity<>(savedPerson, HttpStatus.CREATED);
     }
 
@@ -74,6 +90,7 @@ public class PersonController {
      * @return a response entity with okay or not found, can also throw an error
      */
     @PutMapping("/{id}")
+    @Transactional
     public ResponseEntity<Person> updatePersonWithMedications(@PathVariable Long id, @Valid @RequestBody Person personDetails) {
         logger.info("Received request to update a Person: {}", id);
         return personRepository.findById(id)
@@ -84,23 +101,48 @@ public class PersonController {
                     person.setPhoneNumber(personDetails.getPhoneNumber());
                     person.setAge(personDetails.getAge());
 
-                    // Clear previous medications and then loop through adding the ones in the request
+                    // Clear previous medications and then add the ones in the request
                     if (personDetails.getMedication() != null) {
-                        // Clear current medications
-                        person.getMedication().clear();
+                        // Look up all the medications from the request in one query
+                        List<Medication> medication = medicationService.resolveMedication(personDetails.getMedication())
+                                .orElseThrow(() -> new RuntimeException("Medication not found"));
 
-                        // Loop through the medications from the request and set them
-                        for (Medication medication : personDetails.getMedication()) {
-                            Medication existingMedication = medicationRepository.findById(medication.getId())
-                                    .orElseThrow(() -> new RuntimeException("Medication not found"));
-                            person.getMedication().add(existingMedication);
-                        }
+                        // Replace the current medications
+                        person.getMedication().clear();
+                        person.getMedication().addAll(medication);
                     }
 
                     // Save the person
+                    person.touch();
                     Person updatedPerson = personRepository.save(person);
+                    // Flushed so the updatedAt stamped on the update is the one in the event
+                    personRepository.flush();
+                    changeEventService.record("person", "update", id, ExportRow.of(person));
                     return ResponseEntity.ok(updatedPerson);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    /**
+     * Imports a whole file of patients at once instead of one POST each. The file is read as it's uploaded and written to the db in batches, so it can be as big as needed
+     *
+     * @param request the request, its body is the file. Content type text/csv for a csv with a header line, application/x-ndjson for one json person a line
+     *
+     * @return a response entity with how many people were imported and rejected (with the reasons for the first ones) and how fast it went, or bad request if the csv header is missing a column
+     *
+     * @throws IOException if the upload can't be read
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ImportResult> importPeople(HttpServletRequest request) throws IOException {
+        logger.info("Received request to import people as {}", request.getContentType());
+        try {
+            ImportResult result = request.getContentType().startsWith("text/csv")
+                    ? personImportService.importCsv(request.getInputStream())
+                    : personImportService.importNdjson(request.getInputStream());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.info("Can't import: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
 }
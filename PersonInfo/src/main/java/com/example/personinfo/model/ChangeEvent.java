@@ -0,0 +1,13 @@
+package com.example.personinfo.model;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+
+// One create, update or delete as GET /events sends it. seq is its place in the order changes committed, payload is the json of what was written (null for a delete) and goes out as json, not as a string
+public record ChangeEvent(long seq, String entity, String operation, long entityId, @JsonRawValue String payload, Instant createdAt) {
+
+    public ChangeEvent withSeq(long seq) {
+        return new ChangeEvent(seq, entity, operation, entityId, payload, createdAt);
+    }
+}
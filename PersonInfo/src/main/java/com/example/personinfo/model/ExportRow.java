@@ -0,0 +1,36 @@
+package com.example.personinfo.model;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+// A person as GET /export writes them, with their allergies and the ids of their medication. The fields are written in this order and the lists are sorted, so the same person always comes out the same.
+// The names match ImportRow, so an export can be sent straight back to POST /personinfo/import. Person change events carry the same row, so they can be applied over an export
+public record ExportRow(long id, String firstName, String lastName, String address, String phoneNumber, int age, List<String> allergies, List<Long> medication, String updatedAt) {
+
+    public static final DateTimeFormatter UPDATED_AT = DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss.SSSSSS'Z'").withZone(ZoneOffset.UTC);
+
+    public static ExportRow of(Person person) {
+        List<Long> medication = Objects.requireNonNullElse(person.getMedication(), List.<Medication>of()).stream().map(Medication::getId).toList();
+        return new ExportRow(person.getId(), person.getFirstName(), person.getLastName(), person.getAddress(), person.getPhoneNumber(), person.getAge(),
+                sortedAllergies(person.getAllergies()), sortedMedication(medication), UPDATED_AT.format(person.getUpdatedAt()));
+    }
+
+    // For a person the import wrote with plain JDBC, where there's no entity to read back
+    public static ExportRow of(long id, ImportRow row, Collection<Long> medication, Instant updatedAt) {
+        return new ExportRow(id, row.firstName(), row.lastName(), row.address(), row.phoneNumber(), row.age(),
+                sortedAllergies(row.allergies()), sortedMedication(medication), UPDATED_AT.format(updatedAt));
+    }
+
+    private static List<String> sortedAllergies(Collection<String> allergies) {
+        return Objects.requireNonNullElse(allergies, List.<String>of()).stream().sorted(Comparator.nullsFirst(Comparator.naturalOrder())).toList();
+    }
+
+    private static List<Long> sortedMedication(Collection<Long> medication) {
+        return Objects.requireNonNullElse(medication, List.<Long>of()).stream().sorted().toList();
+    }
+}
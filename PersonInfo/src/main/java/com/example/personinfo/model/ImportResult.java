@@ -0,0 +1,7 @@
+package com.example.personinfo.model;
+
+import java.util.List;
+
+// How an import went. Errors has the line number and reason for the first rejected lines, rejected has the count of all of them
+public record ImportResult(long imported, long rejected, List<String> errors, long millis, long rowsPerSecond) {
+}
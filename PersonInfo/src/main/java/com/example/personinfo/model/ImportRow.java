@@ -0,0 +1,7 @@
+package com.example.personinfo.model;
+
+import java.util.List;
+
+// One patient from an import file. Medication can be given by id or by name, allergies and medication can be left out
+public record ImportRow(String firstName, String lastName, String address, String phoneNumber, Integer age, List<String> allergies, List<String> medication) {
+}
@@ -5,6 +5,8 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
@@ -12,6 +14,9 @@ import java.util.List;
 @Getter
 @Entity
 @Table(name="MedicationTable")
+// The medication list is close to fixed and gets resolved for every person that's saved, so Hibernate keeps it in the second level cache (region in hibernate-cache.conf)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "medication")
 public class Medication {
 
     // Setters and getters
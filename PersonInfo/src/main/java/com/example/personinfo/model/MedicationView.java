@@ -0,0 +1,5 @@
+package com.example.personinfo.model;
+
+// Read-only copy of a medication row used when streaming the whole table. Rows come straight from the query so nothing builds up in the persistence context while streaming.
+public record MedicationView(long id, String name, String dosage) {
+}
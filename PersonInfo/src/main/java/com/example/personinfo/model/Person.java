@@ -1,11 +1,19 @@
 package com.example.personinfo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 @Entity
@@ -30,16 +38,25 @@ public class Person {
     @Positive(message = "age cannot be negative!")
     private int age;
 
-    // Make a table for this since it's more than one value.
+    // Make a table for this since it's more than one value. When it's first used, the allergies of every person loaded by the same query are read in one go instead of one query per person
     @ElementCollection
+    @Fetch(FetchMode.SUBSELECT)
     @CollectionTable(name = "Allergies", joinColumns = @JoinColumn(name = "person_id"))
     @Column(name = "allergy")
     private List<String> allergies;
 
-    // This is many to many since one person can have more than one medication and vise versa.
+    // This is many to many since one person can have more than one medication and vise versa. The name lookup fetches it with the people, anything else loads it for up to 100 people at a time
     @ManyToMany(cascade = CascadeType.MERGE)
+    @BatchSize(size = 100)
     private List<Medication> medication;
 
+    // When the row last changed, GET /export?since= goes by it. Stamped right before the insert or update instead of when the object is made, so a person read from a request a while before it's saved isn't written out already in the past.
+    // Changing only a list doesn't update the row by itself, touch() makes the person count as changed for that. The bulk updates and imports that skip the entity set it themselves.
+    // Kept to microseconds since that's all the column holds, and never part of the json
+    @JsonIgnore
+    @JdbcTypeCode(SqlTypes.TIMESTAMP)
+    private Instant updatedAt;
+
     // Constructors
     public Person(long id, String firstName, String lastName, String address, String phoneNumber, int age, List<String> allergies, List<Medication> medication) {
         this.id = id;
@@ -74,4 +91,19 @@ public class Person {
 
     }
 
+    // Cut to microseconds, which is what the column stores
+    public static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void stampUpdatedAt() {
+        updatedAt = now();
+    }
+
+    public void touch() {
+        updatedAt = now();
+    }
+
 }
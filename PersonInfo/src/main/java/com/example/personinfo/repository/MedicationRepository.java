@@ -1,7 +1,18 @@
 package com.example.personinfo.repository;
 
 import com.example.personinfo.model.Medication;
+import com.example.personinfo.model.MedicationView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.stream.Stream;
 
 public interface MedicationRepository extends JpaRepository<Medication, Long> {
+    // Forward only cursor over every medication, has to be used inside a transaction and closed after. The fetch size keeps the driver from reading the whole table at once
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.personinfo.model.MedicationView(m.id, m.name, m.dosage) from Medication m")
+    Stream<MedicationView> streamAllMedication();
 }
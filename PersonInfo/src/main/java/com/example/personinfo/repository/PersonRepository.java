@@ -1,6 +1,7 @@
 package com.example.personinfo.repository;
 
 import com.example.personinfo.model.Person;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
@@ -8,5 +9,8 @@ import java.util.List;
 public interface PersonRepository extends JpaRepository<Person, Long> {
     List<Person> findByFirstName(String firstName);
     List<Person> findByLastName(String lastName);
+
+    // GET /personinfo writes out every person's medication and allergies, so the medication is joined in here. Only one of the two lists can be joined (Hibernate can't fetch two bags at once), the allergies come in one more query from the subselect on Person
+    @EntityGraph(attributePaths = "medication")
     List<Person> findByFirstNameAndLastName(String firstName, String lastName);
 }
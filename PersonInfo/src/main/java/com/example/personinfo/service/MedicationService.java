@@ -0,0 +1,53 @@
+package com.example.personinfo.service;
+
+import com.example.personinfo.model.Medication;
+import jakarta.persistence.EntityManager;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Use this service to turn the medication in a request (which only needs ids) into the real medication from the db.
+@Service
+public class MedicationService implements MedicationServiceInterface {
+
+    private EntityManager entityManager;
+
+    // Can have the constructor be autowired so it autowires everything in the constructor
+    @Autowired
+    public MedicationService(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    // Looks up every medication at once instead of one findById per medication. Returns empty if any of the ids don't exist.
+    // multiLoad checks the second level cache first (only when it is given a cache mode) and queries the db in one statement for the ids that aren't there, findAllById would always query
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<List<Medication>> resolveMedication(List<Medication> medication) {
+        if (medication == null || medication.isEmpty()) {
+            return Optional.of(new ArrayList<>());
+        }
+
+        Set<Long> ids = medication.stream().map(Medication::getId).collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<Long, Medication> found = entityManager.unwrap(Session.class).byMultipleIds(Medication.class).with(CacheMode.NORMAL).multiLoad(new ArrayList<>(ids)).stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toMap(Medication::getId, Function.identity()));
+
+        // Any id that wasn't found means the request asked for medication that doesn't exist
+        if (!found.keySet().containsAll(ids)) {
+            return Optional.empty();
+        }
+
+        // Keep the order from the request
+        List<Medication> resolved = new ArrayList<>();
+        for (Medication med : medication) {
+            resolved.add(found.get(med.getId()));
+        }
+        return Optional.of(resolved);
+    }
+}
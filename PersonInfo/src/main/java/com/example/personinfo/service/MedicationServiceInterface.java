@@ -0,0 +1,10 @@
+package com.example.personinfo.service;
+
+import com.example.personinfo.model.Medication;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface MedicationServiceInterface {
+    Optional<List<Medication>> resolveMedication(List<Medication> medication);
+}
@@ -0,0 +1,193 @@
+package com.example.personinfo.service;
+
+import com.example.personinfo.model.ExportFormat;
+import com.example.personinfo.model.ExportRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Use this service for GET /export. People, allergies and medication are three cursors all ordered by person id and read side by side, so each person is written with their lists as soon as they're read
+// and only one person's lists are ever held. personinfo.export.fetch-size is the rows each cursor gets per round trip. The lists are sorted and everything is formatted the same way every time, so the same people give the same bytes
+@Service
+public class PersonExportService implements PersonExportServiceInterface {
+
+    static final String CSV_HEADER = "id,firstName,lastName,address,phoneNumber,age,allergies,medication,updatedAt";
+    private static final String PEOPLE = "select p.id, p.first_name, p.last_name, p.address, p.phone_number, p.age, p.updated_at from person_table p ";
+    private static final String ALLERGIES = "select a.person_id, a.allergy from allergies a join person_table p on p.id = a.person_id ";
+    private static final String MEDICATION = "select m.people_id, m.medication_id from person_table_medication m join person_table p on p.id = m.people_id ";
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    private ObjectWriter rowWriter;
+    private int fetchSize;
+    private Duration overlap;
+
+    // Can have the constructor be autowired so it autowires everything in the constructor
+    @Autowired
+    public PersonExportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                               @Value("${personinfo.export.fetch-size:1000}") int fetchSize, @Value("${personinfo.export.overlap:PT1M}") Duration overlap) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.rowWriter = objectMapper.writerFor(ExportRow.class).without(SerializationFeature.INDENT_OUTPUT);
+        this.fetchSize = fetchSize;
+        this.overlap = overlap;
+    }
+
+    // The overlap before since covers people stamped before the last export's Last-Modified whose import chunk committed after it
+    private Timestamp start(Instant since) {
+        return Timestamp.from(since.minus(overlap));
+    }
+
+    // Exports go up to the last whole second, because If-Modified-Since only has whole seconds and the next export starts from this time
+    @Override
+    public Instant exportUntil() {
+        return Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    @Override
+    public boolean changedBetween(Instant since, Instant until) {
+        return !jdbcTemplate.queryForList("select id from person_table where updated_at >= ? and updated_at < ? limit 1", Long.class,
+                start(since), Timestamp.from(until)).isEmpty();
+    }
+
+    // Everyone changed in [since - overlap, until), or everyone changed before until if since is null. Returns how many people were written
+    // The three queries are one read-only transaction, which on MySQL means they all see the table as it was when the first one started
+    @Override
+    public long export(ExportFormat format, Instant since, Instant until, OutputStream out) throws IOException {
+        String where = since == null ? "where p.updated_at < ?" : "where p.updated_at >= ? and p.updated_at < ?";
+        long[] count = {0};
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                try (PreparedStatement people = prepare(connection, PEOPLE + where + " order by p.id", since, until);
+                     PreparedStatement allergies = prepare(connection, ALLERGIES + where + " order by a.person_id", since, until);
+                     PreparedStatement medication = prepare(connection, MEDICATION + where + " order by m.people_id", since, until);
+                     ResultSet peopleRows = people.executeQuery();
+                     ResultSet allergyRows = allergies.executeQuery();
+                     ResultSet medicationRows = medication.executeQuery()) {
+                    ListCursor<String> allergyCursor = new ListCursor<>(allergyRows, rows -> rows.getString(2));
+                    ListCursor<Long> medicationCursor = new ListCursor<>(medicationRows, rows -> rows.getLong(2));
+                    if (format == ExportFormat.CSV) {
+                        write(out, CSV_HEADER + "\n");
+                    }
+                    while (peopleRows.next()) {
+                        long id = peopleRows.getLong(1);
+                        List<String> personAllergies = allergyCursor.valuesFor(id);
+                        personAllergies.sort(Comparator.nullsFirst(Comparator.naturalOrder()));
+                        List<Long> personMedication = medicationCursor.valuesFor(id);
+                        personMedication.sort(Comparator.naturalOrder());
+                        ExportRow row = new ExportRow(id, peopleRows.getString(2), peopleRows.getString(3), peopleRows.getString(4), peopleRows.getString(5), peopleRows.getInt(6),
+                                personAllergies, personMedication, ExportRow.UPDATED_AT.format(peopleRows.getTimestamp(7).toInstant()));
+                        write(out, format == ExportFormat.CSV ? csvLine(row) : json(row));
+                        count[0]++;
+                    }
+                }
+                return null;
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return count[0];
+    }
+
+    private PreparedStatement prepare(Connection connection, String sql, Instant since, Instant until) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(fetchSize);
+        int parameter = 1;
+        if (since != null) {
+            statement.setTimestamp(parameter++, start(since));
+        }
+        statement.setTimestamp(parameter, Timestamp.from(until));
+        return statement;
+    }
+
+    private String json(ExportRow row) {
+        try {
+            return rowWriter.writeValueAsString(row) + "\n";
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Lists are separated by ; like the import expects
+    private static String csvLine(ExportRow row) {
+        String allergies = row.allergies().stream().map(allergy -> allergy == null ? "" : allergy).collect(Collectors.joining(";"));
+        String medication = row.medication().stream().map(String::valueOf).collect(Collectors.joining(";"));
+        return row.id() + "," + csv(row.firstName()) + "," + csv(row.lastName()) + "," + csv(row.address()) + "," + csv(row.phoneNumber()) + "," + row.age() + ","
+                + csv(allergies) + "," + medication + "," + row.updatedAt() + "\n";
+    }
+
+    // Quoted when there's a comma, quote or line break in it, the way parseCsvLine in the import reads it back
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static void write(OutputStream out, String text) {
+        try {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Goes along (person id, value) rows ordered by person id at the same pace as the people, handing out each person's values as they come up
+    private static final class ListCursor<T> {
+        private final ResultSet rows;
+        private final ColumnReader<T> reader;
+        private boolean more;
+
+        ListCursor(ResultSet rows, ColumnReader<T> reader) throws SQLException {
+            this.rows = rows;
+            this.reader = reader;
+            this.more = rows.next();
+        }
+
+        List<T> valuesFor(long personId) throws SQLException {
+            List<T> values = new ArrayList<>();
+            // Rows for an id that's already gone by would be for someone who changed between the queries, they're skipped
+            while (more && rows.getLong(1) < personId) {
+                more = rows.next();
+            }
+            while (more && rows.getLong(1) == personId) {
+                values.add(reader.read(rows));
+                more = rows.next();
+            }
+            return values;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ColumnReader<T> {
+        T read(ResultSet rows) throws SQLException;
+    }
+}
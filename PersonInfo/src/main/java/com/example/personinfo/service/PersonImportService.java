@@ -0,0 +1,366 @@
+package com.example.personinfo.service;
+
+import com.example.personinfo.model.ExportRow;
+import com.example.personinfo.model.ImportResult;
+import com.example.personinfo.model.ImportRow;
+import com.example.personinfo.model.MedicationView;
+import com.example.personinfo.model.Person;
+import com.example.personinfo.repository.MedicationRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Use this service to load a lot of patients at once. The file is read a line at a time and written in chunks of 1000 people, each chunk is a few JDBC batches (people, allergies, medication) in its own transaction, so memory stays the same however big the file is.
+// Medication is matched against a map of every medication read once at the start, not looked up per person. A line that can't be imported is skipped and reported, the rest still goes in
+@Service
+public class PersonImportService implements PersonImportServiceInterface {
+
+    private static final int CHUNK = 1000;
+    private static final int MAX_ERRORS = 100;
+    private static final long PROGRESS_EVERY = 100_000;
+    private static final List<String> REQUIRED_COLUMNS = List.of("firstName", "lastName", "address", "phoneNumber", "age");
+    // The text columns are all varchar(255)
+    private static final int MAX_LENGTH = 255;
+
+    private static final String INSERT_PERSON = "insert into person_table (first_name, last_name, address, phone_number, age, updated_at) values (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ALLERGY = "insert into allergies (person_id, allergy) values (?, ?)";
+    private static final String INSERT_MEDICATION = "insert into person_table_medication (people_id, medication_id) values (?, ?)";
+
+    private JdbcTemplate jdbcTemplate;
+    private MedicationRepository medicationRepository;
+    private ChangeEventService changeEventService;
+    private TransactionTemplate transactionTemplate;
+    private ObjectReader rowReader;
+    private final Logger logger = LoggerFactory.getLogger(PersonImportService.class);
+
+    // Can have the constructor be autowired so it autowires everything in the constructor
+    @Autowired
+    public PersonImportService(JdbcTemplate jdbcTemplate, MedicationRepository medicationRepository, ChangeEventService changeEventService, PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.medicationRepository = medicationRepository;
+        this.changeEventService = changeEventService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rowReader = objectMapper.readerFor(ImportRow.class);
+    }
+
+    // The first line is the header, the columns can be in any order. Allergies and medication are lists separated by ;
+    @Override
+    public ImportResult importCsv(InputStream input) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("the file is empty");
+        }
+        // Spreadsheet programs often start the file with a byte order mark
+        List<String> columns = parseCsvLine(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.contains(column)) {
+                throw new IllegalArgumentException("the header is missing " + column);
+            }
+        }
+        return importLines(reader, 2, line -> csvRow(columns, parseCsvLine(line)));
+    }
+
+    // One json object a line, with the same fields as ImportRow
+    @Override
+    public ImportResult importNdjson(InputStream input) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        return importLines(reader, 1, line -> {
+            try {
+                return rowReader.readValue(line);
+            } catch (JsonProcessingException e) {
+                throw new RejectedRowException("not valid json: " + e.getOriginalMessage());
+            }
+        });
+    }
+
+    private ImportResult importLines(BufferedReader reader, int firstLineNumber, Function<String, ImportRow> parse) throws IOException {
+        long start = System.nanoTime();
+        MedicationLookup medicationLookup = loadMedication();
+        List<ImportRow> rows = new ArrayList<>(CHUNK);
+        List<Set<Long>> medication = new ArrayList<>(CHUNK);
+        List<String> errors = new ArrayList<>();
+        long imported = 0;
+        long rejected = 0;
+
+        int lineNumber = firstLineNumber - 1;
+        // The first and last line of the rows waiting to be written, for reporting a chunk the db turned down
+        int chunkStart = 0;
+        int chunkEnd = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                ImportRow row = parse.apply(line);
+                validate(row);
+                Set<Long> medicationIds = new LinkedHashSet<>();
+                for (String med : Objects.requireNonNullElse(row.medication(), List.<String>of())) {
+                    medicationIds.add(medicationLookup.resolve(med));
+                }
+                if (rows.isEmpty()) {
+                    chunkStart = lineNumber;
+                }
+                chunkEnd = lineNumber;
+                rows.add(row);
+                medication.add(medicationIds);
+            } catch (RejectedRowException e) {
+                rejected++;
+                if (errors.size() < MAX_ERRORS) {
+                    errors.add("line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+            if (rows.size() == CHUNK) {
+                int written = writeChunk(rows, medication, chunkStart, chunkEnd, errors);
+                imported += written;
+                rejected += CHUNK - written;
+                if (imported % PROGRESS_EVERY == 0) {
+                    logger.info("Imported {} people, {} rejected, {} people a second", imported, rejected, perSecond(imported, start));
+                }
+            }
+        }
+        if (!rows.isEmpty()) {
+            int size = rows.size();
+            int written = writeChunk(rows, medication, chunkStart, chunkEnd, errors);
+            imported += written;
+            rejected += size - written;
+        }
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Import finished: {} people imported and {} rejected in {} ms", imported, rejected, millis);
+        return new ImportResult(imported, rejected, errors, millis, perSecond(imported, start));
+    }
+
+    // Returns how many people were written, which is none if the db turned the chunk down. Those lines are reported as one error and the import goes on with the next chunk
+    private int writeChunk(List<ImportRow> rows, List<Set<Long>> medication, int firstLine, int lastLine, List<String> errors) {
+        Timestamp now = Timestamp.from(Person.now());
+        int written = rows.size();
+        try {
+            insertChunk(rows, medication, now);
+        } catch (DataAccessException | TransactionException e) {
+            written = 0;
+            logger.warn("Import chunk from line {} to {} was rolled back", firstLine, lastLine, e);
+            if (errors.size() < MAX_ERRORS) {
+                errors.add("lines " + firstLine + " to " + lastLine + ": not imported, " + rows.size() + " people were rolled back together: "
+                        + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            }
+        }
+        rows.clear();
+        medication.clear();
+        return written;
+    }
+
+    private void insertChunk(List<ImportRow> rows, List<Set<Long>> medication, Timestamp now) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // The ids come back from the batch in the same order as the rows
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_PERSON, new String[]{"id"}), new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement statement, int i) throws SQLException {
+                    ImportRow row = rows.get(i);
+                    statement.setString(1, row.firstName());
+                    statement.setString(2, row.lastName());
+                    statement.setString(3, row.address());
+                    statement.setString(4, row.phoneNumber());
+                    statement.setInt(5, row.age());
+                    statement.setTimestamp(6, now);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return rows.size();
+                }
+            }, keys);
+            List<Map<String, Object>> keyList = keys.getKeyList();
+            if (keyList.size() != rows.size()) {
+                throw new IllegalStateException("expected " + rows.size() + " generated ids but got " + keyList.size());
+            }
+
+            List<Object[]> allergyRows = new ArrayList<>();
+            List<Object[]> medicationRows = new ArrayList<>();
+            for (int i = 0; i < rows.size(); i++) {
+                long personId = ((Number) keyList.get(i).values().iterator().next()).longValue();
+                for (String allergy : Objects.requireNonNullElse(rows.get(i).allergies(), List.<String>of())) {
+                    allergyRows.add(new Object[]{personId, allergy});
+                }
+                for (Long medicationId : medication.get(i)) {
+                    medicationRows.add(new Object[]{personId, medicationId});
+                }
+                // One event per person, going into the outbox with the chunk
+                changeEventService.record("person", "create", personId, ExportRow.of(personId, rows.get(i), medication.get(i), now.toInstant()));
+            }
+            jdbcTemplate.batchUpdate(INSERT_ALLERGY, allergyRows);
+            jdbcTemplate.batchUpdate(INSERT_MEDICATION, medicationRows);
+        });
+    }
+
+    // Same rules as the @NotNull and @Positive checks on Person, plus the column lengths so one long value doesn't make the db turn down the whole chunk
+    private static void validate(ImportRow row) {
+        if (row == null) {
+            throw new RejectedRowException("not a person");
+        }
+        if (row.firstName() == null || row.lastName() == null || row.address() == null || row.phoneNumber() == null) {
+            throw new RejectedRowException("firstName, lastName, address and phoneNumber are all needed");
+        }
+        if (row.age() == null || row.age() <= 0) {
+            throw new RejectedRowException("age has to be more than 0");
+        }
+        checkLength("firstName", row.firstName());
+        checkLength("lastName", row.lastName());
+        checkLength("address", row.address());
+        checkLength("phoneNumber", row.phoneNumber());
+        for (String allergy : Objects.requireNonNullElse(row.allergies(), List.<String>of())) {
+            checkLength("an allergy", allergy);
+        }
+    }
+
+    // The db counts characters, not the UTF-16 chars Java strings are made of
+    private static void checkLength(String field, String value) {
+        if (value != null && value.codePointCount(0, value.length()) > MAX_LENGTH) {
+            throw new RejectedRowException(field + " is longer than " + MAX_LENGTH + " characters");
+        }
+    }
+
+    private MedicationLookup loadMedication() {
+        MedicationLookup lookup = new MedicationLookup();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<MedicationView> medication = medicationRepository.streamAllMedication()) {
+                medication.forEach(lookup::add);
+            }
+        });
+        return lookup;
+    }
+
+    private static ImportRow csvRow(List<String> columns, List<String> values) {
+        if (values.size() != columns.size()) {
+            throw new RejectedRowException("has " + values.size() + " columns but the header has " + columns.size());
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            fields.put(columns.get(i), values.get(i).isEmpty() ? null : values.get(i));
+        }
+        Integer age;
+        try {
+            age = fields.get("age") == null ? null : Integer.valueOf(fields.get("age").trim());
+        } catch (NumberFormatException e) {
+            throw new RejectedRowException("age isn't a number");
+        }
+        return new ImportRow(fields.get("firstName"), fields.get("lastName"), fields.get("address"), fields.get("phoneNumber"), age,
+                splitList(fields.get("allergies")), splitList(fields.get("medication")));
+    }
+
+    private static List<String> splitList(String value) {
+        if (value == null) {
+            return List.of();
+        }
+        return Arrays.stream(value.split(";")).map(String::trim).filter(item -> !item.isEmpty()).toList();
+    }
+
+    // Splits one line on commas. A field in double quotes can have commas in it and "" for a quote, but not line breaks
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new RejectedRowException("a quote isn't closed");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static long perSecond(long count, long start) {
+        long millis = Math.max((System.nanoTime() - start) / 1_000_000, 1);
+        return count * 1000 / millis;
+    }
+
+    // Every medication by id and by name. Names aren't unique in the table, a name that more than one medication has can only be imported by id
+    private static final class MedicationLookup {
+        private final Set<Long> ids = new HashSet<>();
+        private final Map<String, Long> byName = new HashMap<>();
+        private final Set<String> sharedNames = new HashSet<>();
+
+        void add(MedicationView medication) {
+            ids.add(medication.id());
+            if (byName.putIfAbsent(medication.name(), medication.id()) != null) {
+                sharedNames.add(medication.name());
+            }
+        }
+
+        long resolve(String medication) {
+            String value = medication.trim();
+            if (!value.isEmpty() && value.chars().allMatch(Character::isDigit)) {
+                try {
+                    long id = Long.parseLong(value);
+                    if (ids.contains(id)) {
+                        return id;
+                    }
+                } catch (NumberFormatException e) {
+                    // Too long to be an id, try it as a name
+                }
+            }
+            if (sharedNames.contains(value)) {
+                throw new RejectedRowException("more than one medication is called " + value + ", use its id");
+            }
+            Long id = byName.get(value);
+            if (id == null) {
+                throw new RejectedRowException("no medication " + value);
+            }
+            return id;
+        }
+    }
+
+    // A line that can't be imported, the message says why
+    private static final class RejectedRowException extends RuntimeException {
+        RejectedRowException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.personinfo.service;
+
+import com.example.personinfo.model.ImportResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface PersonImportServiceInterface {
+    ImportResult importCsv(InputStream input) throws IOException;
+    ImportResult importNdjson(InputStream input) throws IOException;
+}
@@ -0,0 +1,8 @@
+-- The schema as Hibernate made it with ddl-auto=update. Databases that already have these tables are baselined at 1 and skip straight to V2
+create table allergies (person_id bigint not null, allergy varchar(255));
+create table medication_table (id bigint not null auto_increment, dosage varchar(255) not null, name varchar(255) not null, primary key (id));
+create table person_table (age integer not null, id bigint not null auto_increment, address varchar(255) not null, first_name varchar(255) not null, last_name varchar(255) not null, phone_number varchar(255) not null, primary key (id));
+create table person_table_medication (medication_id bigint not null, people_id bigint not null);
+alter table allergies add constraint FK8www2vbdlxql5mnxcjhrmh01r foreign key (person_id) references person_table (id);
+alter table person_table_medication add constraint FK6y19mykk2oss3ntps83cfag3u foreign key (medication_id) references medication_table (id);
+alter table person_table_medication add constraint FKpmhfguc543rnhi2f66aadremy foreign key (people_id) references person_table (id);
@@ -0,0 +1,4 @@
+-- GET /personinfo looks people up by first and last name. Not unique, two people can share a name.
+-- (first_name, last_name) covers findByFirstNameAndLastName and findByFirstName, findByLastName needs its own
+create index idx_person_name on person_table (first_name, last_name);
+create index idx_person_last_name on person_table (last_name);
@@ -0,0 +1,3 @@
+-- When a person (or their allergies or medication) last changed, so GET /export?since= can leave out everyone who hasn't. Everyone already here is stamped with the time this runs
+alter table person_table add column updated_at datetime(6) not null default current_timestamp(6);
+create index idx_person_updated_at on person_table (updated_at);
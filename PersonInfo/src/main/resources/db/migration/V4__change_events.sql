@@ -0,0 +1,6 @@
+-- Where GET /events reads patient and medication changes from. The events are inserted by the same transaction as the write (an import chunk puts in one per person), so a rolled back write never shows up.
+-- change_sequence_table is the seq counter. A writer keeps its row locked from taking seqs until it commits, so seqs can't commit out of order and there are never holes for a subscriber to skip
+create table change_event_table (seq bigint not null, entity varchar(32) not null, operation varchar(16) not null, entity_id bigint not null, payload text, created_at datetime(6) not null, primary key (seq));
+create index idx_change_event_created_at on change_event_table (created_at);
+create table change_sequence_table (id integer not null, last_seq bigint not null, primary key (id));
+insert into change_sequence_table (id, last_seq) values (1, 0);
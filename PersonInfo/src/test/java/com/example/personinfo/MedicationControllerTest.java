@@ -2,7 +2,10 @@ package com.example.personinfo;
 
 import com.example.personinfo.controller.PersonController;
 import com.example.personinfo.model.Medication;
+import com.example.personinfo.model.MedicationView;
 import com.example.personinfo.repository.MedicationRepository;
+import com.example.personinfo.service.ChangeEventService;
+import com.example.personinfo.service.PersonExportService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +15,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.*;
+import java.util.stream.Stream;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -30,6 +34,12 @@ public class MedicationControllerTest {
     @MockBean
     private PersonController personController;
 
+    @MockBean
+    private PersonExportService personExportService;
+
+    @MockBean
+    private ChangeEventService changeEventService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -62,6 +72,24 @@ public class MedicationControllerTest {
                         """));
     }
 
+    @Test
+    public void streamMedication() throws Exception {
+        when(medicationRepository.streamAllMedication()).thenReturn(Stream.of(
+                new MedicationView(1L, "Ibuprofen", "200mg"),
+                new MedicationView(2L, "Paracetamol", "500mg")));
+
+        mockMvc.perform(get("/medication")
+                        .accept("application/x-ndjson"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(content().string("""
+                        {"id":1,"name":"Ibuprofen","dosage":"200mg"}
+                        {"id":2,"name":"Paracetamol","dosage":"500mg"}
+                        """));
+
+        verify(medicationRepository, never()).findAll();
+    }
+
     @Test
     public void updateMedication() throws Exception {
         Medication existingMedication = new Medication(1L, "Ibuprofen", "200mg");
@@ -0,0 +1,37 @@
+package com.example.personinfo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Checks the metrics Prometheus scrapes are all there after a request has gone through
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
+@ActiveProfiles("h2")
+class MetricsEndpointTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void prometheusHasEndpointRepositoryHibernatePoolAndCacheMetrics() {
+        restTemplate.getForEntity("/personinfo?firstName=John&lastName=Boyd", String.class);
+        String metrics = restTemplate.getForObject("/actuator/prometheus", String.class);
+
+        assertTrue(metrics.contains("http_server_requests_seconds_bucket{"));
+        assertTrue(metrics.contains("uri=\"/personinfo\""));
+        assertTrue(metrics.contains("spring_data_repository_invocations_seconds_bucket{"));
+        assertTrue(metrics.contains("hibernate_statements_total{"));
+        assertTrue(metrics.contains("hibernate_entities_loads_total{"));
+        assertTrue(metrics.contains("hibernate_collections_fetches_total{"));
+        assertTrue(metrics.contains("hibernate_query_executions_total{"));
+        assertTrue(metrics.contains("hibernate_second_level_cache_requests_total{"));
+        assertTrue(metrics.contains("region=\"medication\""));
+        assertTrue(metrics.contains("hikaricp_connections_pending{"));
+    }
+}
@@ -6,6 +6,8 @@ import com.example.personinfo.model.Medication;
 import com.example.personinfo.model.Person;
 import com.example.personinfo.repository.MedicationRepository;
 import com.example.personinfo.repository.PersonRepository;
+import com.example.personinfo.service.ChangeEventService;
+import com.example.personinfo.service.PersonExportService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -40,6 +42,12 @@ public class PersonControllerTest {
     @MockBean
     private MedicationRepository medicationRepository;
 
+    @MockBean
+    private PersonExportService personExportService;
+
+    @MockBean
+    private ChangeEventService changeEventService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -0,0 +1,86 @@
+package com.example.personinfo.config;
+
+import com.example.personinfo.model.Medication;
+import com.example.personinfo.service.MedicationService;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Counts statements to check that resolving medication that's already been looked up once comes from the second level cache.
+// Each lookup runs in its own session and transaction like separate requests, a session can't read back what it put in the cache itself
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@Import({SecondLevelCacheConfig.class, MedicationService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MedicationService medicationService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        SessionFactory sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        for (int i = 1; i <= 3; i++) {
+            jdbcTemplate.update("insert into medication_table (id, name, dosage) values (?, ?, ?)", i, "Medication " + i, i + "mg");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from medication_table");
+    }
+
+    private long statementsToResolve(long... ids) {
+        List<Medication> medication = new ArrayList<>();
+        for (long id : ids) {
+            medication.add(new Medication(id, null, null));
+        }
+        statistics.clear();
+        assertTrue(medicationService.resolveMedication(medication).isPresent());
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void warmMedicationDoesntHitTheDb() {
+        assertEquals(1, statementsToResolve(1, 2, 3));
+        assertEquals(0, statementsToResolve(3, 1, 2));
+    }
+
+    @Test
+    void onlyMedicationThatIsntCachedIsQueried() {
+        statementsToResolve(1);
+        assertEquals(1, statementsToResolve(1, 2, 3));
+        assertEquals(0, statementsToResolve(2));
+    }
+
+    @Test
+    void missingMedicationIsStillNotFound() {
+        statementsToResolve(1);
+        assertTrue(medicationService.resolveMedication(List.of(new Medication(1, null, null), new Medication(99, null, null))).isEmpty());
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.personinfo.load;
+
+import com.example.loadtest.SyntheticPeople;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.Random;
+
+// A made up NDJSON import file that's written as it's read, so a file of millions of patients never has to be in memory or on disk. Medication is named like SyntheticData's (med1 to med500)
+public class ImportFile {
+
+    private static final String[] ALLERGIES = {"peanuts", "shellfish", "pollen", "dust", "latex"};
+
+    public static InputStream ndjson(int people, long seed) {
+        Random random = new Random(seed);
+        return new SequenceInputStream(new Enumeration<>() {
+            private int next = 1;
+
+            @Override
+            public boolean hasMoreElements() {
+                return next <= people;
+            }
+
+            // A thousand lines at a time
+            @Override
+            public InputStream nextElement() {
+                StringBuilder lines = new StringBuilder();
+                for (int end = Math.min(next + 999, people); next <= end; next++) {
+                    lines.append("{\"firstName\":\"").append(SyntheticData.firstName(next))
+                            .append("\",\"lastName\":\"").append(SyntheticData.lastName(next))
+                            .append("\",\"address\":\"").append(1 + random.nextInt(9999)).append(" Main St")
+                            .append("\",\"phoneNumber\":\"").append(SyntheticPeople.phoneNumber(random))
+                            .append("\",\"age\":").append(1 + random.nextInt(90))
+                            .append(",\"allergies\":[\"").append(ALLERGIES[random.nextInt(ALLERGIES.length)])
+                            .append("\"],\"medication\":[\"med").append(1 + random.nextInt(SyntheticData.MEDICATIONS)).append("\"]}\n");
+                }
+                return new ByteArrayInputStream(lines.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.personinfo.load;
+
+import com.example.loadtest.LoadTest;
+import com.example.loadtest.Scenario;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the whole app on the in memory db and sends it real HTTP load. The load part only runs when asked, for example:
+// mvn test -Dtest=LoadScenarioTest -Dload.people=100000 -Dload.clients=200 -Dload.duration=30
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("h2")
+class LoadScenarioTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Logger logger = LoggerFactory.getLogger(LoadScenarioTest.class);
+
+    private List<Map<String, Object>> checksum() {
+        return jdbcTemplate.queryForList("select (select count(*) from person_table), (select sum(age) from person_table), "
+                + "(select count(*) from allergies), (select sum(medication_id) from person_table_medication)");
+    }
+
+    @Test
+    void syntheticDataIsTheSameEveryTime() {
+        SyntheticData data = new SyntheticData(jdbcTemplate, 42);
+        data.clear();
+        data.generate(2000);
+        List<Map<String, Object>> first = checksum();
+        data.clear();
+        data.generate(2000);
+
+        assertEquals(first, checksum());
+        assertEquals(2000, jdbcTemplate.queryForObject("select count(*) from person_table", Integer.class));
+        assertEquals(SyntheticData.MEDICATIONS, jdbcTemplate.queryForObject("select count(*) from medication_table", Integer.class));
+        data.clear();
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "load.people", matches = "\\d+")
+    void loadScenarios() throws InterruptedException {
+        int people = Integer.getInteger("load.people");
+        int clients = Integer.getInteger("load.clients", 100);
+        Duration duration = Duration.ofSeconds(Long.getLong("load.duration", 30));
+
+        SyntheticData data = new SyntheticData(jdbcTemplate, 42);
+        data.clear();
+        data.generate(people);
+
+        String base = "http://localhost:" + port;
+        logger.info("{} people, {} medications, {} clients, {} seconds per scenario", people, SyntheticData.MEDICATIONS, clients, duration.toSeconds());
+        logger.info(LoadTest.header());
+        run("person info by name", clients, duration, Scenario.get(random -> {
+            int id = 1 + random.nextInt(people);
+            return URI.create(base + "/personinfo?firstName=" + SyntheticData.firstName(id) + "&lastName=" + SyntheticData.lastName(id));
+        }));
+        int listClients = Math.min(clients, 10);
+        run("all medication (json)", listClients, duration,
+                Scenario.get(random -> URI.create(base + "/medication")).header("Accept", "application/json"));
+        run("all medication (ndjson)", listClients, duration,
+                Scenario.get(random -> URI.create(base + "/medication")).header("Accept", "application/x-ndjson"));
+        data.clear();
+    }
+
+    // Streams a made up file of load.import patients to POST /personinfo/import, for example -Dload.import=5000000 -DargLine=-Xmx512m.
+    // The importer itself only holds one chunk at a time, but the in memory db keeps every row on the heap so leave room for it or point the h2 profile at a file db
+    @Test
+    @EnabledIfSystemProperty(named = "load.import", matches = "\\d+")
+    void importScenario() throws Exception {
+        int people = Integer.getInteger("load.import");
+        SyntheticData data = new SyntheticData(jdbcTemplate, 42);
+        data.clear();
+        data.generate(0);
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/personinfo/import"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> ImportFile.ndjson(people, 42)))
+                .build();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+        long peakHeap = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+
+        String summary = String.format("%s, peak heap %d MB of %d MB", response.body(), peakHeap >> 20, Runtime.getRuntime().maxMemory() >> 20);
+        logger.info(summary);
+        assertEquals(200, response.statusCode(), summary);
+        assertEquals(people, jdbcTemplate.queryForObject("select count(*) from person_table", Integer.class));
+        data.clear();
+    }
+
+    // One line of the results table for each scenario
+    private void run(String scenario, int clients, Duration duration, Scenario requests) throws InterruptedException {
+        logger.info(LoadTest.run(requests, clients, duration).row(scenario));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.personinfo.load;
+
+import com.example.loadtest.SyntheticPeople;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Fills the db with made up medication and people (with 0 to 2 allergies and 0 to 3 medications each) straight through JDBC. The same seed and size always gives the same rows.
+public class SyntheticData {
+
+    public static final int MEDICATIONS = 500;
+
+    private static final String[] ALLERGIES = {"peanuts", "shellfish", "pollen", "dust", "latex", "penicillin", "dairy", "gluten"};
+    private static final int CHUNK = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long seed;
+
+    public SyntheticData(JdbcTemplate jdbcTemplate, long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.seed = seed;
+    }
+
+    // Names come from the id so every person has their own first and last name pair and callers can look anyone up without asking the db
+    public static String firstName(int id) {
+        return SyntheticPeople.firstName(id);
+    }
+
+    public static String lastName(int id) {
+        return SyntheticPeople.lastName(id) + (id / 40);
+    }
+
+    public void generate(int people) {
+        Random random = new Random(seed);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= MEDICATIONS; i++) {
+            rows.add(new Object[]{i, "med" + i, (1 + random.nextInt(20)) * 50 + "mg"});
+        }
+        jdbcTemplate.batchUpdate("insert into medication_table (id, name, dosage) values (?, ?, ?)", rows);
+
+        rows.clear();
+        List<Object[]> allergies = new ArrayList<>();
+        List<Object[]> medication = new ArrayList<>();
+        for (int i = 1; i <= people; i++) {
+            rows.add(new Object[]{i, firstName(i), lastName(i), SyntheticPeople.address(random),
+                    SyntheticPeople.phoneNumber(random), 1 + random.nextInt(90)});
+            int allergyCount = random.nextInt(3);
+            for (int a = 0; a < allergyCount; a++) {
+                allergies.add(new Object[]{i, ALLERGIES[random.nextInt(ALLERGIES.length)]});
+            }
+            // Spread out the starting point and step through so the same person never gets the same medication twice
+            int medicationCount = random.nextInt(4);
+            int first = random.nextInt(MEDICATIONS);
+            for (int m = 0; m < medicationCount; m++) {
+                medication.add(new Object[]{i, 1 + (first + m) % MEDICATIONS});
+            }
+            if (rows.size() == CHUNK || i == people) {
+                jdbcTemplate.batchUpdate("insert into person_table (id, first_name, last_name, address, phone_number, age) values (?, ?, ?, ?, ?, ?)", rows);
+                jdbcTemplate.batchUpdate("insert into allergies (person_id, allergy) values (?, ?)", allergies);
+                jdbcTemplate.batchUpdate("insert into person_table_medication (people_id, medication_id) values (?, ?)", medication);
+                rows.clear();
+                allergies.clear();
+                medication.clear();
+            }
+        }
+
+        // Move the ids past the generated rows so people and medication added through the app don't clash with them
+        jdbcTemplate.execute("alter table medication_table alter column id restart with " + (MEDICATIONS + 1));
+        jdbcTemplate.execute("alter table person_table alter column id restart with " + (people + 1));
+    }
+
+    public void clear() {
+        jdbcTemplate.execute("delete from person_table_medication");
+        jdbcTemplate.execute("delete from allergies");
+        jdbcTemplate.execute("delete from person_table");
+        jdbcTemplate.execute("delete from medication_table");
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.personinfo.repository;
+
+import com.example.personinfo.controller.PersonController;
+import com.example.personinfo.model.Medication;
+import com.example.personinfo.model.Person;
+import com.example.personinfo.service.ChangeEventService;
+import com.example.personinfo.service.MedicationService;
+import com.example.personinfo.service.PersonImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Gets people by name and writes them out as json like GET /personinfo does, with the lazy lists loaded while writing. Counts the SQL so a common name doesn't turn into a query per person per list
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@Import({MedicationService.class, PersonController.class})
+class PersonFetchStatementCountTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PersonController personController;
+
+    @MockBean
+    private PersonImportService personImportService;
+
+    @MockBean
+    private ChangeEventService changeEventService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    // Everyone gets two allergies and two of the three medications, so every list has to be loaded
+    private void savePeople(String lastName, int count) {
+        List<Medication> medication = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Medication med = new Medication("Medication " + i, i + "mg", null);
+            entityManager.persist(med);
+            medication.add(med);
+        }
+        for (int i = 0; i < count; i++) {
+            Person person = new Person("Mario", lastName, "Mushroom Kingdom", "555-5555", 35,
+                    new ArrayList<>(List.of("Peanuts", "Shellfish " + i)), new ArrayList<>(List.of(medication.get(i % 3), medication.get((i + 1) % 3))));
+            entityManager.persist(person);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private long statementsToGet(String lastName, int people) throws Exception {
+        entityManager.clear();
+        statistics.clear();
+        List<Person> found = personController.getPeopleByName("Mario", lastName).getBody();
+        String json = objectMapper.writeValueAsString(found);
+        long statements = statistics.getPrepareStatementCount();
+
+        assertEquals(people, found.size());
+        assertTrue(json.contains("\"allergies\":[\"Peanuts\",\"Shellfish 0\"]"));
+        assertTrue(json.contains("\"name\":\"Medication 1\""));
+        return statements;
+    }
+
+    @Test
+    void getPeopleByName_statementCountDoesNotGrowWithPeople() throws Exception {
+        savePeople("One", 1);
+        savePeople("Many", 200);
+
+        long one = statementsToGet("One", 1);
+        long many = statementsToGet("Many", 200);
+        assertTrue(many <= 3, "took " + many + " statements");
+        assertEquals(one, many);
+    }
+}
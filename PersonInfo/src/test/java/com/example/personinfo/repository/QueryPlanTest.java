@@ -0,0 +1,81 @@
+package com.example.personinfo.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs each lookup against the migrated schema, then asks H2 to EXPLAIN the exact SQL Hibernate sent, so dropping or changing an index the lookups need fails here instead of turning into a full table scan in production
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.personinfo.repository.QueryPlanTest$SqlCapture"})
+class QueryPlanTest {
+
+    // Remembers the SQL Hibernate sends so the test can EXPLAIN it
+    public static class SqlCapture implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // With an empty table a scan costs nothing so H2 would pick one, a few hundred people makes the plan look like the real one
+    @BeforeEach
+    void setUp() {
+        for (int i = 1; i <= 200; i++) {
+            jdbcTemplate.update("insert into person_table (id, first_name, last_name, address, phone_number, age) values (?, ?, ?, ?, ?, ?)",
+                    i, "First" + i % 10, "Last" + i / 10, "1 Main St", "555-0000", 30);
+        }
+        SqlCapture.statements.clear();
+    }
+
+    // EXPLAIN output of the first statement the lookup ran, with the same parameters bound
+    private String planFor(Runnable lookup, Object... parameters) {
+        lookup.run();
+        String sql = SqlCapture.statements.get(0);
+        return jdbcTemplate.query("explain " + sql, statement -> {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+        }, resultSet -> {
+            resultSet.next();
+            return resultSet.getString(1);
+        });
+    }
+
+    private static void assertUsesIndex(String plan, String index) {
+        assertFalse(plan.contains("tableScan"), plan);
+        assertTrue(plan.toLowerCase().contains(index), plan);
+    }
+
+    @Test
+    void peopleByNameUseTheNameIndex() {
+        assertUsesIndex(planFor(() -> personRepository.findByFirstNameAndLastName("First1", "Last3"), "First1", "Last3"), "idx_person_name");
+    }
+
+    @Test
+    void peopleByFirstNameUseTheNameIndex() {
+        assertUsesIndex(planFor(() -> personRepository.findByFirstName("First1"), "First1"), "idx_person_name");
+    }
+
+    @Test
+    void peopleByLastNameUseTheLastNameIndex() {
+        assertUsesIndex(planFor(() -> personRepository.findByLastName("Last3"), "Last3"), "idx_person_last_name");
+    }
+}
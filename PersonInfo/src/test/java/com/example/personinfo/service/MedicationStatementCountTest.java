@@ -0,0 +1,99 @@
+package com.example.personinfo.service;
+
+import com.example.personinfo.controller.PersonController;
+import com.example.personinfo.model.Medication;
+import com.example.personinfo.model.Person;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the person endpoints against an in memory db and counts the SQL statements, the count shouldn't change with how much medication a person has
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@Import({MedicationService.class, PersonController.class})
+class MedicationStatementCountTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PersonController personController;
+
+    @MockBean
+    private PersonImportService personImportService;
+
+    @MockBean
+    private ChangeEventService changeEventService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private List<Medication> saveMedication(int count) {
+        List<Medication> medication = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Medication med = new Medication("Medication " + i, i + "mg", null);
+            entityManager.persist(med);
+            medication.add(new Medication(med.getId(), null, null));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return medication;
+    }
+
+    private long statementsToCreate(int medicationCount) {
+        Person person = new Person("Mario", "Mario", "Mushroom Kingdom", "555-5555", 35);
+        person.setMedication(saveMedication(medicationCount));
+
+        statistics.clear();
+        assertTrue(personController.createPerson(person).getStatusCode().is2xxSuccessful());
+        entityManager.flush();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long statementsToUpdate(int medicationCount) {
+        Person person = new Person("Mario", "Mario", "Mushroom Kingdom", "555-5555", 35);
+        person.setMedication(new ArrayList<>());
+        entityManager.persist(person);
+        Person personDetails = new Person("Luigi", "Mario", "Mushroom Kingdom", "555-5555", 35);
+        personDetails.setMedication(saveMedication(medicationCount));
+
+        statistics.clear();
+        assertTrue(personController.updatePersonWithMedications(person.getId(), personDetails).getStatusCode().is2xxSuccessful());
+        entityManager.flush();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void createPerson_statementCountDoesNotGrowWithMedication() {
+        assertEquals(statementsToCreate(1), statementsToCreate(25));
+    }
+
+    @Test
+    void updatePerson_statementCountDoesNotGrowWithMedication() {
+        assertEquals(statementsToUpdate(1), statementsToUpdate(25));
+    }
+
+    @Test
+    void createPerson_missingMedicationIsBadRequest() {
+        Person person = new Person("Mario", "Mario", "Mushroom Kingdom", "555-5555", 35);
+        person.setMedication(List.of(new Medication(12345L, null, null)));
+
+        assertEquals(400, personController.createPerson(person).getStatusCode().value());
+    }
+}
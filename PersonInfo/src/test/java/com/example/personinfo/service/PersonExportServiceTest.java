@@ -0,0 +1,89 @@
+package com.example.personinfo.service;
+
+import com.example.personinfo.model.ExportFormat;
+import com.example.personinfo.model.ImportResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A fetch size of 1 makes all three cursors go back to the db for every row, and Peach has no allergies or medication so the list cursors have to wait for Toad
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "personinfo.export.fetch-size=1"})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({PersonExportService.class, PersonImportService.class})
+class PersonExportServiceTest {
+
+    private static final Instant UNTIL = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Autowired
+    private PersonExportService personExportService;
+
+    @Autowired
+    private PersonImportService personImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private ChangeEventService changeEventService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("insert into medication_table (id, name, dosage) values (1, 'Ibuprofen', '200mg'), (2, 'Aspirin', '81mg')");
+        jdbcTemplate.update("insert into person_table (id, first_name, last_name, address, phone_number, age, updated_at) values "
+                + "(10, 'Luigi', 'Mario', '1 Pipe Rd, Mushroom Kingdom', '555-0001', 33, timestamp '2024-02-01 09:00:00'), "
+                + "(11, 'Peach', 'Toadstool', 'Castle', '555-0002', 30, timestamp '2024-02-02 09:00:00'), "
+                + "(12, 'Toad', 'O\"Toad', 'Castle', '555-0003', 40, timestamp '2024-02-03 09:00:00.25')");
+        jdbcTemplate.update("insert into allergies (person_id, allergy) values (10, 'pollen'), (12, 'dust'), (10, 'peanuts')");
+        jdbcTemplate.update("insert into person_table_medication (people_id, medication_id) values (10, 2), (12, 2), (10, 1)");
+    }
+
+    private String export(ExportFormat format, Instant since) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        personExportService.export(format, since, UNTIL, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void exportsCsvWithSortedLists() throws Exception {
+        assertEquals("id,firstName,lastName,address,phoneNumber,age,allergies,medication,updatedAt\n"
+                + "10,Luigi,Mario,\"1 Pipe Rd, Mushroom Kingdom\",555-0001,33,peanuts;pollen,1;2,2024-02-01T09:00:00.000000Z\n"
+                + "11,Peach,Toadstool,Castle,555-0002,30,,,2024-02-02T09:00:00.000000Z\n"
+                + "12,Toad,\"O\"\"Toad\",Castle,555-0003,40,dust,2,2024-02-03T09:00:00.250000Z\n", export(ExportFormat.CSV, null));
+    }
+
+    @Test
+    void exportsNdjsonChangedSince() throws Exception {
+        assertEquals("{\"id\":11,\"firstName\":\"Peach\",\"lastName\":\"Toadstool\",\"address\":\"Castle\",\"phoneNumber\":\"555-0002\",\"age\":30,\"allergies\":[],\"medication\":[],\"updatedAt\":\"2024-02-02T09:00:00.000000Z\"}\n"
+                + "{\"id\":12,\"firstName\":\"Toad\",\"lastName\":\"O\\\"Toad\",\"address\":\"Castle\",\"phoneNumber\":\"555-0003\",\"age\":40,\"allergies\":[\"dust\"],\"medication\":[2],\"updatedAt\":\"2024-02-03T09:00:00.250000Z\"}\n",
+                export(ExportFormat.NDJSON, Instant.parse("2024-02-02T09:00:00Z")));
+        // Incremental exports go back the overlap (a minute by default) before since
+        assertTrue(personExportService.changedBetween(Instant.parse("2024-02-03T09:01:00Z"), UNTIL));
+        assertFalse(personExportService.changedBetween(Instant.parse("2024-02-03T09:01:01Z"), UNTIL));
+    }
+
+    // The csv goes straight back into the import, which skips the id and updatedAt columns and makes new people
+    @Test
+    void csvCanBeImportedAgain() throws Exception {
+        ImportResult result = personImportService.importCsv(new ByteArrayInputStream(export(ExportFormat.CSV, null).getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(3, result.imported());
+        assertEquals(0, result.rejected());
+        assertEquals(4, jdbcTemplate.queryForObject("select count(*) from allergies a join person_table p on p.id = a.person_id where p.first_name = 'Luigi'", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from person_table where last_name = 'O\"Toad'", Integer.class));
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.personinfo.service;
+
+import com.example.personinfo.load.ImportFile;
+import com.example.personinfo.load.SyntheticData;
+import com.example.personinfo.model.ExportRow;
+import com.example.personinfo.model.ImportResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(PersonImportService.class)
+class PersonImportServiceTest {
+
+    @Autowired
+    private PersonImportService personImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private ChangeEventService changeEventService;
+
+    // Aspirin is there twice with different doses, so it can only be imported by id
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("insert into medication_table (id, name, dosage) values (1, 'Ibuprofen', '200mg'), (2, 'Aspirin', '81mg'), (3, 'Aspirin', '325mg')");
+    }
+
+    private static InputStream file(String... lines) {
+        return new ByteArrayInputStream((String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<String> medicationOf(String firstName) {
+        return jdbcTemplate.queryForList("select m.name || ' ' || m.dosage from person_table p join person_table_medication pm on pm.people_id = p.id "
+                + "join medication_table m on m.id = pm.medication_id where p.first_name = ? order by m.id", String.class, firstName);
+    }
+
+    private List<String> allergiesOf(String firstName) {
+        return jdbcTemplate.queryForList("select a.allergy from person_table p join allergies a on a.person_id = p.id where p.first_name = ? order by a.allergy", String.class, firstName);
+    }
+
+    @Test
+    void importCsv() throws Exception {
+        ImportResult result = personImportService.importCsv(file(
+                "lastName,firstName,age,address,phoneNumber,allergies,medication",
+                "Mario,Luigi,33,\"1 Pipe Rd, Mushroom Kingdom\",555-0001,peanuts;pollen,Ibuprofen;3",
+                "",
+                "Toadstool,Peach,30,Castle,555-0002,,",
+                "\"O\"\"Toad\",Toad,40,Castle,555-0003,dust,2"));
+
+        assertEquals(3, result.imported());
+        assertEquals(0, result.rejected());
+        assertEquals("1 Pipe Rd, Mushroom Kingdom", jdbcTemplate.queryForObject("select address from person_table where first_name = 'Luigi'", String.class));
+        assertEquals("O\"Toad", jdbcTemplate.queryForObject("select last_name from person_table where first_name = 'Toad'", String.class));
+        assertEquals(List.of("Ibuprofen 200mg", "Aspirin 325mg"), medicationOf("Luigi"));
+        assertEquals(List.of("peanuts", "pollen"), allergiesOf("Luigi"));
+        assertEquals(List.of(), medicationOf("Peach"));
+        assertEquals(List.of("Aspirin 81mg"), medicationOf("Toad"));
+
+        // Everyone imported is a create event with the row an export would give for them
+        long luigi = jdbcTemplate.queryForObject("select id from person_table where first_name = 'Luigi'", Long.class);
+        verify(changeEventService, times(3)).record(eq("person"), eq("create"), anyLong(), any());
+        verify(changeEventService).record(eq("person"), eq("create"), eq(luigi), argThat(row -> row instanceof ExportRow exportRow
+                && exportRow.allergies().equals(List.of("peanuts", "pollen")) && exportRow.medication().equals(List.of(1L, 3L))));
+    }
+
+    @Test
+    void importCsv_rejectsBadLinesAndKeepsTheRest() throws Exception {
+        ImportResult result = personImportService.importCsv(file(
+                "firstName,lastName,address,phoneNumber,age,medication",
+                "Luigi,Mario,Pipe Rd,555-0001,33,Ibuprofen",
+                ",Mario,Pipe Rd,555-0001,33,",
+                "Wario,Wario,Castle,555-0004,old,",
+                "Daisy,Sarasa,Castle,555-0005,25,Tylenol",
+                "Yoshi,Yoshi,Island,555-0006,20,Aspirin",
+                "Toad,Toad,\"Castle,555-0003,40,",
+                "Peach,Toadstool,Castle,555-0002,30"));
+
+        assertEquals(1, result.imported());
+        assertEquals(6, result.rejected());
+        assertEquals(List.of(
+                "line 3: firstName, lastName, address and phoneNumber are all needed",
+                "line 4: age isn't a number",
+                "line 5: no medication Tylenol",
+                "line 6: more than one medication is called Aspirin, use its id",
+                "line 7: a quote isn't closed",
+                "line 8: has 5 columns but the header has 6"), result.errors());
+        assertEquals(List.of("Luigi"), jdbcTemplate.queryForList("select first_name from person_table", String.class));
+    }
+
+    @Test
+    void importCsv_headerMissingAColumn() {
+        assertThrows(IllegalArgumentException.class, () -> personImportService.importCsv(file("firstName,lastName,address,phoneNumber")));
+    }
+
+    @Test
+    void importNdjson() throws Exception {
+        ImportResult result = personImportService.importNdjson(file(
+                "{\"firstName\":\"Luigi\",\"lastName\":\"Mario\",\"address\":\"Pipe Rd\",\"phoneNumber\":\"555-0001\",\"age\":33,\"allergies\":[\"peanuts\"],\"medication\":[1,\"3\"]}",
+                "{\"firstName\":\"Peach\",\"lastName\":\"Toadstool\",\"address\":\"Castle\",\"phoneNumber\":\"555-0002\",\"age\":30}",
+                "{\"firstName\":\"Toad\"",
+                "{\"firstName\":\"Baby\",\"lastName\":\"Mario\",\"address\":\"Pipe Rd\",\"phoneNumber\":\"555-0003\",\"age\":0}"));
+
+        assertEquals(2, result.imported());
+        assertEquals(2, result.rejected());
+        assertTrue(result.errors().get(0).startsWith("line 3: not valid json"));
+        assertEquals("line 4: age has to be more than 0", result.errors().get(1));
+        assertEquals(List.of("Ibuprofen 200mg", "Aspirin 325mg"), medicationOf("Luigi"));
+        assertEquals(List.of("peanuts"), allergiesOf("Luigi"));
+        assertEquals(List.of(), allergiesOf("Peach"));
+    }
+
+    // More than one chunk, and every allergy and medication has to end up on the person from its own line
+    @Test
+    void importNdjson_manyChunks() throws Exception {
+        jdbcTemplate.update("delete from medication_table");
+        for (int i = 1; i <= 500; i++) {
+            jdbcTemplate.update("insert into medication_table (id, name, dosage) values (?, ?, '10mg')", i, "med" + i);
+        }
+
+        ImportResult result = personImportService.importNdjson(ImportFile.ndjson(5500, 42));
+
+        assertEquals(5500, result.imported());
+        assertEquals(5500, jdbcTemplate.queryForObject("select count(*) from person_table", Integer.class));
+        assertEquals(5500, jdbcTemplate.queryForObject("select count(*) from allergies", Integer.class));
+        assertEquals(5500, jdbcTemplate.queryForObject("select count(*) from person_table_medication", Integer.class));
+        // Every person has exactly one of each
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from person_table p where (select count(*) from allergies a where a.person_id = p.id) <> 1", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from person_table p where (select count(*) from person_table_medication pm where pm.people_id = p.id) <> 1", Integer.class));
+    }
+
+    @Test
+    void importCsv_rejectsValuesTooLongForTheirColumn() throws Exception {
+        ImportResult result = personImportService.importCsv(file(
+                "firstName,lastName,address,phoneNumber,age,allergies",
+                "Luigi,Mario,Pipe Rd,555-0001,33,peanuts",
+                "Peach,Toadstool," + "Castle ".repeat(40) + ",555-0002,30,",
+                "Toad,Toad,Castle,555-0003,40," + "dust".repeat(70)));
+
+        assertEquals(1, result.imported());
+        assertEquals(List.of(
+                "line 3: address is longer than 255 characters",
+                "line 4: an allergy is longer than 255 characters"), result.errors());
+    }
+
+    // A chunk the db turns down is rolled back on its own, so it can't run in the test transaction. The chunks either side of it still go in
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void importNdjson_reportsARolledBackChunk() throws Exception {
+        AtomicInteger events = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (events.incrementAndGet() == 1500) {
+                throw new DataIntegrityViolationException("the outbox is full");
+            }
+            return null;
+        }).when(changeEventService).record(any(), any(), anyLong(), any());
+        String[] lines = new String[2500];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = "{\"firstName\":\"Person" + i + "\",\"lastName\":\"Doe\",\"address\":\"Main St\",\"phoneNumber\":\"555-0001\",\"age\":30}";
+        }
+
+        try {
+            ImportResult result = personImportService.importNdjson(file(lines));
+
+            assertEquals(1500, result.imported());
+            assertEquals(1000, result.rejected());
+            assertEquals(List.of("lines 1001 to 2000: not imported, 1000 people were rolled back together: the outbox is full"), result.errors());
+            assertEquals(1500, jdbcTemplate.queryForObject("select count(*) from person_table", Integer.class));
+            assertEquals(0, jdbcTemplate.queryForObject("select count(*) from person_table where first_name in ('Person1000', 'Person1999')", Integer.class));
+        } finally {
+            new SyntheticData(jdbcTemplate, 42).clear();
+        }
+    }
+}
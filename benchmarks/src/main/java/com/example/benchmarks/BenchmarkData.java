@@ -0,0 +1,35 @@
+package com.example.benchmarks;
+
+import com.example.loadtest.SyntheticPeople;
+
+import java.util.Random;
+
+// Makes the same made up people every run, so results from different releases are measured on the same data.
+public final class BenchmarkData {
+
+    private final Random random;
+
+    public BenchmarkData(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public String firstName() {
+        return SyntheticPeople.firstName(random);
+    }
+
+    public String lastName() {
+        return SyntheticPeople.lastName(random);
+    }
+
+    public String address() {
+        return SyntheticPeople.address(random);
+    }
+
+    public String phone() {
+        return SyntheticPeople.phoneNumber(random);
+    }
+
+    public int age() {
+        return SyntheticPeople.age(random);
+    }
+}
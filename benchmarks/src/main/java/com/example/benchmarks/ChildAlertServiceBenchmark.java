@@ -0,0 +1,57 @@
+package com.example.benchmarks;
+
+import com.example.childalert.model.ChildView;
+import com.example.childalert.model.HouseholdSummary;
+import com.example.childalert.repository.PersonRepository;
+import com.example.childalert.service.PersonService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// ChildAlert PersonService.getPeopleByAddress with the household coming from memory, on its own and with the response written to json like the controller does.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChildAlertServiceBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int householdSize;
+
+    private PersonService personService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Setup
+    public void setUp() {
+        BenchmarkData data = new BenchmarkData(42);
+        List<ChildView> children = new ArrayList<>();
+        for (int i = 0; i < householdSize; i++) {
+            int age = data.age();
+            if (age < 18) {
+                children.add(new ChildView(data.firstName(), data.lastName(), data.phone(), age));
+            }
+        }
+        HouseholdSummary household = new HouseholdSummary(householdSize, children.size());
+        PersonRepository personRepository = InMemoryRepositories.stub(PersonRepository.class, Map.of(
+                "summarizeHousehold", args -> household,
+                "findChildrenByAddress", args -> children));
+        personService = new PersonService(personRepository);
+    }
+
+    @Benchmark
+    public Map<String, Object> getPeopleByAddress() {
+        return personService.getPeopleByAddress("123 Main St");
+    }
+
+    @Benchmark
+    public byte[] getPeopleByAddressJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(personService.getPeopleByAddress("123 Main St"));
+    }
+}
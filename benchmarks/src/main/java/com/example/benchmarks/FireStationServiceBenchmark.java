@@ -0,0 +1,54 @@
+package com.example.benchmarks;
+
+import com.example.firestation.model.RosterEntry;
+import com.example.firestation.repository.PersonRepository;
+import com.example.firestation.service.FireStationService;
+import com.example.firestation.service.StationRosterCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// FireStationService.getPeopleByStation with the roster coming from memory, once with the cache turned off (a TTL of zero keeps nothing) and once warm.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FireStationServiceBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    private int rosterSize;
+
+    private FireStationService uncachedService;
+    private FireStationService cachedService;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData data = new BenchmarkData(42);
+        List<RosterEntry> roster = new ArrayList<>();
+        for (int i = 0; i < rosterSize; i++) {
+            roster.add(new RosterEntry(data.firstName(), data.lastName(), data.address(), data.phone(), data.age()));
+        }
+        PersonRepository personRepository = InMemoryRepositories.stub(PersonRepository.class,
+                Map.of("findRosterByStationNumber", args -> roster));
+
+        uncachedService = new FireStationService(personRepository, new StationRosterCache(1000, Duration.ZERO));
+        cachedService = new FireStationService(personRepository, new StationRosterCache(1000, Duration.ofMinutes(5)));
+        cachedService.getPeopleByStation(1);
+    }
+
+    @Benchmark
+    public Map<String, Object> getPeopleByStationUncached() {
+        return uncachedService.getPeopleByStation(1);
+    }
+
+    @Benchmark
+    public Map<String, Object> getPeopleByStationCached() {
+        return cachedService.getPeopleByStation(1);
+    }
+}
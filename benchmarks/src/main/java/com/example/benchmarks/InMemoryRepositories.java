@@ -0,0 +1,28 @@
+package com.example.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+// Makes repository stubs backed by in memory data, only the methods given are implemented and anything else throws. This keeps the db (and Mockito's overhead) out of the numbers.
+public final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T stub(Class<T> repository, Map<String, Function<Object[], Object>> methods) {
+        return (T) Proxy.newProxyInstance(repository.getClassLoader(), new Class<?>[]{repository}, (proxy, method, args) -> {
+            Function<Object[], Object> implementation = methods.get(method.getName());
+            if (implementation != null) {
+                return implementation.apply(args);
+            }
+            return switch (method.getName()) {
+                case "toString" -> "InMemory" + repository.getSimpleName();
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> throw new UnsupportedOperationException(repository.getSimpleName() + "." + method.getName() + " isn't stubbed");
+            };
+        });
+    }
+}
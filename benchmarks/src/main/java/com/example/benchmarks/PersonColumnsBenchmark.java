@@ -0,0 +1,49 @@
+package com.example.benchmarks;
+
+import com.example.firestation.model.AddressCount;
+import com.example.firestation.service.PersonColumns;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The /stats aggregates over the FireStation person snapshot, with a station for every 1000 people like the load scenarios.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersonColumnsBenchmark {
+
+    @Param({"1000000", "10000000"})
+    private int people;
+
+    private PersonColumns columns;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData data = new BenchmarkData(42);
+        int stations = Math.max(1, people / 1000);
+        columns = new PersonColumns(people);
+        for (int id = 1; id <= people; id++) {
+            columns.upsert(id, data.age(), (long) (1 + id % stations), data.address());
+        }
+    }
+
+    @Benchmark
+    public Map<Long, long[]> ageHistogramsAllStations() {
+        return columns.ageHistograms(10, null);
+    }
+
+    @Benchmark
+    public Map<Long, long[]> ageHistogramOneStation() {
+        return columns.ageHistograms(10, List.of(1L));
+    }
+
+    @Benchmark
+    public List<AddressCount> topAddresses() {
+        return columns.topAddresses(20);
+    }
+}
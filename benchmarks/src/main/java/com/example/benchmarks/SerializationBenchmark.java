@@ -0,0 +1,79 @@
+package com.example.benchmarks;
+
+import com.example.communityemail.model.City;
+import com.example.firestation.model.FireStation;
+import com.example.personinfo.model.Medication;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Jackson serialization of the entity graphs the services return. FireStation and City go through @JsonManagedReference/@JsonBackReference, PersonInfo people carry their allergies and medication.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"100", "10000"})
+    private int people;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private FireStation fireStation;
+    private City city;
+    private List<com.example.personinfo.model.Person> personInfo;
+    private List<Medication> medication;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData data = new BenchmarkData(42);
+
+        List<com.example.firestation.model.Person> stationPeople = new ArrayList<>();
+        fireStation = new FireStation(1, 4, "123 Main St", stationPeople);
+        for (int i = 0; i < people; i++) {
+            stationPeople.add(new com.example.firestation.model.Person(i, data.firstName(), data.lastName(), data.address(), data.phone(), data.age(), fireStation));
+        }
+
+        List<com.example.communityemail.model.Person> cityPeople = new ArrayList<>();
+        city = new City(1, people, "Springfield", "555", cityPeople);
+        for (int i = 0; i < people; i++) {
+            String firstName = data.firstName();
+            cityPeople.add(new com.example.communityemail.model.Person(i, firstName, data.lastName(), data.address(), data.phone(), firstName.toLowerCase() + i + "@test.com", data.age(), city));
+        }
+
+        medication = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            medication.add(new Medication(i, "Medication " + i, (i + 1) * 50 + "mg"));
+        }
+        personInfo = new ArrayList<>();
+        for (int i = 0; i < people; i++) {
+            personInfo.add(new com.example.personinfo.model.Person(i, data.firstName(), data.lastName(), data.address(), data.phone(), data.age(),
+                    List.of("Peanuts", "Pollen"), List.of(medication.get(i % 20), medication.get((i + 7) % 20))));
+        }
+    }
+
+    @Benchmark
+    public byte[] fireStationWithPeople() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(fireStation);
+    }
+
+    @Benchmark
+    public byte[] cityWithPeople() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(city);
+    }
+
+    @Benchmark
+    public byte[] personInfoPeople() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(personInfo);
+    }
+
+    @Benchmark
+    public byte[] medicationList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(medication);
+    }
+}
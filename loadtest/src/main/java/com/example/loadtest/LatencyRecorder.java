@@ -0,0 +1,67 @@
+package com.example.loadtest;
+
+import java.util.Arrays;
+
+// Collects request latencies for one client without boxing them, then merges them so percentiles can be worked out.
+public class LatencyRecorder {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private long errors;
+    private long bytes;
+
+    public void record(long nanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+    }
+
+    public void record(long nanos, long bodyBytes) {
+        record(nanos);
+        bytes += bodyBytes;
+    }
+
+    public void error() {
+        errors++;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    // Puts all the clients' latencies together, sorted, so percentiles are just an index into the array
+    public static LatencyRecorder merge(Iterable<LatencyRecorder> recorders) {
+        LatencyRecorder merged = new LatencyRecorder();
+        int total = 0;
+        for (LatencyRecorder recorder : recorders) {
+            total += recorder.count;
+        }
+        merged.latencies = new long[Math.max(total, 1)];
+        for (LatencyRecorder recorder : recorders) {
+            System.arraycopy(recorder.latencies, 0, merged.latencies, merged.count, recorder.count);
+            merged.count += recorder.count;
+            merged.errors += recorder.errors;
+            merged.bytes += recorder.bytes;
+        }
+        Arrays.sort(merged.latencies, 0, merged.count);
+        return merged;
+    }
+
+    // Nearest rank percentile in milliseconds, only makes sense after merge since that sorts the latencies
+    public double percentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return latencies[Math.max(0, Math.min(index, count - 1))] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.loadtest;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Closed loop load test, each client is a virtual thread that sends a GET, waits for the answer and sends the next one until time runs out.
+// Usage: java -jar loadtest.jar --url=http://localhost:8080/firestation?stationNumber=1 --clients=1000,5000,10000 --duration=30 --warmup=5 --label=platform
+// Run it once against a service started normally and once with --spring.profiles.active=virtual-threads on the same machine to compare the two modes.
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        List<URI> urls = new ArrayList<>();
+        for (String url : options.getOrDefault("url", "http://localhost:8080/person").split(",")) {
+            urls.add(URI.create(url));
+        }
+        int[] clientCounts = Arrays.stream(options.getOrDefault("clients", "1000,5000,10000").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "5")));
+        String label = options.getOrDefault("label", "run");
+
+        System.out.printf("%-10s %8s %10s %12s %10s %10s %10s %8s%n", "label", "clients", "requests", "req/sec", "p50 ms", "p99 ms", "p99.9 ms", "errors");
+        for (int clients : clientCounts) {
+            // Warm up the JIT and connection pools first, those numbers are thrown away
+            run(urls, clients, warmup);
+            LoadResult result = run(urls, clients, duration);
+            System.out.printf("%-10s %8d %10d %12.1f %10.2f %10.2f %10.2f %8d%n", label, clients, result.requests(), result.throughput(),
+                    result.latencies().percentileMillis(50), result.latencies().percentileMillis(99), result.latencies().percentileMillis(99.9), result.latencies().getErrors());
+        }
+    }
+
+    // Result of one run at one number of clients
+    public record LoadResult(long requests, double throughput, LatencyRecorder latencies) {
+
+        // Body bytes as they came over the wire, so a gzipped answer counts its compressed size
+        public double bytesPerRequest() {
+            return requests == 0 ? 0 : (double) latencies.getBytes() / requests;
+        }
+
+        // One line of the table started by header(), used by the services' load scenarios
+        public String row(String scenario) {
+            return String.format("%-28s %10d %12.1f %10.2f %10.2f %10.2f %12.0f %8d", scenario, requests, throughput,
+                    latencies.percentileMillis(50), latencies.percentileMillis(99), latencies.percentileMillis(99.9), bytesPerRequest(), latencies.getErrors());
+        }
+    }
+
+    public static String header() {
+        return String.format("%-28s %10s %12s %10s %10s %10s %12s %8s", "scenario", "requests", "req/sec", "p50 ms", "p99 ms", "p99.9 ms", "bytes/req", "errors");
+    }
+
+    // Spread the clients over the urls so mixed scenarios can be run
+    public static LoadResult run(List<URI> urls, int clients, Duration duration) throws InterruptedException {
+        return run(Scenario.get(random -> urls.get(random.nextInt(urls.size()))), clients, duration);
+    }
+
+    public static LoadResult run(Scenario scenario, int clients, Duration duration) throws InterruptedException {
+        List<LatencyRecorder> recorders = new ArrayList<>();
+        long start;
+
+        // The client and the executor it runs on are closed once every client is done, so repeated runs don't leave selector threads behind
+        try (ExecutorService httpExecutor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient httpClient = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(10))
+                     .executor(httpExecutor)
+                     .build();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // The clock starts once the client is built, building it the first time takes a while
+            start = System.nanoTime();
+            long deadline = start + duration.toNanos();
+            for (int i = 0; i < clients; i++) {
+                LatencyRecorder recorder = new LatencyRecorder();
+                recorders.add(recorder);
+                SplittableRandom random = new SplittableRandom(i);
+                executor.submit(() -> client(httpClient, scenario, random, deadline, recorder));
+            }
+            executor.shutdown();
+            executor.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        LatencyRecorder merged = LatencyRecorder.merge(recorders);
+        return new LoadResult(merged.getCount(), merged.getCount() / seconds, merged);
+    }
+
+    private static void client(HttpClient httpClient, Scenario scenario, SplittableRandom random, long deadline, LatencyRecorder recorder) {
+        while (System.nanoTime() < deadline) {
+            HttpRequest.Builder request = HttpRequest.newBuilder(scenario.urls().apply(random)).timeout(Duration.ofSeconds(30)).GET();
+            scenario.headers().forEach(request::header);
+            long sent = System.nanoTime();
+            try {
+                HttpResponse<InputStream> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+                long bytes;
+                try (InputStream body = response.body()) {
+                    bytes = body.transferTo(OutputStream.nullOutputStream());
+                }
+                // Statuses the scenario doesn't expect are errors, a 404 or 400 answered quickly would otherwise make a broken url look fast
+                if (!scenario.answered().test(response.statusCode())) {
+                    recorder.error();
+                } else {
+                    recorder.record(System.nanoTime() - sent, bytes);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                recorder.error();
+            }
+        }
+    }
+
+    // Options look like --name=value
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+}
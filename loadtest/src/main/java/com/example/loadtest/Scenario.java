@@ -0,0 +1,30 @@
+package com.example.loadtest;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+// What every request of a run looks like: the url, picked with the client's own seeded random so the same urls come up every run, the headers to send and which statuses count as answered.
+public record Scenario(Function<SplittableRandom, URI> urls, Map<String, String> headers, IntPredicate answered) {
+
+    // Plain GETs where anything but a 2xx is an error
+    public static Scenario get(Function<SplittableRandom, URI> urls) {
+        return new Scenario(urls, Map.of(), status -> status / 100 == 2);
+    }
+
+    public Scenario header(String header, String value) {
+        Map<String, String> copy = new HashMap<>(headers);
+        copy.put(header, value);
+        return new Scenario(urls, Map.copyOf(copy), answered);
+    }
+
+    // For scenarios that look up things that may not be there, where only the given statuses are right answers
+    public Scenario expecting(int... statuses) {
+        int[] expected = statuses.clone();
+        return new Scenario(urls, headers, answer -> Arrays.stream(expected).anyMatch(status -> status == answer));
+    }
+}
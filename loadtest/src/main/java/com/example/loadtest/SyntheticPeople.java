@@ -0,0 +1,48 @@
+package com.example.loadtest;
+
+import java.util.Random;
+
+// Made up names, addresses, phone numbers and ages for the services' SyntheticData. Each helper draws its random numbers in a fixed order, so the same seed gives the same people in every service.
+public final class SyntheticPeople {
+
+    private static final String[] FIRST_NAMES = {"John", "Jane", "Jimmy", "Mario", "Luigi", "Peach", "Daisy", "Toad", "Sam", "Alex"};
+    private static final String[] LAST_NAMES = {"Doe", "Smith", "Mario", "Brown", "Lee", "Garcia", "Martin", "Clark"};
+    private static final String[] STREETS = {"Main St", "Elm St", "Oak St", "Pine St", "Maple Ave", "Cedar Rd"};
+
+    private SyntheticPeople() {
+    }
+
+    public static String firstName(Random random) {
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+    }
+
+    public static String lastName(Random random) {
+        return LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+    }
+
+    // Picked from an id instead, for callers that want to make up the same name again without asking the db
+    public static String firstName(int id) {
+        return FIRST_NAMES[id % FIRST_NAMES.length];
+    }
+
+    public static String lastName(int id) {
+        return LAST_NAMES[id % LAST_NAMES.length];
+    }
+
+    public static String street(int id) {
+        return STREETS[id % STREETS.length];
+    }
+
+    public static String address(Random random) {
+        return (1 + random.nextInt(9999)) + " " + STREETS[random.nextInt(STREETS.length)];
+    }
+
+    public static String phoneNumber(Random random) {
+        return String.format("555-%04d", random.nextInt(10000));
+    }
+
+    // Roughly a quarter of people are children
+    public static int age(Random random) {
+        return random.nextInt(4) == 0 ? 1 + random.nextInt(17) : 18 + random.nextInt(70);
+    }
+}
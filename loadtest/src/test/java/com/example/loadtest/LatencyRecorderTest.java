@@ -0,0 +1,33 @@
+package com.example.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyRecorderTest {
+
+    @Test
+    void percentilesAcrossClients() {
+        LatencyRecorder first = new LatencyRecorder();
+        LatencyRecorder second = new LatencyRecorder();
+        for (int i = 1; i <= 100; i++) {
+            (i % 2 == 0 ? first : second).record(i * 1_000_000L);
+        }
+        second.error();
+
+        LatencyRecorder merged = LatencyRecorder.merge(List.of(first, second));
+
+        assertEquals(100, merged.getCount());
+        assertEquals(1, merged.getErrors());
+        assertEquals(50.0, merged.percentileMillis(50));
+        assertEquals(99.0, merged.percentileMillis(99));
+        assertEquals(100.0, merged.percentileMillis(100));
+    }
+
+    @Test
+    void emptyRecorder() {
+        assertEquals(0.0, LatencyRecorder.merge(List.of()).percentileMillis(99));
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.loadtest;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the load against a tiny in process server that answers 200 on /ok and 404 on everything else
+class LoadTestTest {
+
+    private HttpServer server;
+    private String base;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = "{}".getBytes();
+            exchange.sendResponseHeaders(exchange.getRequestURI().getPath().equals("/ok") ? 200 : 404, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        base = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void okResponsesAreTimed() throws InterruptedException {
+        LoadTest.LoadResult result = LoadTest.run(List.of(URI.create(base + "/ok")), 2, Duration.ofMillis(300));
+
+        assertTrue(result.requests() > 0, result.latencies().getErrors() + " errors");
+        assertEquals(0, result.latencies().getErrors());
+        assertEquals(2.0, result.bytesPerRequest());
+    }
+
+    @Test
+    void notFoundIsAnError() throws InterruptedException {
+        LoadTest.LoadResult result = LoadTest.run(List.of(URI.create(base + "/missing")), 2, Duration.ofMillis(300));
+
+        assertEquals(0, result.requests());
+        assertTrue(result.latencies().getErrors() > 0);
+    }
+
+    @Test
+    void notFoundIsAnsweredWhenExpected() throws InterruptedException {
+        LoadTest.LoadResult result = LoadTest.run(Scenario.get(random -> URI.create(base + "/missing")).expecting(404), 2, Duration.ofMillis(300));
+
+        assertTrue(result.requests() > 0);
+        assertEquals(0, result.latencies().getErrors());
+    }
+}